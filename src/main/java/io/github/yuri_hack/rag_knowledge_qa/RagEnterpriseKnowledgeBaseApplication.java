@@ -3,9 +3,11 @@ package io.github.yuri_hack.rag_knowledge_qa;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
 @EnableAsync
+@EnableScheduling
 public class RagEnterpriseKnowledgeBaseApplication {
 
 	public static void main(String[] args) {
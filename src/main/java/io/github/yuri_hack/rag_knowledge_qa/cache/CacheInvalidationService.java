@@ -0,0 +1,39 @@
+package io.github.yuri_hack.rag_knowledge_qa.cache;
+
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
+
+import java.util.Collection;
+
+/**
+ * 缓存依赖失效
+ * 维护 文档块ID -> 缓存key 的反向索引，文档块删除时失效依赖它的缓存条目
+ */
+public interface CacheInvalidationService {
+
+    /**
+     * 登记缓存条目依赖的文档块，登记后来源块已被删除时撤销该条目
+     * @param cacheKey 缓存条目的Redis key
+     * @param chunkIds 生成该条目时使用的文档块ID
+     * @return 条目因来源块已删除被撤销时返回 false
+     */
+    boolean registerDependencies(String cacheKey, Collection<Long> chunkIds);
+
+    /**
+     * 将登记依赖的命令追加到调用方的管道，随管道一起提交
+     */
+    void registerDependencies(Pipeline pipeline, String cacheKey, Collection<Long> chunkIds);
+
+    /**
+     * 将查询已删除文档块数量的命令追加到调用方的管道
+     * 异步写入在登记依赖之后据此检查，删除排队期间失效过的条目
+     * @return 这些文档块中近期被失效的数量，管道提交后可用
+     */
+    Response<Long> countInvalidatedChunks(Pipeline pipeline, Collection<Long> chunkIds);
+
+    /**
+     * 失效依赖这些文档块的所有缓存条目，Redis 异常只记录日志
+     * @return 删除的缓存条目数
+     */
+    int invalidateChunks(Collection<Long> chunkIds);
+}
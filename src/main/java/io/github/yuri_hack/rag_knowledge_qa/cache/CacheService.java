@@ -1,10 +1,22 @@
 package io.github.yuri_hack.rag_knowledge_qa.cache;
 
+import io.github.yuri_hack.rag_knowledge_qa.cache.model.CacheTierStats;
+
+import java.util.List;
 import java.util.Optional;
 
 public interface CacheService {
 
     Optional<String> getExactAnswer(String question);
 
-    void cacheExactAnswer(String question, String answer);
+    /**
+     * 缓存精确答案
+     * @param sourceChunkIds 生成答案时使用的文档块ID，块删除时失效该答案
+     */
+    void cacheExactAnswer(String question, String answer, List<Long> sourceChunkIds);
+
+    /**
+     * 各缓存层的命中统计
+     */
+    List<CacheTierStats> getStats();
 }
\ No newline at end of file
@@ -0,0 +1,23 @@
+package io.github.yuri_hack.rag_knowledge_qa.cache;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * 向量缓存，以 模型+维度+文本 的内容哈希为键
+ * 返回的向量数组为共享实例，调用方不应修改
+ */
+public interface EmbeddingCacheService {
+
+    Optional<float[]> get(String text);
+
+    /**
+     * 批量查询，只返回命中的文本
+     */
+    Map<String, float[]> getAll(Collection<String> texts);
+
+    void put(String text, float[] embedding);
+
+    void putAll(Map<String, float[]> embeddings);
+}
@@ -0,0 +1,21 @@
+package io.github.yuri_hack.rag_knowledge_qa.cache;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * 问题归一化结果缓存，以 SimpleNormalizer 形式的问题文本为键
+ * 键中包含归一化模型和提示词的哈希，修改提示词后旧缓存自然失效
+ */
+public interface NormalizationCacheService {
+
+    /**
+     * 批量查询，只返回命中的键
+     */
+    Map<String, String> getAll(Collection<String> keys);
+
+    /**
+     * 将多个键指向同一个归一化结果
+     */
+    void putAll(Collection<String> keys, String normalized);
+}
@@ -1,22 +1,25 @@
 package io.github.yuri_hack.rag_knowledge_qa.cache;
 
 import io.github.yuri_hack.rag_knowledge_qa.cache.model.SemanticAnswerCacheHit;
+import io.github.yuri_hack.rag_knowledge_qa.context.QueryContext;
 
+import java.util.List;
 import java.util.Optional;
 
 public interface SemanticAnswerCacheService {
     
     /**
      * 缓存语义答案
-     * @param originalQuery 原始问题
+     * @param context 查询上下文
      * @param answer 生成的答案
+     * @param sourceChunkIds 生成答案时使用的文档块ID
      */
-    void cacheSemanticAnswer(String originalQuery, String answer);
+    void cacheSemanticAnswer(QueryContext context, String answer, List<Long> sourceChunkIds);
     
     /**
      * 搜索相似问题的答案
-     * @param query 查询问题
+     * @param context 查询上下文
      * @return 语义答案缓存命中结果
      */
-    Optional<SemanticAnswerCacheHit> searchSimilarAnswers(String query);
+    Optional<SemanticAnswerCacheHit> searchSimilarAnswers(QueryContext context);
 }
\ No newline at end of file
@@ -1,6 +1,7 @@
 package io.github.yuri_hack.rag_knowledge_qa.cache;
 
 import io.github.yuri_hack.rag_knowledge_qa.cache.model.SemanticDocumentCache;
+import io.github.yuri_hack.rag_knowledge_qa.context.QueryContext;
 
 import java.util.List;
 import java.util.Optional;
@@ -14,10 +15,10 @@ public interface SemanticDocumentCacheService {
     /**
      * 缓存语义文档
      */
-    void cacheSemanticDocument(String originalQuery, List<Long> documentChunkIds);
+    void cacheSemanticDocument(QueryContext context, List<Long> documentChunkIds);
 
     /**
      * 搜索相似查询
      */
-    Optional<SemanticDocumentCache> searchSimilarDocument(String query);
+    Optional<SemanticDocumentCache> searchSimilarDocument(QueryContext context);
 }
\ No newline at end of file
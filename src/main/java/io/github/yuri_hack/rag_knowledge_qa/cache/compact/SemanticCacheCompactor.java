@@ -0,0 +1,137 @@
+package io.github.yuri_hack.rag_knowledge_qa.cache.compact;
+
+import io.github.yuri_hack.rag_knowledge_qa.config.CacheConfig;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import redis.clients.jedis.JedisPooled;
+import redis.clients.jedis.params.ScanParams;
+import redis.clients.jedis.resps.ScanResult;
+import redis.clients.jedis.search.Document;
+import redis.clients.jedis.search.Query;
+import redis.clients.jedis.search.SearchResult;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 语义缓存压缩任务
+ * 定期扫描语义答案缓存和语义文档缓存，将相似度达到阈值的近似重复条目合并为一条，
+ * 保留剩余过期时间最长(最近刷新)的条目，其余删除
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "rag.cache.compaction", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class SemanticCacheCompactor {
+
+    private final CacheConfig cacheConfig;
+    private final JedisPooled jedisPooled;
+
+    private static final byte[] VECTOR_FIELD = "vector".getBytes(StandardCharsets.UTF_8);
+    private static final String DISTANCE_FIELD = "distance";
+    private static final int SCAN_COUNT = 500;
+
+    @Scheduled(initialDelayString = "${rag.cache.compaction.interval-minutes:10}",
+            fixedDelayString = "${rag.cache.compaction.interval-minutes:10}",
+            timeUnit = TimeUnit.MINUTES)
+    public void compact() {
+        CacheConfig.SemanticAnswerCache answer = cacheConfig.getSemanticAnswer();
+        if (answer.isEnabled()) {
+            compact("语义答案缓存", answer.getIndexName(), answer.getCachePrefix(), answer.getSimilarityThreshold());
+        }
+
+        CacheConfig.SemanticCache document = cacheConfig.getSemantic();
+        if (document.isEnabled()) {
+            compact("语义文档缓存", document.getIndexName(), document.getCachePrefix(), document.getSimilarityThreshold());
+        }
+    }
+
+    private void compact(String name, String indexName, String cachePrefix, double threshold) {
+        CacheConfig.Compaction compaction = cacheConfig.getCompaction();
+        Set<String> removed = new HashSet<>();
+        int visited = 0;
+        long startTime = System.currentTimeMillis();
+
+        try {
+            ScanParams scanParams = new ScanParams().match(cachePrefix + "*").count(SCAN_COUNT);
+            String cursor = ScanParams.SCAN_POINTER_START;
+            do {
+                ScanResult<String> page = jedisPooled.scan(cursor, scanParams);
+                for (String key : page.getResult()) {
+                    if (visited >= compaction.getMaxEntriesPerRun()) {
+                        break;
+                    }
+                    if (removed.contains(key)) {
+                        continue;
+                    }
+                    visited++;
+                    removed.addAll(mergeNeighbors(key, indexName, threshold, removed));
+                }
+                cursor = page.getCursor();
+            } while (!ScanParams.SCAN_POINTER_START.equals(cursor) && visited < compaction.getMaxEntriesPerRun());
+        } catch (Exception e) {
+            log.error("{}压缩失败", name, e);
+        }
+
+        if (!removed.isEmpty()) {
+            log.info("{}压缩完成, 检查条目: {}, 合并删除: {}, 耗时: {} ms",
+                    name, visited, removed.size(), System.currentTimeMillis() - startTime);
+        }
+    }
+
+    /**
+     * 合并与指定条目近似重复的条目
+     *
+     * @return 被删除的条目key
+     */
+    private List<String> mergeNeighbors(String key, String indexName, double threshold, Set<String> removed) {
+        byte[] vector = jedisPooled.hget(key.getBytes(StandardCharsets.UTF_8), VECTOR_FIELD);
+        if (vector == null) {
+            return List.of();
+        }
+
+        Query query = new Query("*=>[KNN %d @vector $vec AS %s]".formatted(cacheConfig.getCompaction().getNeighbors(), DISTANCE_FIELD))
+                .addParam("vec", vector)
+                .returnFields(DISTANCE_FIELD)
+                .setSortBy(DISTANCE_FIELD, true)
+                .dialect(2);
+        SearchResult neighbors = jedisPooled.ftSearch(indexName, query);
+
+        List<String> cluster = new ArrayList<>();
+        cluster.add(key);
+        for (Document neighbor : neighbors.getDocuments()) {
+            String neighborKey = neighbor.getId();
+            double similarity = 1 - Double.parseDouble(neighbor.getString(DISTANCE_FIELD));
+            if (similarity >= threshold && !neighborKey.equals(key) && !removed.contains(neighborKey)) {
+                cluster.add(neighborKey);
+            }
+        }
+        if (cluster.size() == 1) {
+            return List.of();
+        }
+
+        // 保留剩余过期时间最长的条目
+        String survivor = key;
+        long survivorTtl = jedisPooled.ttl(key);
+        for (String member : cluster.subList(1, cluster.size())) {
+            long ttl = jedisPooled.ttl(member);
+            if (ttl > survivorTtl) {
+                survivor = member;
+                survivorTtl = ttl;
+            }
+        }
+
+        String keep = survivor;
+        List<String> duplicates = cluster.stream().filter(member -> !member.equals(keep)).toList();
+        jedisPooled.del(duplicates.toArray(String[]::new));
+        log.debug("合并近似重复语义缓存, 保留: {}, 删除: {}", keep, duplicates.size());
+        return duplicates;
+    }
+}
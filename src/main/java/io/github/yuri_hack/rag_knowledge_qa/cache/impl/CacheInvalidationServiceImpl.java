@@ -0,0 +1,148 @@
+package io.github.yuri_hack.rag_knowledge_qa.cache.impl;
+
+import io.github.yuri_hack.rag_knowledge_qa.cache.CacheInvalidationService;
+import io.github.yuri_hack.rag_knowledge_qa.cache.model.CacheInvalidationMessage;
+import io.github.yuri_hack.rag_knowledge_qa.config.CacheConfig;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Service;
+import redis.clients.jedis.JedisPooled;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 基于 Redis Set 的缓存反向索引
+ * 每个文档块对应一个集合 rag:cache:chunk:{chunkId}，成员为依赖该块的缓存key；
+ * 失效时先写入 rag:cache:deleted:{chunkId} 标记，异步写入在登记依赖后检查标记，
+ * 避免删除前排队的写入在失效之后落盘
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CacheInvalidationServiceImpl implements CacheInvalidationService {
+
+    private final JedisPooled jedisPooled;
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final CacheConfig cacheConfig;
+
+    private static final String INDEX_PREFIX = "rag:cache:chunk:";
+    private static final String DELETED_PREFIX = "rag:cache:deleted:";
+
+    // 失效消息来源标识，与任何节点的精确缓存都不同，所有节点(含本节点)都会处理
+    private final String origin = "invalidation-" + UUID.randomUUID();
+
+    @Override
+    public boolean registerDependencies(String cacheKey, Collection<Long> chunkIds) {
+        if (chunkIds == null || chunkIds.isEmpty()) {
+            return true;
+        }
+
+        try (Pipeline pipeline = jedisPooled.pipelined()) {
+            registerDependencies(pipeline, cacheKey, chunkIds);
+            Response<Long> invalidated = countInvalidatedChunks(pipeline, chunkIds);
+            pipeline.sync();
+            if (invalidated.get() > 0) {
+                pipeline.del(cacheKey);
+                pipeline.sync();
+                log.debug("撤销引用已删除文档块的缓存条目: {}", cacheKey);
+                return false;
+            }
+        } catch (Exception e) {
+            log.warn("登记缓存依赖失败, key: {}, {}", cacheKey, e.getMessage());
+        }
+        return true;
+    }
+
+    @Override
+    public void registerDependencies(Pipeline pipeline, String cacheKey, Collection<Long> chunkIds) {
+        if (chunkIds == null || chunkIds.isEmpty()) {
+            return;
+        }
+
+        // 索引过期时间取各缓存中最长的；条目先于索引过期时，失效时删除不存在的key无副作用
+        long ttlSeconds = indexTtlSeconds();
+        for (Long chunkId : chunkIds) {
+            String indexKey = INDEX_PREFIX + chunkId;
+            pipeline.sadd(indexKey, cacheKey);
+            pipeline.expire(indexKey, ttlSeconds);
+        }
+    }
+
+    @Override
+    public Response<Long> countInvalidatedChunks(Pipeline pipeline, Collection<Long> chunkIds) {
+        return pipeline.exists(chunkIds.stream().map(chunkId -> DELETED_PREFIX + chunkId).toArray(String[]::new));
+    }
+
+    @Override
+    public int invalidateChunks(Collection<Long> chunkIds) {
+        if (chunkIds == null || chunkIds.isEmpty()) {
+            return 0;
+        }
+
+        List<String> indexKeys = chunkIds.stream().map(chunkId -> INDEX_PREFIX + chunkId).toList();
+        Set<String> cacheKeys = new LinkedHashSet<>();
+        long deletedMarkerTtl = cacheConfig.getWriteBehind().getDeletedChunkTtlSeconds();
+        try (Pipeline pipeline = jedisPooled.pipelined()) {
+            // 先写删除标记再读取反向索引：写入方先登记依赖再检查标记，两者必有一方看到对方
+            for (Long chunkId : chunkIds) {
+                pipeline.setex(DELETED_PREFIX + chunkId, deletedMarkerTtl, "1");
+            }
+            List<Response<Set<String>>> members = new ArrayList<>(indexKeys.size());
+            for (String indexKey : indexKeys) {
+                members.add(pipeline.smembers(indexKey));
+            }
+            pipeline.sync();
+            members.forEach(response -> cacheKeys.addAll(response.get()));
+
+            for (String cacheKey : cacheKeys) {
+                pipeline.del(cacheKey);
+            }
+            for (String indexKey : indexKeys) {
+                pipeline.del(indexKey);
+            }
+            pipeline.sync();
+        } catch (Exception e) {
+            // 文档删除和重新摄取不因缓存失效失败而中断，残留条目随过期时间清除
+            log.error("按文档块失效缓存失败, 块数: {}", chunkIds.size(), e);
+            return 0;
+        }
+
+        if (!cacheKeys.isEmpty()) {
+            publishLocalInvalidation(new ArrayList<>(cacheKeys));
+        }
+        log.info("按文档块失效缓存, 块数: {}, 失效条目数: {}", chunkIds.size(), cacheKeys.size());
+        return cacheKeys.size();
+    }
+
+    /**
+     * 通知各节点清除精确缓存的进程内副本
+     */
+    private void publishLocalInvalidation(List<String> cacheKeys) {
+        CacheConfig.ExactCache exact = cacheConfig.getExact();
+        if (!exact.isLocalEnabled()) {
+            return;
+        }
+        try {
+            redisTemplate.convertAndSend(exact.getInvalidationChannel(), new CacheInvalidationMessage(origin, cacheKeys));
+        } catch (Exception e) {
+            log.warn("发布缓存失效消息失败: {}", e.getMessage());
+        }
+    }
+
+    private long indexTtlSeconds() {
+        return Math.max(
+                TimeUnit.HOURS.toSeconds(cacheConfig.getSemantic().getTtlHours()),
+                TimeUnit.MINUTES.toSeconds(Math.max(
+                        cacheConfig.getExact().getTtlMinutes(),
+                        cacheConfig.getSemanticAnswer().getTtlMinutes())));
+    }
+}
@@ -1,34 +1,97 @@
 package io.github.yuri_hack.rag_knowledge_qa.cache.impl;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.github.yuri_hack.rag_knowledge_qa.cache.CacheInvalidationService;
 import io.github.yuri_hack.rag_knowledge_qa.cache.CacheService;
+import io.github.yuri_hack.rag_knowledge_qa.cache.model.CacheInvalidationMessage;
+import io.github.yuri_hack.rag_knowledge_qa.cache.model.CacheTierStats;
+import io.github.yuri_hack.rag_knowledge_qa.cache.write.CacheWriteBehindQueue;
 import io.github.yuri_hack.rag_knowledge_qa.config.CacheConfig;
 import io.github.yuri_hack.rag_knowledge_qa.util.SimpleNormalizer;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.Message;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
+import java.util.UUID;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 
+/**
+ * 两级精确缓存：进程内 Caffeine (L1) + Redis (L2)
+ * L1 写入时通过 Redis 发布订阅通知其他节点失效对应条目；写入经异步写入队列在后台线程执行
+ */
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class CacheServiceImpl implements CacheService {
     private final RedisTemplate<String, Object> redisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
     private final SimpleNormalizer simpleNormalizer;
     private final CacheConfig config;
+    private final CacheInvalidationService cacheInvalidationService;
+    private final CacheWriteBehindQueue writeBehindQueue;
 
     private static final String CACHE_PREFIX = "rag:exact:";
 
+    // 当前节点标识，用于忽略自己发出的失效消息
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private final LongAdder redisHits = new LongAdder();
+    private final LongAdder redisMisses = new LongAdder();
+
+    private Cache<String, String> localCache;
+
+    @PostConstruct
+    public void init() {
+        CacheConfig.ExactCache exact = config.getExact();
+        if (!exact.isLocalEnabled()) {
+            return;
+        }
+
+        localCache = Caffeine.newBuilder()
+                .maximumSize(exact.getLocalMaxSize())
+                .expireAfterWrite(Duration.ofSeconds(exact.getLocalTtlSeconds()))
+                .recordStats()
+                .build();
+        listenerContainer.addMessageListener(this::onInvalidation, new ChannelTopic(exact.getInvalidationChannel()));
+    }
+
     @Override
     public Optional<String> getExactAnswer(String question) {
         if (!config.getExact().isEnabled()) return Optional.empty();
 
         try {
             String key = buildCacheKey(question);
+            if (localCache != null) {
+                String local = localCache.getIfPresent(key);
+                if (local != null) {
+                    return Optional.of(local);
+                }
+            }
+
             Object result = redisTemplate.opsForValue().get(key);
-            return result != null ? Optional.of(result.toString()) : Optional.empty();
+            if (result == null) {
+                redisMisses.increment();
+                return Optional.empty();
+            }
+
+            redisHits.increment();
+            String answer = result.toString();
+            if (localCache != null) {
+                localCache.put(key, answer);
+            }
+            return Optional.of(answer);
         } catch (Exception e) {
             log.error("获取精确缓存失败", e);
             return Optional.empty();
@@ -36,21 +99,81 @@ public class CacheServiceImpl implements CacheService {
     }
 
     @Override
-    public void cacheExactAnswer(String question, String answer) {
+    public void cacheExactAnswer(String question, String answer, List<Long> sourceChunkIds) {
         if (!config.getExact().isEnabled()) return;
 
+        // 在缓存写入线程执行，调用方不等待 Redis
+        writeBehindQueue.submitTask("exact:" + question, () -> writeExactAnswer(question, answer, sourceChunkIds));
+    }
+
+    private void writeExactAnswer(String question, String answer, List<Long> sourceChunkIds) {
         try {
             String key = buildCacheKey(question);
             redisTemplate.opsForValue().set(
                     key, answer, config.getExact().getTtlMinutes(), TimeUnit.MINUTES
             );
+            if (localCache != null) {
+                localCache.put(key, answer);
+                publishInvalidation(List.of(key));
+            }
+            // 排队期间来源块被删除时撤销刚写入的条目
+            if (!cacheInvalidationService.registerDependencies(key, sourceChunkIds) && localCache != null) {
+                localCache.invalidate(key);
+                publishInvalidation(List.of(key));
+            }
         } catch (Exception e) {
             log.error("缓存精确答案失败", e);
         }
     }
 
+    @Override
+    public List<CacheTierStats> getStats() {
+        List<CacheTierStats> stats = new ArrayList<>();
+        if (localCache != null) {
+            CacheStats local = localCache.stats();
+            stats.add(CacheTierStats.builder()
+                    .tier("local")
+                    .hits(local.hitCount())
+                    .misses(local.missCount())
+                    .evictions(local.evictionCount())
+                    .size(localCache.estimatedSize())
+                    .build());
+        }
+        // Redis 的淘汰由服务端负责，这里只统计命中情况
+        stats.add(CacheTierStats.builder()
+                .tier("redis")
+                .hits(redisHits.sum())
+                .misses(redisMisses.sum())
+                .build());
+        return stats;
+    }
+
+    private void publishInvalidation(List<String> keys) {
+        try {
+            redisTemplate.convertAndSend(config.getExact().getInvalidationChannel(),
+                    new CacheInvalidationMessage(nodeId, keys));
+        } catch (Exception e) {
+            // 广播失败时其他节点依赖L1过期时间兜底
+            log.warn("发布缓存失效消息失败: {}", e.getMessage());
+        }
+    }
+
+    private void onInvalidation(Message message, byte[] pattern) {
+        try {
+            Object body = redisTemplate.getValueSerializer().deserialize(message.getBody());
+            if (body instanceof CacheInvalidationMessage invalidation
+                    && !nodeId.equals(invalidation.getOrigin())
+                    && invalidation.getKeys() != null) {
+                localCache.invalidateAll(invalidation.getKeys());
+                log.debug("收到缓存失效消息, 失效 {} 个本地条目", invalidation.getKeys().size());
+            }
+        } catch (Exception e) {
+            log.warn("处理缓存失效消息失败: {}", e.getMessage());
+        }
+    }
+
     private String buildCacheKey(String question) {
         // 这里只做基本归一化
         return CACHE_PREFIX + simpleNormalizer.normalize(question);
     }
-}
\ No newline at end of file
+}
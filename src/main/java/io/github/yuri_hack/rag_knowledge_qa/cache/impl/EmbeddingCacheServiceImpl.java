@@ -0,0 +1,144 @@
+package io.github.yuri_hack.rag_knowledge_qa.cache.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.github.yuri_hack.rag_knowledge_qa.cache.EmbeddingCacheService;
+import io.github.yuri_hack.rag_knowledge_qa.config.CacheConfig;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import redis.clients.jedis.JedisPooled;
+import redis.clients.jedis.Pipeline;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static io.github.yuri_hack.rag_knowledge_qa.util.HashUtils.sha256Hex;
+import static io.github.yuri_hack.rag_knowledge_qa.util.VectorUtils.floatArray2Bytes;
+import static io.github.yuri_hack.rag_knowledge_qa.util.VectorUtils.fromByteArray;
+
+/**
+ * 两级向量缓存：进程内 Caffeine + 可选的 Redis 二进制存储
+ * 键中包含模型名、维度和归一化开关，切换模型后旧缓存自然失效
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class EmbeddingCacheServiceImpl implements EmbeddingCacheService {
+
+    private final CacheConfig cacheConfig;
+    private final JedisPooled jedisPooled;
+
+    @Value("${spring.ai.openai.embedding.options.model}")
+    private String model;
+
+    @Value("${spring.ai.openai.embedding.options.dimensions}")
+    private int dimensions;
+
+    @Value("${spring.ai.openai.embedding.normalize:true}")
+    private boolean normalize;
+
+    private String namespace;
+
+    private Cache<String, float[]> localCache;
+
+    @PostConstruct
+    public void init() {
+        namespace = model + "|" + dimensions + "|" + normalize + "|";
+        localCache = Caffeine.newBuilder()
+                .maximumSize(cacheConfig.getEmbedding().getLocalMaxSize())
+                .build();
+    }
+
+    @Override
+    public Optional<float[]> get(String text) {
+        return Optional.ofNullable(getAll(List.of(text)).get(text));
+    }
+
+    @Override
+    public Map<String, float[]> getAll(Collection<String> texts) {
+        Map<String, float[]> hits = new LinkedHashMap<>();
+        if (!cacheConfig.getEmbedding().isEnabled() || texts.isEmpty()) {
+            return hits;
+        }
+
+        List<String> misses = new ArrayList<>();
+        List<String> missKeys = new ArrayList<>();
+        for (String text : texts) {
+            String key = buildCacheKey(text);
+            float[] local = localCache.getIfPresent(key);
+            if (local != null) {
+                hits.put(text, local);
+            } else {
+                misses.add(text);
+                missKeys.add(key);
+            }
+        }
+
+        if (!misses.isEmpty() && cacheConfig.getEmbedding().isRedisEnabled()) {
+            try {
+                List<byte[]> values = jedisPooled.mget(missKeys.stream()
+                        .map(key -> key.getBytes(StandardCharsets.UTF_8))
+                        .toArray(byte[][]::new));
+                for (int i = 0; i < misses.size(); i++) {
+                    byte[] value = values.get(i);
+                    if (value != null) {
+                        float[] embedding = fromByteArray(value);
+                        localCache.put(missKeys.get(i), embedding);
+                        hits.put(misses.get(i), embedding);
+                    }
+                }
+            } catch (Exception e) {
+                log.warn("读取Redis向量缓存失败: {}", e.getMessage());
+            }
+        }
+
+        log.debug("向量缓存查询: 总数 {}, 命中 {}", texts.size(), hits.size());
+        return hits;
+    }
+
+    @Override
+    public void put(String text, float[] embedding) {
+        putAll(Map.of(text, embedding));
+    }
+
+    @Override
+    public void putAll(Map<String, float[]> embeddings) {
+        if (!cacheConfig.getEmbedding().isEnabled()) {
+            return;
+        }
+
+        Map<String, float[]> entries = new LinkedHashMap<>();
+        for (Map.Entry<String, float[]> entry : embeddings.entrySet()) {
+            String key = buildCacheKey(entry.getKey());
+            localCache.put(key, entry.getValue());
+            entries.put(key, entry.getValue());
+        }
+
+        if (entries.isEmpty() || !cacheConfig.getEmbedding().isRedisEnabled()) {
+            return;
+        }
+        // 一次管道提交所有写入
+        long ttlSeconds = cacheConfig.getEmbedding().getTtlHours() * TimeUnit.HOURS.toSeconds(1);
+        try (Pipeline pipeline = jedisPooled.pipelined()) {
+            for (Map.Entry<String, float[]> entry : entries.entrySet()) {
+                pipeline.setex(entry.getKey().getBytes(StandardCharsets.UTF_8), ttlSeconds, floatArray2Bytes(entry.getValue()));
+            }
+            pipeline.sync();
+        } catch (Exception e) {
+            log.warn("写入Redis向量缓存失败: {}", e.getMessage());
+        }
+    }
+
+    private String buildCacheKey(String text) {
+        return cacheConfig.getEmbedding().getCachePrefix() + sha256Hex(namespace + text);
+    }
+}
@@ -0,0 +1,122 @@
+package io.github.yuri_hack.rag_knowledge_qa.cache.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.github.yuri_hack.rag_knowledge_qa.cache.NormalizationCacheService;
+import io.github.yuri_hack.rag_knowledge_qa.config.CacheConfig;
+import io.github.yuri_hack.rag_knowledge_qa.config.PromptConfig;
+import io.github.yuri_hack.rag_knowledge_qa.config.TongYiBaseConfig;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import redis.clients.jedis.JedisPooled;
+import redis.clients.jedis.Pipeline;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static io.github.yuri_hack.rag_knowledge_qa.util.HashUtils.sha256Hex;
+
+/**
+ * 两级归一化结果缓存：进程内 Caffeine + Redis 字符串
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class NormalizationCacheServiceImpl implements NormalizationCacheService {
+
+    private final CacheConfig cacheConfig;
+    private final TongYiBaseConfig tongYiBaseConfig;
+    private final PromptConfig promptConfig;
+    private final JedisPooled jedisPooled;
+
+    private String namespace;
+
+    private Cache<String, String> localCache;
+
+    @PostConstruct
+    public void init() {
+        namespace = tongYiBaseConfig.getNormalizeModelConfig().getModel() + "|"
+                + sha256Hex(String.valueOf(promptConfig.getNormalizePrompt())) + "|";
+        CacheConfig.NormalizationCache config = cacheConfig.getNormalization();
+        localCache = Caffeine.newBuilder()
+                .maximumSize(config.getLocalMaxSize())
+                .expireAfterWrite(config.getTtlHours(), TimeUnit.HOURS)
+                .build();
+    }
+
+    @Override
+    public Map<String, String> getAll(Collection<String> keys) {
+        Map<String, String> hits = new LinkedHashMap<>();
+        CacheConfig.NormalizationCache config = cacheConfig.getNormalization();
+        if (!config.isEnabled() || keys.isEmpty()) {
+            return hits;
+        }
+
+        List<String> misses = new ArrayList<>();
+        List<String> missKeys = new ArrayList<>();
+        for (String key : new LinkedHashSet<>(keys)) {
+            String cacheKey = buildCacheKey(key);
+            String local = localCache.getIfPresent(cacheKey);
+            if (local != null) {
+                hits.put(key, local);
+            } else {
+                misses.add(key);
+                missKeys.add(cacheKey);
+            }
+        }
+
+        if (!misses.isEmpty() && config.isRedisEnabled()) {
+            try {
+                List<String> values = jedisPooled.mget(missKeys.toArray(String[]::new));
+                for (int i = 0; i < misses.size(); i++) {
+                    String value = values.get(i);
+                    if (value != null) {
+                        localCache.put(missKeys.get(i), value);
+                        hits.put(misses.get(i), value);
+                    }
+                }
+            } catch (Exception e) {
+                log.warn("读取Redis归一化缓存失败: {}", e.getMessage());
+            }
+        }
+        return hits;
+    }
+
+    @Override
+    public void putAll(Collection<String> keys, String normalized) {
+        CacheConfig.NormalizationCache config = cacheConfig.getNormalization();
+        if (!config.isEnabled() || keys.isEmpty()) {
+            return;
+        }
+
+        List<String> cacheKeys = new ArrayList<>();
+        for (String key : new LinkedHashSet<>(keys)) {
+            String cacheKey = buildCacheKey(key);
+            localCache.put(cacheKey, normalized);
+            cacheKeys.add(cacheKey);
+        }
+
+        if (config.isRedisEnabled()) {
+            long ttlSeconds = TimeUnit.HOURS.toSeconds(config.getTtlHours());
+            try (Pipeline pipeline = jedisPooled.pipelined()) {
+                for (String cacheKey : cacheKeys) {
+                    pipeline.setex(cacheKey, ttlSeconds, normalized);
+                }
+                pipeline.sync();
+            } catch (Exception e) {
+                log.warn("写入Redis归一化缓存失败: {}", e.getMessage());
+            }
+        }
+    }
+
+    private String buildCacheKey(String key) {
+        return cacheConfig.getNormalization().getCachePrefix() + sha256Hex(namespace + key);
+    }
+}
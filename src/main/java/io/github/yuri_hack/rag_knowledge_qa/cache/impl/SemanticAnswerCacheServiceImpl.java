@@ -2,9 +2,10 @@ package io.github.yuri_hack.rag_knowledge_qa.cache.impl;
 
 import io.github.yuri_hack.rag_knowledge_qa.cache.SemanticAnswerCacheService;
 import io.github.yuri_hack.rag_knowledge_qa.cache.model.SemanticAnswerCacheHit;
+import io.github.yuri_hack.rag_knowledge_qa.cache.model.SemanticCacheWrite;
+import io.github.yuri_hack.rag_knowledge_qa.cache.write.CacheWriteBehindQueue;
 import io.github.yuri_hack.rag_knowledge_qa.config.CacheConfig;
-import io.github.yuri_hack.rag_knowledge_qa.embed.EmbeddingService;
-import io.github.yuri_hack.rag_knowledge_qa.service.NormalizeService;
+import io.github.yuri_hack.rag_knowledge_qa.context.QueryContext;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -13,11 +14,14 @@ import redis.clients.jedis.search.Document;
 import redis.clients.jedis.search.Query;
 import redis.clients.jedis.search.SearchResult;
 
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.UUID;
 import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
 import static io.github.yuri_hack.rag_knowledge_qa.util.VectorUtils.floatArray2Bytes;
 
@@ -26,67 +30,80 @@ import static io.github.yuri_hack.rag_knowledge_qa.util.VectorUtils.floatArray2B
 @RequiredArgsConstructor
 public class SemanticAnswerCacheServiceImpl implements SemanticAnswerCacheService {
 
-    private final EmbeddingService embeddingService;
-    private final NormalizeService normalizeService;
     private final CacheConfig cacheConfig;
     private final JedisPooled jedisPooled;
+    private final CacheWriteBehindQueue writeBehindQueue;
 
     private static final String VECTOR_FIELD = "vector";
     private static final String QUERY_FIELD = "query";
     private static final String ANSWER_FIELD = "answer";
+    private static final String CHUNK_IDS_FIELD = "chunkIds";
     private static final String DISTANCE_FIELD = "distance";
 
+    private static final byte[] VECTOR_FIELD_BYTES = VECTOR_FIELD.getBytes(StandardCharsets.UTF_8);
+    private static final byte[] QUERY_FIELD_BYTES = QUERY_FIELD.getBytes(StandardCharsets.UTF_8);
+    private static final byte[] ANSWER_FIELD_BYTES = ANSWER_FIELD.getBytes(StandardCharsets.UTF_8);
+    private static final byte[] CHUNK_IDS_FIELD_BYTES = CHUNK_IDS_FIELD.getBytes(StandardCharsets.UTF_8);
+
     @Override
-    public void cacheSemanticAnswer(String originalQuery, String answer) {
-        if (answer == null || answer.isEmpty()) {
+    public void cacheSemanticAnswer(QueryContext context, String answer, List<Long> sourceChunkIds) {
+        if (!cacheConfig.getSemanticAnswer().isEnabled() || answer == null || answer.isEmpty()) {
             return;
         }
 
-        try {
-            String normalizedQuery = normalizeService.normalizeQuestion(originalQuery);
-            float[] queryVector = embeddingService.getEmbedding(normalizedQuery);
-            if (queryVector == null) {
-                log.warn("无法生成查询向量，跳过语义答案缓存");
-                return;
-            }
-
-            String cacheKey = generateCacheKey();
-
-            // 设置参数
-            Map<String, Object> document = new HashMap<>();
-            document.put(QUERY_FIELD, normalizedQuery);
-            document.put(ANSWER_FIELD, answer);
-            document.put(VECTOR_FIELD, floatArray2Bytes(queryVector));
-
-            // 存储文档到 Redis Hash
-            jedisPooled.hset(cacheKey.getBytes(), document.entrySet().stream()
-                    .collect(HashMap::new, (m, e) -> m.put(e.getKey().getBytes(),
-                            e.getValue() instanceof byte[] ? (byte[]) e.getValue() :
-                                    String.valueOf(e.getValue()).getBytes()), HashMap::putAll));
-
-            // 设置过期时间
-            jedisPooled.expire(cacheKey, cacheConfig.getSemanticAnswer().getTtlMinutes() * TimeUnit.MINUTES.toSeconds(1));
+        // 异步写入，归一化和向量化在写入线程执行；同一问题未执行的写入只保留最新答案，已有近似重复条目时原地刷新答案
+        writeBehindQueue.submit("answer:" + context.getQuestion(), () -> buildWrite(context, answer, sourceChunkIds));
+    }
 
-            log.debug("语义答案缓存已保存, key: {}", cacheKey);
-        } catch (Exception e) {
-            log.error("保存语义答案缓存失败", e);
+    private SemanticCacheWrite buildWrite(QueryContext context, String answer, List<Long> sourceChunkIds) {
+        String normalizedQuery = context.getNormalizedQuestion();
+        float[] queryVector = context.getNormalizedEmbedding();
+        if (queryVector == null) {
+            log.warn("无法生成查询向量，跳过语义答案缓存");
+            return null;
         }
+
+        byte[] vectorBytes = floatArray2Bytes(queryVector);
+        byte[] answerBytes = answer.getBytes(StandardCharsets.UTF_8);
+        byte[] chunkIdsBytes = (sourceChunkIds == null ? "" : sourceChunkIds.stream()
+                .map(String::valueOf)
+                .collect(Collectors.joining("|||"))).getBytes(StandardCharsets.UTF_8);
+        long ttlSeconds = cacheConfig.getSemanticAnswer().getTtlMinutes() * TimeUnit.MINUTES.toSeconds(1);
+
+        Map<byte[], byte[]> fields = new HashMap<>();
+        fields.put(ANSWER_FIELD_BYTES, answerBytes);
+        fields.put(CHUNK_IDS_FIELD_BYTES, chunkIdsBytes);
+        Map<byte[], byte[]> newEntryFields = new HashMap<>();
+        newEntryFields.put(QUERY_FIELD_BYTES, normalizedQuery.getBytes(StandardCharsets.UTF_8));
+        newEntryFields.put(VECTOR_FIELD_BYTES, vectorBytes);
+
+        CacheConfig.SemanticAnswerCache config = cacheConfig.getSemanticAnswer();
+        return SemanticCacheWrite.builder()
+                .indexName(config.getIndexName())
+                .keyPrefix(config.getCachePrefix())
+                .similarityThreshold(config.getSimilarityThreshold())
+                .vector(queryVector)
+                .fields(fields)
+                .newEntryFields(newEntryFields)
+                .ttlSeconds(ttlSeconds)
+                .chunkIds(sourceChunkIds)
+                .build();
     }
 
     @Override
-    public Optional<SemanticAnswerCacheHit> searchSimilarAnswers(String query) {
+    public Optional<SemanticAnswerCacheHit> searchSimilarAnswers(QueryContext context) {
         if (!cacheConfig.getSemanticAnswer().isEnabled()) {
             return Optional.empty();
         }
 
         try {
-            String normalizedQuery = normalizeService.normalizeQuestion(query);
-            float[] queryVector = embeddingService.getEmbedding(normalizedQuery);
+            float[] queryVector = context.getNormalizedEmbedding();
             if (queryVector == null) {
                 return Optional.empty();
             }
 
-            SearchResult searchResults = executeVectorSearch(queryVector);
+            SearchResult searchResults = executeVectorSearch(queryVector, cacheConfig.getSemanticAnswer().getTopK(),
+                    QUERY_FIELD, ANSWER_FIELD, CHUNK_IDS_FIELD, DISTANCE_FIELD);
 
             if (searchResults == null || searchResults.getDocuments().isEmpty()) {
                 return Optional.empty();
@@ -103,18 +120,18 @@ public class SemanticAnswerCacheServiceImpl implements SemanticAnswerCacheServic
         return Optional.empty();
     }
 
-    private SearchResult executeVectorSearch(float[] queryVector) {
+    private SearchResult executeVectorSearch(float[] queryVector, int topK, String... returnFields) {
         try {
             String query = String.format(
                     "*=>[KNN %d @%s $vec AS %s]",
-                    cacheConfig.getSemanticAnswer().getTopK(),
+                    topK,
                     VECTOR_FIELD,
                     DISTANCE_FIELD
             );
 
             Query searchQuery = new Query(query)
                     .addParam("vec", floatArray2Bytes(queryVector))
-                    .returnFields(QUERY_FIELD, ANSWER_FIELD, DISTANCE_FIELD)
+                    .returnFields(returnFields)
                     .setSortBy(DISTANCE_FIELD, true)
                     .dialect(2);
 
@@ -147,6 +164,7 @@ public class SemanticAnswerCacheServiceImpl implements SemanticAnswerCacheServic
                             .query(cachedQuery)
                             .answer(answer)
                             .similarity(similarity)
+                            .sourceChunkIds(parseChunkIds(doc.getString(CHUNK_IDS_FIELD)))
                             .build();
                 }
             }
@@ -156,7 +174,12 @@ public class SemanticAnswerCacheServiceImpl implements SemanticAnswerCacheServic
         return bestHit;
     }
 
-    private String generateCacheKey() {
-        return cacheConfig.getSemanticAnswer().getCachePrefix() + UUID.randomUUID();
+    private List<Long> parseChunkIds(String chunkIds) {
+        if (chunkIds == null || chunkIds.isEmpty()) {
+            return List.of();
+        }
+        return Arrays.stream(chunkIds.split("\\|\\|\\|"))
+                .map(Long::parseLong)
+                .toList();
     }
-}
\ No newline at end of file
+}
@@ -1,12 +1,14 @@
 package io.github.yuri_hack.rag_knowledge_qa.cache.impl;
 
 import io.github.yuri_hack.rag_knowledge_qa.cache.SemanticDocumentCacheService;
+import io.github.yuri_hack.rag_knowledge_qa.cache.model.SemanticCacheWrite;
 import io.github.yuri_hack.rag_knowledge_qa.cache.model.SemanticDocumentCache;
+import io.github.yuri_hack.rag_knowledge_qa.cache.write.CacheWriteBehindQueue;
 import io.github.yuri_hack.rag_knowledge_qa.config.CacheConfig;
-import io.github.yuri_hack.rag_knowledge_qa.embed.EmbeddingService;
+import io.github.yuri_hack.rag_knowledge_qa.context.QueryContext;
+import io.github.yuri_hack.rag_knowledge_qa.dto.internal.KnowledgeSearchResult;
 import io.github.yuri_hack.rag_knowledge_qa.entity.DocumentChunk;
 import io.github.yuri_hack.rag_knowledge_qa.repository.DocumentChunkRepository;
-import io.github.yuri_hack.rag_knowledge_qa.service.NormalizeService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -15,12 +17,13 @@ import redis.clients.jedis.search.Document;
 import redis.clients.jedis.search.Query;
 import redis.clients.jedis.search.SearchResult;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.UUID;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
@@ -31,72 +34,78 @@ import static io.github.yuri_hack.rag_knowledge_qa.util.VectorUtils.floatArray2B
 @RequiredArgsConstructor
 public class SemanticDocumentCacheServiceImpl implements SemanticDocumentCacheService {
 
-    private final EmbeddingService embeddingService;
-    private final NormalizeService normalizeService;
     private final CacheConfig cacheConfig;
     private final JedisPooled jedisPooled;
     private final DocumentChunkRepository documentChunkRepository;
+    private final CacheWriteBehindQueue writeBehindQueue;
 
     private static final String VECTOR_FIELD = "vector";
     private static final String QUERY_FIELD = "query";
     private static final String DOC_IDS_FIELD = "docIds";
     private static final String DISTANCE_FIELD = "distance";
 
+    private static final byte[] VECTOR_FIELD_BYTES = VECTOR_FIELD.getBytes(StandardCharsets.UTF_8);
+    private static final byte[] QUERY_FIELD_BYTES = QUERY_FIELD.getBytes(StandardCharsets.UTF_8);
+    private static final byte[] DOC_IDS_FIELD_BYTES = DOC_IDS_FIELD.getBytes(StandardCharsets.UTF_8);
+
     @Override
-    public void cacheSemanticDocument(String originalQuery, List<Long> documentChunkIds) {
+    public void cacheSemanticDocument(QueryContext context, List<Long> documentChunkIds) {
         if (!cacheConfig.getSemantic().isEnabled() || documentChunkIds == null || documentChunkIds.isEmpty()) {
             return;
         }
 
-        try {
-            String normalizedQuery = normalizeService.normalizeQuestion(originalQuery);
-            float[] queryVector = embeddingService.getEmbedding(normalizedQuery);
-            if (queryVector == null) {
-                log.warn("无法生成查询向量，跳过语义缓存");
-                return;
-            }
-
-            String cacheKey = generateCacheKey();
-
-            String docIds = documentChunkIds.stream()
-                    .map(String::valueOf)
-                    .collect(Collectors.joining("|||"));
-
-            // 设置参数
-            Map<String, Object> document = new HashMap<>();
-            document.put(QUERY_FIELD, normalizedQuery);
-            document.put(DOC_IDS_FIELD, docIds);
-            document.put(VECTOR_FIELD, floatArray2Bytes(queryVector));
-
-            // 存储文档到 Redis Hash
-            jedisPooled.hset(cacheKey.getBytes(), document.entrySet().stream()
-                    .collect(HashMap::new, (m, e) -> m.put(e.getKey().getBytes(),
-                            e.getValue() instanceof byte[] ? (byte[]) e.getValue() :
-                                    String.valueOf(e.getValue()).getBytes()), HashMap::putAll));
-
-            // 设置过期时间
-            jedisPooled.expire(cacheKey, cacheConfig.getSemantic().getTtlHours() * TimeUnit.HOURS.toSeconds(1));
+        // 异步写入，归一化和向量化在写入线程执行；同一问题未执行的写入只保留最新上下文，已有近似重复条目时原地刷新上下文块
+        writeBehindQueue.submit("document:" + context.getQuestion(), () -> buildWrite(context, documentChunkIds));
+    }
 
-            log.debug("语义缓存已保存, key: {}, 上下文块数: {}", cacheKey, documentChunkIds.size());
-        } catch (Exception e) {
-            log.error("保存语义缓存失败", e);
+    private SemanticCacheWrite buildWrite(QueryContext context, List<Long> documentChunkIds) {
+        String normalizedQuery = context.getNormalizedQuestion();
+        float[] queryVector = context.getNormalizedEmbedding();
+        if (queryVector == null) {
+            log.warn("无法生成查询向量，跳过语义缓存");
+            return null;
         }
+
+        byte[] vectorBytes = floatArray2Bytes(queryVector);
+        byte[] docIdsBytes = documentChunkIds.stream()
+                .map(String::valueOf)
+                .collect(Collectors.joining("|||"))
+                .getBytes(StandardCharsets.UTF_8);
+        long ttlSeconds = cacheConfig.getSemantic().getTtlHours() * TimeUnit.HOURS.toSeconds(1);
+
+        Map<byte[], byte[]> fields = new HashMap<>();
+        fields.put(DOC_IDS_FIELD_BYTES, docIdsBytes);
+        Map<byte[], byte[]> newEntryFields = new HashMap<>();
+        newEntryFields.put(QUERY_FIELD_BYTES, normalizedQuery.getBytes(StandardCharsets.UTF_8));
+        newEntryFields.put(VECTOR_FIELD_BYTES, vectorBytes);
+
+        CacheConfig.SemanticCache config = cacheConfig.getSemantic();
+        return SemanticCacheWrite.builder()
+                .indexName(config.getIndexName())
+                .keyPrefix(config.getCachePrefix())
+                .similarityThreshold(config.getSimilarityThreshold())
+                .vector(queryVector)
+                .fields(fields)
+                .newEntryFields(newEntryFields)
+                .ttlSeconds(ttlSeconds)
+                .chunkIds(documentChunkIds)
+                .build();
     }
 
     @Override
-    public Optional<SemanticDocumentCache> searchSimilarDocument(String query) {
+    public Optional<SemanticDocumentCache> searchSimilarDocument(QueryContext context) {
         if (!cacheConfig.getSemantic().isEnabled()) {
             return Optional.empty();
         }
 
         try {
-            String normalizedQuery = normalizeService.normalizeQuestion(query);
-            float[] queryVector = embeddingService.getEmbedding(normalizedQuery);
+            float[] queryVector = context.getNormalizedEmbedding();
             if (queryVector == null) {
                 return Optional.empty();
             }
 
-            SearchResult searchResults = executeVectorSearch(queryVector);
+            SearchResult searchResults = executeVectorSearch(queryVector, cacheConfig.getSemantic().getTopK(),
+                    QUERY_FIELD, DOC_IDS_FIELD, DISTANCE_FIELD);
 
             if (searchResults == null || searchResults.getDocuments().isEmpty()) {
                 return Optional.empty();
@@ -115,18 +124,35 @@ public class SemanticDocumentCacheServiceImpl implements SemanticDocumentCacheSe
     }
 
     private void enrichSemanticCacheHit(SemanticDocumentCache bestHit) {
-        List<DocumentChunk> chunks = documentChunkRepository.findByIdIn(bestHit.getDocumentChunkIds());
-        List<String> contextChunks = chunks.stream()
-                .map(DocumentChunk::getContent)
-                .toList();
+        Map<Long, DocumentChunk> chunksById = documentChunkRepository.findByIdIn(bestHit.getDocumentChunkIds()).stream()
+                .collect(Collectors.toMap(DocumentChunk::getId, chunk -> chunk));
+
+        // 缓存的块id按原上下文的相关性排列，按位置给出递减分数供上下文组装排序
+        List<Long> chunkIds = bestHit.getDocumentChunkIds();
+        List<KnowledgeSearchResult> contextChunks = new ArrayList<>(chunkIds.size());
+        for (int i = 0; i < chunkIds.size(); i++) {
+            DocumentChunk chunk = chunksById.get(chunkIds.get(i));
+            if (chunk == null) {
+                continue;
+            }
+            KnowledgeSearchResult result = new KnowledgeSearchResult();
+            result.setContent(chunk.getContent());
+            result.setFileName(chunk.getFileName());
+            result.setChunkIndex(chunk.getChunkIndex());
+            result.setHeadingPath(chunk.getHeadingPath());
+            result.setDocumentId(chunk.getDocumentId());
+            result.setChunkId(chunk.getId());
+            result.setRerankScore(1.0 - (double) i / chunkIds.size());
+            contextChunks.add(result);
+        }
         bestHit.setContextChunks(contextChunks);
     }
 
-    private SearchResult executeVectorSearch(float[] queryVector) {
+    private SearchResult executeVectorSearch(float[] queryVector, int topK, String... returnFields) {
         try {
             String query = String.format(
                     "*=>[KNN %d @%s $vec AS %s]",
-                    cacheConfig.getSemantic().getTopK(),
+                    topK,
                     VECTOR_FIELD,
                     DISTANCE_FIELD
             );
@@ -134,7 +160,7 @@ public class SemanticDocumentCacheServiceImpl implements SemanticDocumentCacheSe
             // 使用 Query 对象构建查询
             Query searchQuery = new Query(query)
                     .addParam("vec", floatArray2Bytes(queryVector))
-                    .returnFields(QUERY_FIELD, DOC_IDS_FIELD, DISTANCE_FIELD)
+                    .returnFields(returnFields)
                     .setSortBy(DISTANCE_FIELD, true)
                     .dialect(2);
 
@@ -176,8 +202,4 @@ public class SemanticDocumentCacheServiceImpl implements SemanticDocumentCacheSe
         }
         return bestHit;
     }
-
-    private String generateCacheKey() {
-        return cacheConfig.getSemantic().getCachePrefix() + UUID.randomUUID();
-    }
 }
\ No newline at end of file
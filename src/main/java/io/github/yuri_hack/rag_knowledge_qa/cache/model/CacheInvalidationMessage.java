@@ -0,0 +1,19 @@
+package io.github.yuri_hack.rag_knowledge_qa.cache.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 本地缓存失效广播消息
+ * origin 为发送节点标识，节点忽略自己发出的消息
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CacheInvalidationMessage {
+    private String origin;
+    private List<String> keys;
+}
@@ -0,0 +1,14 @@
+package io.github.yuri_hack.rag_knowledge_qa.cache.model;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class CacheTierStats {
+    private String tier;
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long size;
+}
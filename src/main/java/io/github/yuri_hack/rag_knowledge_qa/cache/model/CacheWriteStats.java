@@ -0,0 +1,18 @@
+package io.github.yuri_hack.rag_knowledge_qa.cache.model;
+
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * 缓存异步写入队列统计
+ */
+@Data
+@Builder
+public class CacheWriteStats {
+    private int queueDepth;
+    private long submitted;
+    private long coalesced;
+    private long written;
+    private long dropped;
+    private long failed;
+}
@@ -3,10 +3,13 @@ package io.github.yuri_hack.rag_knowledge_qa.cache.model;
 import lombok.Builder;
 import lombok.Data;
 
+import java.util.List;
+
 @Data
 @Builder
 public class SemanticAnswerCacheHit {
     private String query;
     private String answer;
     private Double similarity;
+    private List<Long> sourceChunkIds;
 }
\ No newline at end of file
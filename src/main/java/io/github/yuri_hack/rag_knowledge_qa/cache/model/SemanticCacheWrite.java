@@ -0,0 +1,30 @@
+package io.github.yuri_hack.rag_knowledge_qa.cache.model;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 待写入的语义缓存条目
+ * 写入前在同一索引中查找近似重复条目，找到时原地刷新，否则以新key插入
+ */
+@Data
+@Builder
+public class SemanticCacheWrite {
+    // 近似重复检查所用的 RediSearch 索引
+    private String indexName;
+    // 新条目的key前缀
+    private String keyPrefix;
+    // 达到该相似度视为近似重复
+    private double similarityThreshold;
+    private float[] vector;
+    // 新条目和刷新条目都写入的字段
+    private Map<byte[], byte[]> fields;
+    // 仅新条目写入的字段，刷新近似重复条目时保留原有查询和向量
+    private Map<byte[], byte[]> newEntryFields;
+    private long ttlSeconds;
+    // 生成该条目时使用的文档块ID
+    private List<Long> chunkIds;
+}
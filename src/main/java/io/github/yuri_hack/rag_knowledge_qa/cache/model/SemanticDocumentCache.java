@@ -1,5 +1,6 @@
 package io.github.yuri_hack.rag_knowledge_qa.cache.model;
 
+import io.github.yuri_hack.rag_knowledge_qa.dto.internal.KnowledgeSearchResult;
 import lombok.Builder;
 import lombok.Data;
 
@@ -9,6 +10,6 @@ import java.util.List;
 @Builder
 public class SemanticDocumentCache {
     private String query;
-    private List<String> contextChunks;
+    private List<KnowledgeSearchResult> contextChunks;
     private List<Long> documentChunkIds;
 }
\ No newline at end of file
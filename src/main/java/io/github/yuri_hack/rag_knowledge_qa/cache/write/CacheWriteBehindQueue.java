@@ -0,0 +1,343 @@
+package io.github.yuri_hack.rag_knowledge_qa.cache.write;
+
+import io.github.yuri_hack.rag_knowledge_qa.cache.CacheInvalidationService;
+import io.github.yuri_hack.rag_knowledge_qa.cache.model.CacheWriteStats;
+import io.github.yuri_hack.rag_knowledge_qa.cache.model.SemanticCacheWrite;
+import io.github.yuri_hack.rag_knowledge_qa.config.CacheConfig;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import redis.clients.jedis.JedisPooled;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.search.Document;
+import redis.clients.jedis.search.Query;
+import redis.clients.jedis.search.SearchResult;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+import static io.github.yuri_hack.rag_knowledge_qa.util.VectorUtils.cosineSimilarity;
+import static io.github.yuri_hack.rag_knowledge_qa.util.VectorUtils.floatArray2Bytes;
+
+/**
+ * 语义缓存异步写入队列
+ * 写入在后台线程中批量提交，调用方不等待 Redis 和模型：提交的是条目的构建过程，
+ * 问题归一化、向量化等准备工作也在工作线程执行。每批使用同一个 Jedis 管道、两次往返：
+ * 第一次批量执行各条目的近似重复查询，第二次写入 HSET、EXPIRE 及依赖索引；
+ * 同批内彼此近似重复的条目合并到同一个key；来源文档块已被删除的条目写入后立即撤销。
+ * 同一合并key尚未执行的写入会被后续写入覆盖，队列满时丢弃新写入
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CacheWriteBehindQueue {
+
+    private final JedisPooled jedisPooled;
+    private final CacheConfig cacheConfig;
+    private final CacheInvalidationService cacheInvalidationService;
+
+    private static final String VECTOR_FIELD = "vector";
+    private static final String DISTANCE_FIELD = "distance";
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    // 按首次提交顺序执行，覆盖写入保留原有位置
+    private final LinkedHashMap<String, Supplier<SemanticCacheWrite>> pending = new LinkedHashMap<>();
+
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder written = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+
+    private volatile boolean running;
+    private Thread worker;
+
+    @PostConstruct
+    public void init() {
+        if (!cacheConfig.getWriteBehind().isEnabled()) {
+            log.info("语义缓存异步写入未启用，写入将同步执行");
+            return;
+        }
+        running = true;
+        worker = new Thread(this::drainLoop, "cache-write-behind");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @PreDestroy
+    public void destroy() throws InterruptedException {
+        if (worker == null) {
+            return;
+        }
+        // 停止接收后由工作线程写完剩余条目
+        lock.lock();
+        try {
+            running = false;
+            notEmpty.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        worker.join(TimeUnit.SECONDS.toMillis(5));
+    }
+
+    /**
+     * 提交写入
+     *
+     * @param coalesceKey 合并key，相同key未执行的写入只保留最新一次
+     * @param write       待写入的条目
+     */
+    public void submit(String coalesceKey, SemanticCacheWrite write) {
+        submit(coalesceKey, () -> write);
+    }
+
+    /**
+     * 提交写入，条目在工作线程中构建
+     *
+     * @param coalesceKey 合并key，相同key未执行的写入只保留最新一次
+     * @param preparer    构建待写入的条目，返回 null 时跳过
+     */
+    public void submit(String coalesceKey, Supplier<SemanticCacheWrite> preparer) {
+        submitted.increment();
+        if (!running) {
+            execute(List.of(preparer));
+            return;
+        }
+
+        lock.lock();
+        try {
+            if (pending.containsKey(coalesceKey)) {
+                pending.put(coalesceKey, preparer);
+                coalesced.increment();
+                return;
+            }
+            if (pending.size() >= cacheConfig.getWriteBehind().getQueueCapacity()) {
+                dropped.increment();
+                log.debug("缓存写入队列已满，丢弃写入: {}", coalesceKey);
+                return;
+            }
+            pending.put(coalesceKey, preparer);
+            notEmpty.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 提交不写入语义索引的缓存写入任务，与语义条目共用工作线程、合并和容量限制
+     *
+     * @param coalesceKey 合并key，相同key未执行的任务只保留最新一次
+     * @param task        写入任务
+     */
+    public void submitTask(String coalesceKey, Runnable task) {
+        submit(coalesceKey, () -> {
+            task.run();
+            written.increment();
+            return null;
+        });
+    }
+
+    public CacheWriteStats getStats() {
+        int queueDepth;
+        lock.lock();
+        try {
+            queueDepth = pending.size();
+        } finally {
+            lock.unlock();
+        }
+        return CacheWriteStats.builder()
+                .queueDepth(queueDepth)
+                .submitted(submitted.sum())
+                .coalesced(coalesced.sum())
+                .written(written.sum())
+                .dropped(dropped.sum())
+                .failed(failed.sum())
+                .build();
+    }
+
+    private void drainLoop() {
+        while (true) {
+            List<Supplier<SemanticCacheWrite>> batch;
+            try {
+                batch = take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (batch.isEmpty()) {
+                return;
+            }
+            execute(batch);
+        }
+    }
+
+    /**
+     * 取出一批待写入条目，停止后队列为空时返回空列表
+     */
+    private List<Supplier<SemanticCacheWrite>> take() throws InterruptedException {
+        lock.lock();
+        try {
+            while (pending.isEmpty()) {
+                if (!running) {
+                    return List.of();
+                }
+                notEmpty.await();
+            }
+
+            int batchSize = Math.max(1, cacheConfig.getWriteBehind().getBatchSize());
+            List<Supplier<SemanticCacheWrite>> batch = new ArrayList<>(Math.min(batchSize, pending.size()));
+            Iterator<Supplier<SemanticCacheWrite>> iterator = pending.values().iterator();
+            while (iterator.hasNext() && batch.size() < batchSize) {
+                batch.add(iterator.next());
+                iterator.remove();
+            }
+            return batch;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void execute(List<Supplier<SemanticCacheWrite>> preparers) {
+        List<SemanticCacheWrite> batch = prepare(preparers);
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        try (Pipeline pipeline = jedisPooled.pipelined()) {
+            // 第一次往返：批量查询每个条目在索引中的最近邻
+            List<Response<SearchResult>> nearest = new ArrayList<>(batch.size());
+            for (SemanticCacheWrite write : batch) {
+                nearest.add(pipeline.ftSearch(write.getIndexName(), nearestQuery(write.getVector())));
+            }
+            pipeline.sync();
+
+            // 第二次往返：写入条目、登记依赖并检查删除标记
+            String[] cacheKeys = new String[batch.size()];
+            List<Response<Long>> invalidated = new ArrayList<>(Collections.nCopies(batch.size(), null));
+            for (int i = 0; i < batch.size(); i++) {
+                SemanticCacheWrite write = batch.get(i);
+                String duplicateKey = findDuplicate(write, nearest.get(i));
+                if (duplicateKey == null) {
+                    duplicateKey = findDuplicateInBatch(batch, cacheKeys, i);
+                }
+                cacheKeys[i] = duplicateKey != null ? duplicateKey : write.getKeyPrefix() + UUID.randomUUID();
+
+                LinkedHashMap<byte[], byte[]> document = new LinkedHashMap<>(write.getFields());
+                if (duplicateKey == null) {
+                    document.putAll(write.getNewEntryFields());
+                }
+                pipeline.hset(cacheKeys[i].getBytes(StandardCharsets.UTF_8), document);
+                pipeline.expire(cacheKeys[i], write.getTtlSeconds());
+                cacheInvalidationService.registerDependencies(pipeline, cacheKeys[i], write.getChunkIds());
+                // 登记依赖之后检查来源块是否已在排队期间被删除
+                if (write.getChunkIds() != null && !write.getChunkIds().isEmpty()) {
+                    invalidated.set(i, cacheInvalidationService.countInvalidatedChunks(pipeline, write.getChunkIds()));
+                }
+                log.debug("语义缓存条目已{}, key: {}", duplicateKey != null ? "刷新" : "保存", cacheKeys[i]);
+            }
+            pipeline.sync();
+
+            int revoked = revokeInvalidated(pipeline, cacheKeys, invalidated);
+            written.add(batch.size() - revoked);
+        } catch (Exception e) {
+            failed.add(batch.size());
+            log.error("批量写入缓存失败, 条目数: {}", batch.size(), e);
+        }
+    }
+
+    /**
+     * 构建本批条目，单个条目构建失败不影响其他条目
+     */
+    private List<SemanticCacheWrite> prepare(List<Supplier<SemanticCacheWrite>> preparers) {
+        List<SemanticCacheWrite> batch = new ArrayList<>(preparers.size());
+        for (Supplier<SemanticCacheWrite> preparer : preparers) {
+            try {
+                SemanticCacheWrite write = preparer.get();
+                if (write != null) {
+                    batch.add(write);
+                }
+            } catch (Exception e) {
+                failed.increment();
+                log.error("构建缓存写入失败", e);
+            }
+        }
+        return batch;
+    }
+
+    /**
+     * 删除来源块已被删除的条目，这些块的失效可能发生在条目写入之前
+     *
+     * @return 删除的条目数
+     */
+    private int revokeInvalidated(Pipeline pipeline, String[] cacheKeys, List<Response<Long>> invalidated) {
+        int revoked = 0;
+        for (int i = 0; i < cacheKeys.length; i++) {
+            Response<Long> response = invalidated.get(i);
+            if (response != null && response.get() > 0) {
+                pipeline.del(cacheKeys[i]);
+                revoked++;
+            }
+        }
+        if (revoked > 0) {
+            pipeline.sync();
+            dropped.add(revoked);
+            log.debug("撤销引用已删除文档块的缓存写入 {} 条", revoked);
+        }
+        return revoked;
+    }
+
+    /**
+     * 索引中最近邻的相似度达到阈值时返回其key
+     */
+    private String findDuplicate(SemanticCacheWrite write, Response<SearchResult> response) {
+        try {
+            SearchResult result = response.get();
+            if (result == null || result.getDocuments().isEmpty()) {
+                return null;
+            }
+            Document nearest = result.getDocuments().get(0);
+            double similarity = 1 - Double.parseDouble(nearest.getString(DISTANCE_FIELD));
+            return similarity >= write.getSimilarityThreshold() ? nearest.getId() : null;
+        } catch (Exception e) {
+            log.warn("近似重复查询失败，按新条目写入: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 同批中排在前面、写入同一索引且近似重复的条目，后者刷新前者的key
+     */
+    private String findDuplicateInBatch(List<SemanticCacheWrite> batch, String[] cacheKeys, int index) {
+        SemanticCacheWrite write = batch.get(index);
+        for (int i = 0; i < index; i++) {
+            SemanticCacheWrite previous = batch.get(i);
+            if (Objects.equals(previous.getIndexName(), write.getIndexName())
+                    && cosineSimilarity(previous.getVector(), write.getVector()) >= write.getSimilarityThreshold()) {
+                return cacheKeys[i];
+            }
+        }
+        return null;
+    }
+
+    private Query nearestQuery(float[] vector) {
+        return new Query(String.format("*=>[KNN 1 @%s $vec AS %s]", VECTOR_FIELD, DISTANCE_FIELD))
+                .addParam("vec", floatArray2Bytes(vector))
+                .returnFields(DISTANCE_FIELD)
+                .setSortBy(DISTANCE_FIELD, true)
+                .dialect(2);
+    }
+}
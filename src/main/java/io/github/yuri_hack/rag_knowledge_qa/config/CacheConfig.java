@@ -18,10 +18,26 @@ public class CacheConfig {
     // 语义文档缓存配置
     private SemanticCache semantic = new SemanticCache();
 
+    // 向量缓存配置
+    private EmbeddingCache embedding = new EmbeddingCache();
+
+    // 问题归一化结果缓存配置
+    private NormalizationCache normalization = new NormalizationCache();
+
+    // 语义缓存压缩配置
+    private Compaction compaction = new Compaction();
+
+    // 语义缓存异步写入配置
+    private WriteBehind writeBehind = new WriteBehind();
+
     @Data
     public static class ExactCache {
         private long ttlMinutes = 60; // 默认1小时
         private boolean enabled = true;
+        private boolean localEnabled = true; // 是否启用进程内L1缓存
+        private long localMaxSize = 1000; // L1最大条目数
+        private long localTtlSeconds = 300; // L1过期时间，应小于Redis过期时间
+        private String invalidationChannel = "rag:exact:invalidate"; // L1跨节点失效广播频道
     }
 
     @Data
@@ -43,4 +59,38 @@ public class CacheConfig {
         private String indexName = "rag_document_semantic_idx";
         private String cachePrefix = "rag:document:semantic:";
     }
-}
\ No newline at end of file
+
+    @Data
+    public static class EmbeddingCache {
+        private boolean enabled = true;
+        private long localMaxSize = 10000; // 进程内最大条目数 (1024维约4KB/条)
+        private boolean redisEnabled = false; // 是否启用Redis二进制存储
+        private long ttlHours = 168; // Redis过期时间，默认7天
+        private String cachePrefix = "rag:embedding:";
+    }
+
+    @Data
+    public static class NormalizationCache {
+        private boolean enabled = true;
+        private long localMaxSize = 10000; // 进程内最大条目数
+        private boolean redisEnabled = true; // 是否在Redis中共享归一化结果
+        private long ttlHours = 168; // 过期时间，默认7天
+        private String cachePrefix = "rag:normalize:";
+    }
+
+    @Data
+    public static class Compaction {
+        private boolean enabled = true;
+        private long intervalMinutes = 10; // 压缩任务执行间隔
+        private int neighbors = 10; // 每个条目检查的近邻数量
+        private int maxEntriesPerRun = 5000; // 单次最多检查的条目数
+    }
+
+    @Data
+    public static class WriteBehind {
+        private boolean enabled = true;
+        private int queueCapacity = 1000; // 待写入条目上限，超出时丢弃
+        private int batchSize = 50; // 单次管道提交的最大条目数
+        private long deletedChunkTtlSeconds = 600; // 已删除文档块标记的保留时间，应长于写入的最长排队时间
+    }
+}
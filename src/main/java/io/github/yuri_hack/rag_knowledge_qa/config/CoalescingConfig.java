@@ -0,0 +1,31 @@
+package io.github.yuri_hack.rag_knowledge_qa.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 相同问题并发请求合并配置
+ * 节点内共享同一条生成流；开启集群合并后通过 Redis 租约让其它节点等待首个节点的答案
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "routing.coalescing")
+public class CoalescingConfig {
+
+    private boolean enabled = true;
+
+    // 是否跨节点合并
+    private boolean clusterEnabled = false;
+
+    // 租约时长，持有节点异常退出时最多等待该时长
+    private long leaseMs = 30000;
+
+    // 等待其它节点答案的轮询间隔
+    private long pollIntervalMs = 200;
+
+    // 答案发布后的保留时长，供仍在轮询的节点读取
+    private long resultTtlMs = 10000;
+
+    private String keyPrefix = "rag:singleflight:";
+}
@@ -0,0 +1,17 @@
+package io.github.yuri_hack.rag_knowledge_qa.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "rag.embedding")
+public class EmbeddingConfig {
+
+    // 单次embedding请求的文本数量 (text-embedding-v3 单次最多10条)
+    private int batchSize = 10;
+
+    // 批次间的最大并行度
+    private int parallelism = 4;
+}
@@ -0,0 +1,29 @@
+package io.github.yuri_hack.rag_knowledge_qa.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "rag.ingestion")
+public class IngestionConfig {
+
+    // 摄取工作线程数
+    private int workerThreads = 2;
+
+    // 等待处理的文档队列容量
+    private int queueCapacity = 32;
+
+    // 上传文件暂存目录，重启后据此恢复未完成的任务
+    private String storageDir = "data/ingestion";
+
+    // 分割保存和向量化写入的批大小，每批更新一次进度，也是单个文档在内存中保留的最大块数
+    private int progressWindow = 100;
+
+    // PDF解析时允许占用的最大堆内存，超出部分使用临时文件
+    private long pdfMainMemoryMb = 32;
+
+    // PDF每次提取的页数
+    private int pdfPagesPerRange = 20;
+}
@@ -0,0 +1,36 @@
+package io.github.yuri_hack.rag_knowledge_qa.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 本地意图分类配置
+ * 启动时向量化带标签的示例问题，请求时按 kNN 投票给出知识库相关性分数
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "routing.intent")
+public class IntentClassifierConfig {
+
+    // 关闭后意图识别全部走模型
+    private boolean enabled = true;
+
+    // 参与投票的近邻数
+    private int k = 7;
+
+    // 投票权重 exp(相似度/温度)，越小越偏向最近的示例
+    private double temperature = 0.05;
+
+    // 最近示例的相似度低于该值时视为无法判断，交由模型识别
+    private double minSimilarity = 0.3;
+
+    // 知识库相关的示例问题
+    private List<String> knowledgeExemplars = new ArrayList<>();
+
+    // 与知识库无关的示例问题
+    private List<String> chatExemplars = new ArrayList<>();
+}
@@ -2,6 +2,7 @@ package io.github.yuri_hack.rag_knowledge_qa.config;
 
 import io.milvus.client.MilvusServiceClient;
 import io.milvus.param.ConnectParam;
+import io.milvus.param.IndexType;
 import lombok.Data;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
@@ -30,6 +31,80 @@ public class MilvusConfig {
 
     @Value("${milvus.collection.recreate:false}")
     private boolean recreate;
+
+    // 索引类型: IVF_FLAT / IVF_SQ8 / IVF_PQ / HNSW / DISKANN
+    @Value("${milvus.index.type:IVF_FLAT}")
+    private IndexType indexType;
+
+    // IVF系列: 聚类中心数量
+    @Value("${milvus.index.nlist:1024}")
+    private Integer nlist;
+
+    // IVF_PQ: 子向量数量，需整除向量维度
+    @Value("${milvus.index.pq-m:16}")
+    private Integer pqM;
+
+    // IVF_PQ: 每个子向量的编码位数
+    @Value("${milvus.index.pq-nbits:8}")
+    private Integer pqNbits;
+
+    // HNSW: 每个节点的最大连接数
+    @Value("${milvus.index.hnsw-m:16}")
+    private Integer hnswM;
+
+    // HNSW: 构建时的候选集大小
+    @Value("${milvus.index.ef-construction:200}")
+    private Integer efConstruction;
+
+    // IVF系列: 搜索时探测的聚类数量
+    @Value("${milvus.search.nprobe:10}")
+    private Integer nprobe;
+
+    // HNSW: 搜索时的候选集大小
+    @Value("${milvus.search.ef:64}")
+    private Integer ef;
+
+    // DISKANN: 搜索时的候选列表大小
+    @Value("${milvus.search.search-list:100}")
+    private Integer searchList;
+
+    // 批量搜索时单次RPC的最大查询数
+    @Value("${milvus.search.batch-size:256}")
+    private Integer searchBatchSize;
+
+    // 按ID删除时单次表达式包含的最大ID数
+    @Value("${milvus.delete.batch-size:1000}")
+    private Integer deleteBatchSize;
+
+    /**
+     * 按索引类型生成建索引参数
+     */
+    public String buildIndexParams() {
+        return switch (indexType) {
+            case IVF_FLAT, IVF_SQ8 -> "{\"nlist\":%d}".formatted(nlist);
+            case IVF_PQ -> "{\"nlist\":%d,\"m\":%d,\"nbits\":%d}".formatted(nlist, pqM, pqNbits);
+            case HNSW -> "{\"M\":%d,\"efConstruction\":%d}".formatted(hnswM, efConstruction);
+            case DISKANN -> "{}";
+            default -> throw new IllegalStateException("不支持的索引类型: " + indexType);
+        };
+    }
+
+    /**
+     * 按索引类型生成搜索参数
+     *
+     * @param searchEffort 搜索力度，覆盖对应索引的主要调优参数 (nprobe / ef / search_list)，为空时使用配置值
+     * @param topK         返回数量，HNSW 和 DISKANN 的候选集不能小于 topK
+     */
+    public String buildSearchParams(Integer searchEffort, int topK) {
+        return switch (indexType) {
+            case IVF_FLAT, IVF_SQ8, IVF_PQ ->
+                    "{\"nprobe\":%d}".formatted(Math.min(nlist, searchEffort != null ? searchEffort : nprobe));
+            case HNSW -> "{\"ef\":%d}".formatted(Math.max(topK, searchEffort != null ? searchEffort : ef));
+            case DISKANN ->
+                    "{\"search_list\":%d}".formatted(Math.max(topK, searchEffort != null ? searchEffort : searchList));
+            default -> throw new IllegalStateException("不支持的索引类型: " + indexType);
+        };
+    }
     
     @Bean
     public MilvusServiceClient milvusServiceClient() {
@@ -0,0 +1,31 @@
+package io.github.yuri_hack.rag_knowledge_qa.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 问题归一化配置
+ * 本地规则先做全角半角折叠、繁简转换、停用短语删除和同义词替换，
+ * 规则结果已是已知标准形式时不再调用模型
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "rag.normalize")
+public class NormalizeConfig {
+
+    // 关闭后只做基础归一化，词典不参与
+    private boolean ruleEnabled = true;
+
+    // 繁简对照表
+    private String traditionalToSimplifiedPath = "classpath:normalize/t2s.txt";
+
+    // 同义词表
+    private String synonymsPath = "classpath:normalize/synonyms.txt";
+
+    // 停用短语表
+    private String stopPhrasesPath = "classpath:normalize/stop-phrases.txt";
+
+    // 受保护词表，替换和语气词删除不会切开这些词
+    private String protectedWordsPath = "classpath:normalize/protected-words.txt";
+}
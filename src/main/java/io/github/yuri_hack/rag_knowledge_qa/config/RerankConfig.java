@@ -0,0 +1,108 @@
+package io.github.yuri_hack.rag_knowledge_qa.config;
+
+import lombok.Data;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.web.client.RestTemplate;
+
+/**
+ * 重排序配置
+ * 远程重排序使用连接池复用长连接，并缓存 (查询, 文档块) 的重排序分数
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "rag.rerank")
+public class RerankConfig {
+
+    // 重排序实现: aliyun (远程OpenSearch) / local (本地ONNX交叉编码器)
+    private String provider = "aliyun";
+
+    // 重排序服务地址
+    private String apiUrl = "http://default-05lk.platform-cn-shanghai.opensearch.aliyuncs.com/v3/openapi/workspaces/default/ranker/ops-bge-reranker-larger";
+
+    // 单次重排序的最大文档数
+    private int maxDocuments = 50;
+
+    // 建立连接超时
+    private long connectTimeoutMs = 1000;
+
+    // 读取响应超时
+    private long readTimeoutMs = 3000;
+
+    // 连接池最大连接数
+    private int maxConnections = 20;
+
+    // 重排序分数缓存配置
+    private ScoreCache cache = new ScoreCache();
+
+    // 本地交叉编码器配置
+    private Local local = new Local();
+
+    // 级联排序配置
+    private Cascade cascade = new Cascade();
+
+    @Data
+    public static class ScoreCache {
+        private boolean enabled = true;
+        private long maxSize = 20000; // 最大缓存 (查询, 文档块) 对数
+        private long ttlMinutes = 60;
+    }
+
+    @Data
+    public static class Local {
+        private String modelPath = "models/reranker/model.onnx"; // ONNX模型文件
+        private String vocabPath = "models/reranker/vocab.txt"; // BERT WordPiece词表，须包含 [CLS]/[SEP]/[PAD]/[UNK]
+        private boolean lowerCase = true; // 与模型分词器的 do_lower_case 一致
+        private int maxSequenceLength = 512; // 查询+文档的最大token数
+        private int batchSize = 16; // 单次推理的文档数
+        private int threads = 2; // 并行推理的批次数
+        private int intraOpThreads = 1; // 单次推理内部线程数
+        private int queueCapacity = 64; // 等待推理的批次上限，队列满时回退到向量相似度
+        private long timeoutMs = 3000; // 单次重排序总超时，超时取消未完成的批次
+    }
+
+    @Data
+    public static class Cascade {
+        private boolean enabled = true;
+        private int firstStageTopN = 20; // 初筛后送入重排序的候选数
+        private double vectorWeight = 0.7; // 初筛分数中向量相似度的权重，其余为词面重合度
+        private double scoreGap = 0.15; // 前两名向量相似度差距达到该值时跳过重排序，<=0 不跳过
+    }
+
+    @Bean(destroyMethod = "close")
+    public CloseableHttpClient rerankHttpClient() {
+        PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(maxConnections)
+                .setMaxConnPerRoute(maxConnections)
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.ofMilliseconds(connectTimeoutMs))
+                        .setSocketTimeout(Timeout.ofMilliseconds(readTimeoutMs))
+                        .build())
+                .build();
+
+        return HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        // 连接池耗尽时等待空闲连接的时间
+                        .setConnectionRequestTimeout(Timeout.ofMilliseconds(connectTimeoutMs))
+                        .setResponseTimeout(Timeout.ofMilliseconds(readTimeoutMs))
+                        .build())
+                .evictIdleConnections(TimeValue.ofSeconds(30))
+                .build();
+    }
+
+    @Bean
+    public RestTemplate rerankRestTemplate(CloseableHttpClient rerankHttpClient) {
+        return new RestTemplate(new HttpComponentsClientHttpRequestFactory(rerankHttpClient));
+    }
+}
@@ -0,0 +1,38 @@
+package io.github.yuri_hack.rag_knowledge_qa.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * 路由探测配置
+ * 语义答案缓存、知识相似度、意图识别三个探测在独立的有界调度器上并发执行
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "routing.probe")
+public class RoutingProbeConfig {
+
+    // 探测调度器最大线程数
+    private int threadCap = 32;
+
+    // 探测调度器最大排队任务数
+    private int queuedTaskCap = 1000;
+
+    // 语义答案缓存探测超时
+    private long answerCacheTimeoutMs = 2000;
+
+    // 知识相似度探测超时
+    private long similarityTimeoutMs = 2000;
+
+    // 意图识别探测超时
+    private long intentTimeoutMs = 3000;
+
+    @Bean(destroyMethod = "dispose")
+    public Scheduler probeScheduler() {
+        return Schedulers.newBoundedElastic(threadCap, queuedTaskCap, "chat-probe");
+    }
+}
@@ -14,4 +14,19 @@ public class TongYiBaseConfig {
     private TongYiModelConfig intentModelConfig;
     private TongYiModelConfig normalizeModelConfig;
     private TongYiModelConfig adaptiveModelConfig;
-}
\ No newline at end of file
+    private Client client = new Client();
+
+    /**
+     * 所有模型调用共享的 HTTP 客户端配置
+     */
+    @Data
+    public static class Client {
+        private long connectTimeoutMs = 3000;
+        private long readTimeoutMs = 60000;
+        private long writeTimeoutMs = 10000;
+        private int connectionPoolSize = 64; // 保持的空闲长连接数
+        private long connectionIdleTimeoutSeconds = 300;
+        private int maxAsyncRequests = 512; // 同时进行中的异步请求上限
+        private int maxAsyncRequestsPerHost = 512;
+    }
+}
@@ -9,4 +9,7 @@ public class TongYiModelConfig {
     private Float temperature;
     private Double topP;
     private Boolean enableSearch;
-}
\ No newline at end of file
+    private Integer maxConcurrency = 32; // 该配置同时进行中的调用上限，超出时立即拒绝
+    private Long timeoutMs = 30000L; // 非流式调用的截止时间；流式调用为相邻两段输出的最大间隔
+    private Integer contextTokenBudget = 3000; // 检索上下文的预算，单位同 rag.chunk.length-unit，为空时不限制
+}
@@ -0,0 +1,97 @@
+package io.github.yuri_hack.rag_knowledge_qa.context;
+
+import io.github.yuri_hack.rag_knowledge_qa.embed.EmbeddingService;
+import io.github.yuri_hack.rag_knowledge_qa.service.NormalizeService;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 单次问答请求的查询上下文
+ * 归一化问题和向量均在首次使用时计算并复用，同一文本在一次请求内最多向量化一次
+ */
+public class QueryContext {
+
+    private final String question;
+    private final EmbeddingService embeddingService;
+    private final NormalizeService normalizeService;
+
+    private final Map<String, CompletableFuture<float[]>> embeddings = new ConcurrentHashMap<>();
+    private volatile String normalizedQuestion;
+
+    QueryContext(String question, EmbeddingService embeddingService, NormalizeService normalizeService) {
+        this.question = question;
+        this.embeddingService = embeddingService;
+        this.normalizeService = normalizeService;
+    }
+
+    /**
+     * 原始问题
+     */
+    public String getQuestion() {
+        return question;
+    }
+
+    /**
+     * 归一化后的问题
+     */
+    public String getNormalizedQuestion() {
+        String normalized = normalizedQuestion;
+        if (normalized == null) {
+            synchronized (this) {
+                normalized = normalizedQuestion;
+                if (normalized == null) {
+                    normalized = normalizeService.normalizeQuestion(question);
+                    normalizedQuestion = normalized;
+                }
+            }
+        }
+        return normalized;
+    }
+
+    /**
+     * 原始问题的向量，用于知识检索
+     */
+    public float[] getQueryEmbedding() {
+        return embed(question);
+    }
+
+    /**
+     * 归一化问题的向量，用于语义缓存
+     */
+    public float[] getNormalizedEmbedding() {
+        return embed(getNormalizedQuestion());
+    }
+
+    /**
+     * 以 Future 占位去重：远程向量化在 Map 之外执行，不占用 ConcurrentHashMap 的桶锁，
+     * 其他线程对同一文本等待同一个 Future；失败时移除占位以便后续重试
+     */
+    private float[] embed(String text) {
+        CompletableFuture<float[]> future = embeddings.get(text);
+        if (future == null) {
+            CompletableFuture<float[]> created = new CompletableFuture<>();
+            future = embeddings.putIfAbsent(text, created);
+            if (future == null) {
+                future = created;
+                try {
+                    created.complete(embeddingService.getEmbedding(text));
+                } catch (RuntimeException e) {
+                    embeddings.remove(text, created);
+                    created.completeExceptionally(e);
+                    throw e;
+                }
+            }
+        }
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
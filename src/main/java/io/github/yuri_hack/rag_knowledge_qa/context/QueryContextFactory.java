@@ -0,0 +1,21 @@
+package io.github.yuri_hack.rag_knowledge_qa.context;
+
+import io.github.yuri_hack.rag_knowledge_qa.embed.EmbeddingService;
+import io.github.yuri_hack.rag_knowledge_qa.service.NormalizeService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+/**
+ * 查询上下文工厂
+ */
+@Component
+@RequiredArgsConstructor
+public class QueryContextFactory {
+
+    private final EmbeddingService embeddingService;
+    private final NormalizeService normalizeService;
+
+    public QueryContext create(String question) {
+        return new QueryContext(question, embeddingService, normalizeService);
+    }
+}
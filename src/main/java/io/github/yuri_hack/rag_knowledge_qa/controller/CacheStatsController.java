@@ -0,0 +1,38 @@
+package io.github.yuri_hack.rag_knowledge_qa.controller;
+
+import io.github.yuri_hack.rag_knowledge_qa.cache.CacheService;
+import io.github.yuri_hack.rag_knowledge_qa.cache.model.CacheTierStats;
+import io.github.yuri_hack.rag_knowledge_qa.cache.model.CacheWriteStats;
+import io.github.yuri_hack.rag_knowledge_qa.cache.write.CacheWriteBehindQueue;
+import io.github.yuri_hack.rag_knowledge_qa.dto.response.ApiResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/api/cache")
+public class CacheStatsController {
+
+    private final CacheService cacheService;
+    private final CacheWriteBehindQueue writeBehindQueue;
+
+    /**
+     * 精确缓存各层命中统计
+     */
+    @GetMapping("/stats")
+    public ApiResponse<List<CacheTierStats>> stats() {
+        return ApiResponse.success("查询成功", cacheService.getStats());
+    }
+
+    /**
+     * 语义缓存异步写入队列统计
+     */
+    @GetMapping("/write-stats")
+    public ApiResponse<CacheWriteStats> writeStats() {
+        return ApiResponse.success("查询成功", writeBehindQueue.getStats());
+    }
+}
@@ -3,12 +3,15 @@ package io.github.yuri_hack.rag_knowledge_qa.controller;
 import io.github.yuri_hack.rag_knowledge_qa.dto.internal.KnowledgeSearchResult;
 import io.github.yuri_hack.rag_knowledge_qa.dto.request.SearchRequest;
 import io.github.yuri_hack.rag_knowledge_qa.dto.response.ApiResponse;
+import io.github.yuri_hack.rag_knowledge_qa.dto.response.DocumentProgressResponse;
 import io.github.yuri_hack.rag_knowledge_qa.dto.request.FileUploadRequest;
 import io.github.yuri_hack.rag_knowledge_qa.knowledge.KnowledgeBaseService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.ModelAttribute;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
@@ -27,7 +30,27 @@ public class KnowledgeBaseController {
     public ApiResponse<String> uploadFile(@ModelAttribute FileUploadRequest request) {
         try {
             String documentId = knowledgeBaseService.uploadAndProcessFile(request);
-            return ApiResponse.success("文件上传处理成功", documentId);
+            return ApiResponse.success("文件已提交处理", documentId);
+        } catch (Exception e) {
+            return ApiResponse.error(e.getMessage());
+        }
+    }
+
+    @GetMapping("/documents/{documentId}/status")
+    public ApiResponse<DocumentProgressResponse> getDocumentStatus(@PathVariable String documentId) {
+        try {
+            DocumentProgressResponse progress = knowledgeBaseService.getDocumentProgress(documentId);
+            return ApiResponse.success(progress.getStatus().name(), progress);
+        } catch (Exception e) {
+            return ApiResponse.error(e.getMessage());
+        }
+    }
+
+    @DeleteMapping("/documents/{documentId}")
+    public ApiResponse<String> deleteDocument(@PathVariable String documentId) {
+        try {
+            knowledgeBaseService.deleteDocument(documentId);
+            return ApiResponse.success("文档已删除", documentId);
         } catch (Exception e) {
             return ApiResponse.error(e.getMessage());
         }
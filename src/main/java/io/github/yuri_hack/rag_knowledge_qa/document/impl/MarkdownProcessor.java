@@ -5,10 +5,11 @@ import io.github.yuri_hack.rag_knowledge_qa.exception.FileProcessingException;
 import io.github.yuri_hack.rag_knowledge_qa.document.FileProcessor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
-import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
@@ -21,9 +22,9 @@ import java.util.Set;
 public class MarkdownProcessor implements FileProcessor {
     
     @Override
-    public ProcessResult process(MultipartFile file) throws FileProcessingException {
+    public ProcessResult process(Path file) throws FileProcessingException {
         try {
-            String content = new String(file.getBytes(), StandardCharsets.UTF_8);
+            String content = Files.readString(file, StandardCharsets.UTF_8);
             
             Map<String, Object> metadata = new HashMap<>();
             metadata.put("charCount", content.length());
@@ -31,7 +32,7 @@ public class MarkdownProcessor implements FileProcessor {
             
             return new ProcessResult(content, metadata);
         } catch (IOException e) {
-            log.error("Markdown文件处理失败: {}", file.getOriginalFilename(), e);
+            log.error("Markdown文件处理失败: {}", file.getFileName(), e);
             throw new FileProcessingException("Markdown文件处理失败", e);
         }
     }
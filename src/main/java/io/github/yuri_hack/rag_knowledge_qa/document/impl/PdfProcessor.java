@@ -1,42 +1,83 @@
 package io.github.yuri_hack.rag_knowledge_qa.document.impl;
 
+import io.github.yuri_hack.rag_knowledge_qa.config.IngestionConfig;
 import io.github.yuri_hack.rag_knowledge_qa.dto.internal.ProcessResult;
 import io.github.yuri_hack.rag_knowledge_qa.exception.FileProcessingException;
 import io.github.yuri_hack.rag_knowledge_qa.document.FileProcessor;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.pdfbox.io.MemoryUsageSetting;
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.text.PDFTextStripper;
 import org.springframework.stereotype.Component;
-import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
 
 /**
  * pdf文档处理器
+ * 使用混合内存模式加载文档 (超出阈值的部分落盘)，按页范围逐段提取文本写入暂存文件，
+ * 单次上传占用的堆内存与文档大小无关
  */
 @Slf4j
 @Component
+@RequiredArgsConstructor
 public class PdfProcessor implements FileProcessor {
-    
+
+    private final IngestionConfig ingestionConfig;
+
     @Override
-    public ProcessResult process(MultipartFile file) throws FileProcessingException {
-        try (PDDocument document = PDDocument.load(file.getInputStream())) {
+    public ProcessResult process(Path file) throws FileProcessingException {
+        Path textFile = null;
+        long maxMainMemory = ingestionConfig.getPdfMainMemoryMb() * 1024L * 1024L;
+        try (PDDocument document = PDDocument.load(file.toFile(), MemoryUsageSetting.setupMixed(maxMainMemory))) {
+            Path dir = Paths.get(ingestionConfig.getStorageDir()).toAbsolutePath();
+            Files.createDirectories(dir);
+            textFile = Files.createTempFile(dir, "pdf-text-", ".txt");
+
+            int pageCount = document.getNumberOfPages();
+            int pagesPerRange = Math.max(1, ingestionConfig.getPdfPagesPerRange());
             PDFTextStripper stripper = new PDFTextStripper();
-            String content = stripper.getText(document);
-            
+
+            try (Writer writer = Files.newBufferedWriter(textFile, StandardCharsets.UTF_8)) {
+                for (int startPage = 1; startPage <= pageCount; startPage += pagesPerRange) {
+                    int endPage = Math.min(pageCount, startPage + pagesPerRange - 1);
+                    stripper.setStartPage(startPage);
+                    stripper.setEndPage(endPage);
+                    stripper.writeText(document, writer);
+                    log.debug("PDF {} 已提取第 {}-{} 页, 共 {} 页", file.getFileName(), startPage, endPage, pageCount);
+                }
+            }
+
             Map<String, Object> metadata = new HashMap<>();
-            metadata.put("pageCount", document.getNumberOfPages());
-            metadata.put("charCount", content.length());
-            
-            return new ProcessResult(content, metadata);
+            metadata.put("pageCount", pageCount);
+            metadata.put("textBytes", Files.size(textFile));
+
+            return ProcessResult.ofFile(textFile, metadata);
         } catch (IOException e) {
-            log.error("PDF文件处理失败: {}", file.getOriginalFilename(), e);
+            deleteQuietly(textFile);
+            log.error("PDF文件处理失败: {}", file.getFileName(), e);
             throw new FileProcessingException("PDF文件处理失败", e);
         }
     }
+
+    private void deleteQuietly(Path path) {
+        if (path == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("删除PDF文本暂存文件失败: {}", path, e);
+        }
+    }
     
     @Override
     public Set<String> getSupportedFileTypes() {
@@ -47,4 +88,4 @@ public class PdfProcessor implements FileProcessor {
     public String getProcessorName() {
         return "PdfProcessor";
     }
-}
\ No newline at end of file
+}
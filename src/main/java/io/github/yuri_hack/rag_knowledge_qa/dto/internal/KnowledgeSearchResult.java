@@ -10,8 +10,9 @@ public class KnowledgeSearchResult {
     private Integer chunkIndex;     // 块索引
     private Double similarity;      // 相似度
     private String documentId;      // 文档ID
-    private Double rerankScore;     // rerank分数
+    private Double rerankScore;     // rerank分数，未经重排序时为空
     private Long chunkId;           // 块id
+    private String headingPath;     // 标题路径
 
     public static KnowledgeSearchResult from(VectorSearchResult vectorResult,
                                                         DocumentChunk documentChunk) {
@@ -19,6 +20,7 @@ public class KnowledgeSearchResult {
         result.setContent(documentChunk.getContent());
         result.setFileName(documentChunk.getFileName());
         result.setChunkIndex(documentChunk.getChunkIndex());
+        result.setHeadingPath(documentChunk.getHeadingPath());
         result.setSimilarity(vectorResult.getSimilarity());
         result.setDocumentId(vectorResult.getDocumentId());
         result.setChunkId(vectorResult.getChunkId());
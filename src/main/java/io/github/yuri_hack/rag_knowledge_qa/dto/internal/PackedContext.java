@@ -0,0 +1,14 @@
+package io.github.yuri_hack.rag_knowledge_qa.dto.internal;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class PackedContext {
+    private String content;         // 拼接后的上下文
+    private List<Long> chunkIds;    // 实际放入上下文的块id
+    private int tokens;             // 估算token数
+}
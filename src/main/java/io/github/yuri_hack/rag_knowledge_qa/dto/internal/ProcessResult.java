@@ -3,11 +3,49 @@ package io.github.yuri_hack.rag_knowledge_qa.dto.internal;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Map;
 
+/**
+ * 文件处理结果
+ * 小文件的文本直接保存在 content 中；大文件的文本写入 contentFile，
+ * 通过 openReader 流式读取，使用完毕后 close 删除暂存文件
+ */
 @Data
 @AllArgsConstructor
-public class ProcessResult {
+public class ProcessResult implements Closeable {
     private String content;
+    private Path contentFile;
     private Map<String, Object> metadata;
+
+    public ProcessResult(String content, Map<String, Object> metadata) {
+        this(content, null, metadata);
+    }
+
+    public static ProcessResult ofFile(Path contentFile, Map<String, Object> metadata) {
+        return new ProcessResult(null, contentFile, metadata);
+    }
+
+    /**
+     * 打开文本内容的读取流
+     */
+    public Reader openReader() throws IOException {
+        if (contentFile != null) {
+            return Files.newBufferedReader(contentFile, StandardCharsets.UTF_8);
+        }
+        return new StringReader(content != null ? content : "");
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (contentFile != null) {
+            Files.deleteIfExists(contentFile);
+        }
+    }
 }
@@ -6,6 +6,9 @@ import org.springframework.web.multipart.MultipartFile;
 @Data
 public class FileUploadRequest {
 
+    // 指定时作为该文档的新版本上传，为空时创建新文档
+    private String documentId;
+
     private String fileName;
     
     private String description;
@@ -10,6 +10,9 @@ public class SearchRequest {
 
     private Double topRatio = 0.5;
 
+    // 搜索力度，覆盖索引的搜索参数 (IVF: nprobe, HNSW: ef, DISKANN: search_list)，为空时使用配置值
+    private Integer searchEffort;
+
     public static SearchRequest of(String query) {
         SearchRequest searchRequest = new SearchRequest();
         searchRequest.query = query;
@@ -0,0 +1,41 @@
+package io.github.yuri_hack.rag_knowledge_qa.dto.response;
+
+import io.github.yuri_hack.rag_knowledge_qa.entity.UploadedDocument;
+import io.github.yuri_hack.rag_knowledge_qa.enums.DocumentStatus;
+import io.github.yuri_hack.rag_knowledge_qa.enums.IngestionStage;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DocumentProgressResponse {
+    private String documentId;
+    private String fileName;
+    private Integer version;
+    private DocumentStatus status;
+    private IngestionStage stage;
+    private Integer totalChunks;
+    private Integer processedChunks;
+    private String errorMessage;
+    private LocalDateTime updateTime;
+
+    public static DocumentProgressResponse from(UploadedDocument document) {
+        return DocumentProgressResponse.builder()
+                .documentId(document.getDocumentId())
+                .fileName(document.getFileName())
+                .version(document.getVersion())
+                .status(document.getStatus())
+                .stage(document.getStage())
+                .totalChunks(document.getTotalChunks())
+                .processedChunks(document.getProcessedChunks())
+                .errorMessage(document.getErrorMessage())
+                .updateTime(document.getUpdateTime())
+                .build();
+    }
+}
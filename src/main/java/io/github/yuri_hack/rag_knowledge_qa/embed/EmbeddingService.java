@@ -2,14 +2,21 @@ package io.github.yuri_hack.rag_knowledge_qa.embed;
 
 import io.github.yuri_hack.rag_knowledge_qa.exception.VectorException;
 
+import java.util.List;
+
 public interface EmbeddingService {
     /**
      * 将文本转换为向量
      */
     float[] getEmbedding(String text) throws VectorException;
 
+    /**
+     * 批量将文本转换为向量，返回结果与输入顺序一一对应
+     */
+    List<float[]> getEmbeddings(List<String> texts) throws VectorException;
+
     /**
      * 计算向量相似度
      */
     double calculateSimilarity(float[] vector1, float[] vector2);
-}
\ No newline at end of file
+}
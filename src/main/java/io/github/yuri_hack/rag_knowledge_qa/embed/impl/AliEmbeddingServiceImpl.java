@@ -1,14 +1,31 @@
 package io.github.yuri_hack.rag_knowledge_qa.embed.impl;
 
+import io.github.yuri_hack.rag_knowledge_qa.cache.EmbeddingCacheService;
+import io.github.yuri_hack.rag_knowledge_qa.config.EmbeddingConfig;
 import io.github.yuri_hack.rag_knowledge_qa.exception.VectorException;
 import io.github.yuri_hack.rag_knowledge_qa.embed.EmbeddingService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.ai.embedding.EmbeddingModel;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.util.Assert;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
 /**
  * 基于阿里云Embedding模型的向量服务实现
  */
@@ -23,9 +40,25 @@ public class AliEmbeddingServiceImpl implements EmbeddingService {
     private static final double EPS = 1e-12;
 
     private final EmbeddingModel embeddingModel;
+    private final EmbeddingConfig embeddingConfig;
+    private final EmbeddingCacheService embeddingCacheService;
+
+    // 批量向量化线程池，限制批次间的并行度
+    private ExecutorService batchExecutor;
+
+    @PostConstruct
+    public void init() {
+        batchExecutor = Executors.newFixedThreadPool(Math.max(1, embeddingConfig.getParallelism()),
+                new CustomizableThreadFactory("embedding-batch-"));
+    }
+
+    @PreDestroy
+    public void destroy() {
+        batchExecutor.shutdown();
+    }
 
     /**
-     * 获取单段文本的向量
+     * 获取单段文本的向量，优先从向量缓存读取
      *
      * @param text 输入文本
      * @return 向量数组
@@ -35,14 +68,97 @@ public class AliEmbeddingServiceImpl implements EmbeddingService {
     public float[] getEmbedding(String text) throws VectorException {
         try {
             Assert.hasText(text, "Text cannot be null or empty");
+            Optional<float[]> cached = embeddingCacheService.get(text);
+            if (cached.isPresent()) {
+                return cached.get();
+            }
+
             float[] embed = embeddingModel.embed(text);
-            return normalize ? normalize(embed) : embed;
+            float[] result = normalize ? normalize(embed) : embed;
+            embeddingCacheService.put(text, result);
+            return result;
         } catch (Exception e) {
             log.error("Failed to generate embedding for text: {}", text, e);
             throw new VectorException("Embedding generation failed: " + e.getMessage(), e);
         }
     }
 
+    /**
+     * 批量获取文本向量
+     * 先查询向量缓存，仅对未命中的去重文本调用API；
+     * 未命中部分按batchSize切分为多个批次，每个批次一次API调用，批次间在线程池内并行执行
+     *
+     * @param texts 输入文本列表
+     * @return 向量列表，与输入顺序一一对应
+     * @throws VectorException 任一批次向量化失败时抛出
+     */
+    @Override
+    public List<float[]> getEmbeddings(List<String> texts) throws VectorException {
+        if (texts == null || texts.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        Map<String, float[]> resolved = new LinkedHashMap<>(embeddingCacheService.getAll(new LinkedHashSet<>(texts)));
+        List<String> misses = texts.stream()
+                .distinct()
+                .filter(text -> !resolved.containsKey(text))
+                .toList();
+
+        int batchSize = Math.max(1, embeddingConfig.getBatchSize());
+        List<CompletableFuture<List<float[]>>> futures = new ArrayList<>();
+        for (int start = 0; start < misses.size(); start += batchSize) {
+            List<String> batch = misses.subList(start, Math.min(misses.size(), start + batchSize));
+            futures.add(CompletableFuture.supplyAsync(() -> embedBatch(batch), batchExecutor));
+        }
+
+        try {
+            Map<String, float[]> computed = new LinkedHashMap<>();
+            for (int i = 0; i < futures.size(); i++) {
+                List<float[]> batchEmbeddings = futures.get(i).join();
+                int offset = i * batchSize;
+                for (int j = 0; j < batchEmbeddings.size(); j++) {
+                    computed.put(misses.get(offset + j), batchEmbeddings.get(j));
+                }
+            }
+            embeddingCacheService.putAll(computed);
+            resolved.putAll(computed);
+
+            List<float[]> embeddings = new ArrayList<>(texts.size());
+            for (String text : texts) {
+                embeddings.add(resolved.get(text));
+            }
+            log.debug("批量向量化完成, 文本数: {}, 缓存命中: {}, 批次数: {}",
+                    texts.size(), texts.size() - misses.size(), futures.size());
+            return embeddings;
+        } catch (CompletionException e) {
+            futures.forEach(future -> future.cancel(true));
+            if (e.getCause() instanceof VectorException vectorException) {
+                throw vectorException;
+            }
+            throw new VectorException("Batch embedding generation failed: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 单个批次的向量化
+     */
+    private List<float[]> embedBatch(List<String> batch) {
+        try {
+            batch.forEach(text -> Assert.hasText(text, "Text cannot be null or empty"));
+            List<float[]> embeds = embeddingModel.embed(batch);
+            Assert.isTrue(embeds.size() == batch.size(), "Embedding count does not match input size");
+
+            List<float[]> results = new ArrayList<>(embeds.size());
+            for (float[] embed : embeds) {
+                results.add(normalize ? normalize(embed) : embed);
+            }
+            return results;
+        } catch (Exception e) {
+            log.error("Failed to generate embeddings for batch, size: {}", batch.size(), e);
+            throw new VectorException("Batch embedding generation failed: " + e.getMessage(), e);
+        }
+    }
+
     /**
      * 归一化
      */
@@ -34,6 +34,21 @@ public class DocumentChunk {
     @Column(name = "content", columnDefinition = "TEXT")
     private String content;
 
+    @Column(name = "heading_path", length = 512)
+    private String headingPath;
+
+    // 内容SHA-256，重新上传时据此复用未变化块的向量
+    @Column(name = "content_hash", length = 64)
+    private String contentHash;
+
+    // 生成或最近复用该块的文档版本，新版本存储完成后删除旧版本的块
+    @Column(name = "document_version")
+    private Integer documentVersion;
+
+    // 向量是否已写入Milvus
+    @Column(name = "indexed")
+    private Boolean indexed;
+
     @Column(name = "create_time")
     private LocalDateTime createTime;
 }
@@ -1,6 +1,7 @@
 package io.github.yuri_hack.rag_knowledge_qa.entity;
 
 import io.github.yuri_hack.rag_knowledge_qa.enums.DocumentStatus;
+import io.github.yuri_hack.rag_knowledge_qa.enums.IngestionStage;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.EnumType;
@@ -38,6 +39,10 @@ public class UploadedDocument {
     @Column(name = "file_size")
     private Long fileSize;
 
+    // 指定 documentId 重新上传时递增
+    @Column(name = "version")
+    private Integer version;
+
     @Column(name = "description", columnDefinition = "TEXT")
     private String description;
 
@@ -45,9 +50,22 @@ public class UploadedDocument {
     @Column(name = "status")
     private DocumentStatus status;
 
+    @Enumerated(EnumType.STRING)
+    @Column(name = "stage")
+    private IngestionStage stage;
+
     @Column(name = "total_chunks")
     private Integer totalChunks;
 
+    @Column(name = "processed_chunks")
+    private Integer processedChunks;
+
+    @Column(name = "storage_path")
+    private String storagePath;
+
+    @Column(name = "error_message", columnDefinition = "TEXT")
+    private String errorMessage;
+
     @Column(name = "create_user")
     private String createUser;
 
@@ -0,0 +1,11 @@
+package io.github.yuri_hack.rag_knowledge_qa.enums;
+
+// 文档摄取阶段枚举，按处理顺序排列
+public enum IngestionStage {
+    QUEUED,
+    PARSING,
+    SPLITTING,
+    EMBEDDING,
+    STORING,
+    DONE
+}
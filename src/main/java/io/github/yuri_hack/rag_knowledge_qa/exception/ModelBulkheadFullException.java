@@ -0,0 +1,7 @@
+package io.github.yuri_hack.rag_knowledge_qa.exception;
+
+public class ModelBulkheadFullException extends RuntimeException {
+    public ModelBulkheadFullException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,145 @@
+package io.github.yuri_hack.rag_knowledge_qa.intent;
+
+import io.github.yuri_hack.rag_knowledge_qa.config.IntentClassifierConfig;
+import io.github.yuri_hack.rag_knowledge_qa.embed.EmbeddingService;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 本地意图分类
+ * 示例问题在启动时向量化一次，归一化后按行存入连续的 float 矩阵；
+ * 请求时与全部示例做点积取 top-k 近邻，按 exp(相似度/温度) 加权投票得到 [0-1] 的知识库相关性分数
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class LocalIntentClassifier {
+
+    private final EmbeddingService embeddingService;
+    private final IntentClassifierConfig intentClassifierConfig;
+
+    // 行优先的示例向量矩阵，每行已归一化
+    private float[] matrix;
+    // 每行示例是否与知识库相关
+    private boolean[] labels;
+    private int dimension;
+    private volatile boolean ready;
+
+    @PostConstruct
+    public void init() {
+        if (!intentClassifierConfig.isEnabled()) {
+            log.info("本地意图分类未启用，意图识别将全部调用模型");
+            return;
+        }
+
+        List<String> knowledge = intentClassifierConfig.getKnowledgeExemplars();
+        List<String> chat = intentClassifierConfig.getChatExemplars();
+        if (knowledge.isEmpty() || chat.isEmpty()) {
+            log.warn("本地意图分类缺少示例问题，意图识别将全部调用模型");
+            return;
+        }
+
+        List<String> exemplars = new ArrayList<>(knowledge);
+        exemplars.addAll(chat);
+        try {
+            List<float[]> embeddings = embeddingService.getEmbeddings(exemplars);
+            dimension = embeddings.get(0).length;
+            matrix = new float[exemplars.size() * dimension];
+            labels = new boolean[exemplars.size()];
+            for (int row = 0; row < embeddings.size(); row++) {
+                float[] unit = unitVector(embeddings.get(row));
+                System.arraycopy(unit, 0, matrix, row * dimension, dimension);
+                labels[row] = row < knowledge.size();
+            }
+            ready = true;
+            log.info("本地意图分类已加载, 知识库示例: {}, 闲聊示例: {}, 维度: {}", knowledge.size(), chat.size(), dimension);
+        } catch (Exception e) {
+            // 不影响启动，意图识别降级为模型调用
+            log.warn("本地意图分类示例向量化失败，意图识别将全部调用模型: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 示例已加载时可用
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * 计算知识库相关性分数
+     *
+     * @param queryEmbedding 问题向量
+     * @return [0-1] 分数越大和企业知识相关越高；最近示例相似度过低时返回 null 表示无法判断
+     */
+    public Double score(float[] queryEmbedding) {
+        if (!ready || queryEmbedding.length != dimension) {
+            return null;
+        }
+
+        float[] query = unitVector(queryEmbedding);
+        int rows = labels.length;
+        int k = Math.max(1, Math.min(intentClassifierConfig.getK(), rows));
+
+        // 维护按相似度降序的 top-k
+        double[] topScores = new double[k];
+        int[] topRows = new int[k];
+        int filled = 0;
+        for (int row = 0; row < rows; row++) {
+            double similarity = dot(query, row * dimension);
+            if (filled < k || similarity > topScores[filled - 1]) {
+                int position = filled < k ? filled++ : k - 1;
+                while (position > 0 && topScores[position - 1] < similarity) {
+                    topScores[position] = topScores[position - 1];
+                    topRows[position] = topRows[position - 1];
+                    position--;
+                }
+                topScores[position] = similarity;
+                topRows[position] = row;
+            }
+        }
+
+        if (topScores[0] < intentClassifierConfig.getMinSimilarity()) {
+            return null;
+        }
+
+        // 以最大相似度为基准计算权重，避免指数溢出
+        double temperature = Math.max(1e-6, intentClassifierConfig.getTemperature());
+        double positive = 0;
+        double total = 0;
+        for (int i = 0; i < filled; i++) {
+            double weight = Math.exp((topScores[i] - topScores[0]) / temperature);
+            total += weight;
+            if (labels[topRows[i]]) {
+                positive += weight;
+            }
+        }
+        return positive / total;
+    }
+
+    private double dot(float[] query, int offset) {
+        double sum = 0;
+        for (int i = 0; i < dimension; i++) {
+            sum += query[i] * matrix[offset + i];
+        }
+        return sum;
+    }
+
+    private static float[] unitVector(float[] vector) {
+        double sum = 0;
+        for (float v : vector) {
+            sum += (double) v * v;
+        }
+        double norm = sum > 0 ? Math.sqrt(sum) : 1.0;
+        float[] unit = new float[vector.length];
+        for (int i = 0; i < vector.length; i++) {
+            unit[i] = (float) (vector[i] / norm);
+        }
+        return unit;
+    }
+}
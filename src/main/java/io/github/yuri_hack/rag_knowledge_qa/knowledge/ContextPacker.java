@@ -0,0 +1,210 @@
+package io.github.yuri_hack.rag_knowledge_qa.knowledge;
+
+import io.github.yuri_hack.rag_knowledge_qa.config.TongYiModelConfig;
+import io.github.yuri_hack.rag_knowledge_qa.dto.internal.KnowledgeSearchResult;
+import io.github.yuri_hack.rag_knowledge_qa.dto.internal.PackedContext;
+import io.github.yuri_hack.rag_knowledge_qa.splitter.LengthFunction;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * RAG上下文组装
+ * 同一文档中块索引相邻的检索结果合并为一段并去掉滑动窗口的重叠部分，
+ * 被已选段落完整包含的段落视为重复丢弃，其余按分数从高到低装入模型配置的预算
+ * 预算与块大小使用同一个 LengthFunction 计量 (rag.chunk.length-unit)
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ContextPacker {
+
+    private static final String SEPARATOR = "\n\n";
+
+    // 重叠短于该长度时视为巧合，不做去重
+    private static final int MIN_OVERLAP = 8;
+
+    private final LengthFunction lengthFunction;
+
+    public PackedContext pack(List<KnowledgeSearchResult> results, TongYiModelConfig modelConfig) {
+        int budget = modelConfig.getContextTokenBudget() != null ? modelConfig.getContextTokenBudget() : Integer.MAX_VALUE;
+        List<Span> spans = mergeAdjacent(results);
+        spans.sort(Comparator.comparingDouble(Span::score).reversed());
+
+        List<Span> selected = new ArrayList<>();
+        int used = 0;
+        int separatorTokens = lengthFunction.length(SEPARATOR);
+        for (Span span : spans) {
+            if (isDuplicate(span, selected)) {
+                continue;
+            }
+            int cost = span.tokens + (selected.isEmpty() ? 0 : separatorTokens);
+            if (used + cost <= budget) {
+                selected.add(span);
+                used += cost;
+            } else if (selected.isEmpty()) {
+                // 最相关的段落单独超出预算时截断保留
+                Span truncated = span.truncate(budget, lengthFunction);
+                selected.add(truncated);
+                used += truncated.tokens;
+            }
+        }
+
+        StringBuilder content = new StringBuilder();
+        List<Long> chunkIds = new ArrayList<>();
+        for (Span span : selected) {
+            if (!content.isEmpty()) {
+                content.append(SEPARATOR);
+            }
+            content.append(span.content);
+            chunkIds.addAll(span.chunkIds);
+        }
+
+        log.debug("上下文组装: 检索结果 {} 个, 合并后 {} 段, 选用 {} 段, 估算 {} / {} tokens",
+                results.size(), spans.size(), selected.size(), used, budget);
+        return new PackedContext(content.toString(), chunkIds, used);
+    }
+
+    /**
+     * 按文档分组、块索引排序后合并连续的块
+     */
+    private List<Span> mergeAdjacent(List<KnowledgeSearchResult> results) {
+        Map<String, List<KnowledgeSearchResult>> byDocument = new LinkedHashMap<>();
+        List<Span> spans = new ArrayList<>();
+        for (KnowledgeSearchResult result : results) {
+            if (result.getContent() == null || result.getContent().isBlank()) {
+                continue;
+            }
+            if (result.getDocumentId() == null || result.getChunkIndex() == null) {
+                spans.add(Span.of(result, lengthFunction));
+            } else {
+                byDocument.computeIfAbsent(result.getDocumentId(), id -> new ArrayList<>()).add(result);
+            }
+        }
+
+        for (List<KnowledgeSearchResult> chunks : byDocument.values()) {
+            chunks.sort(Comparator.comparing(KnowledgeSearchResult::getChunkIndex));
+            Span current = null;
+            int lastIndex = 0;
+            for (KnowledgeSearchResult chunk : chunks) {
+                if (current != null && chunk.getChunkIndex() == lastIndex) {
+                    // 同一块重复出现
+                    continue;
+                }
+                if (current != null && chunk.getChunkIndex() == lastIndex + 1) {
+                    current = current.append(chunk, lengthFunction);
+                } else {
+                    if (current != null) {
+                        spans.add(current);
+                    }
+                    current = Span.of(chunk, lengthFunction);
+                }
+                lastIndex = chunk.getChunkIndex();
+            }
+            if (current != null) {
+                spans.add(current);
+            }
+        }
+        return spans;
+    }
+
+    private static boolean isDuplicate(Span span, List<Span> selected) {
+        for (Span existing : selected) {
+            if (existing.content.contains(span.content)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * a 的后缀与 b 的前缀的最长重叠长度
+     * 以 b 的前缀函数 (KMP) 在 a 的末尾扫描一遍，线性时间
+     */
+    static int overlapLength(String a, String b) {
+        int window = Math.min(a.length(), b.length());
+        if (window < MIN_OVERLAP) {
+            return 0;
+        }
+        int[] prefix = prefixFunction(b, window);
+        int matched = 0;
+        for (int i = a.length() - window; i < a.length(); i++) {
+            char ch = a.charAt(i);
+            while (matched > 0 && (matched == window || b.charAt(matched) != ch)) {
+                matched = prefix[matched - 1];
+            }
+            if (b.charAt(matched) == ch) {
+                matched++;
+            }
+        }
+        return matched >= MIN_OVERLAP ? matched : 0;
+    }
+
+    /**
+     * s 前 length 个字符的前缀函数：prefix[i] 为 s[0..i] 最长的相等真前后缀长度
+     */
+    private static int[] prefixFunction(String s, int length) {
+        int[] prefix = new int[length];
+        for (int i = 1; i < length; i++) {
+            int k = prefix[i - 1];
+            while (k > 0 && s.charAt(i) != s.charAt(k)) {
+                k = prefix[k - 1];
+            }
+            if (s.charAt(i) == s.charAt(k)) {
+                k++;
+            }
+            prefix[i] = k;
+        }
+        return prefix;
+    }
+
+    /**
+     * 合并后的连续段落，分数取其中各块的最高分
+     */
+    private record Span(String content, double score, List<Long> chunkIds, int tokens) {
+
+        static Span of(KnowledgeSearchResult result, LengthFunction lengthFunction) {
+            String content = result.getContent().strip();
+            List<Long> chunkIds = new ArrayList<>();
+            if (result.getChunkId() != null) {
+                chunkIds.add(result.getChunkId());
+            }
+            return new Span(content, scoreOf(result), chunkIds, lengthFunction.length(content));
+        }
+
+        Span append(KnowledgeSearchResult next, LengthFunction lengthFunction) {
+            String nextContent = next.getContent().strip();
+            int overlap = overlapLength(content, nextContent);
+            String merged = overlap > 0
+                    ? content + nextContent.substring(overlap)
+                    : content + "\n" + nextContent;
+            List<Long> mergedIds = new ArrayList<>(chunkIds);
+            if (next.getChunkId() != null) {
+                mergedIds.add(next.getChunkId());
+            }
+            return new Span(merged, Math.max(score, scoreOf(next)), mergedIds, lengthFunction.length(merged));
+        }
+
+        Span truncate(int budget, LengthFunction lengthFunction) {
+            int length = (int) ((long) content.length() * budget / Math.max(1, tokens));
+            String truncated = content.substring(0, Math.max(0, Math.min(content.length(), length)));
+            while (!truncated.isEmpty() && lengthFunction.length(truncated) > budget) {
+                truncated = truncated.substring(0, truncated.length() * 9 / 10);
+            }
+            return new Span(truncated, score, chunkIds, lengthFunction.length(truncated));
+        }
+
+        private static double scoreOf(KnowledgeSearchResult result) {
+            if (result.getRerankScore() != null) {
+                return result.getRerankScore();
+            }
+            return result.getSimilarity() != null ? result.getSimilarity() : 0.0;
+        }
+    }
+}
@@ -1,16 +1,36 @@
 package io.github.yuri_hack.rag_knowledge_qa.knowledge;
 
+import io.github.yuri_hack.rag_knowledge_qa.context.QueryContext;
 import io.github.yuri_hack.rag_knowledge_qa.dto.internal.KnowledgeSearchResult;
 import io.github.yuri_hack.rag_knowledge_qa.dto.request.FileUploadRequest;
 import io.github.yuri_hack.rag_knowledge_qa.dto.request.SearchRequest;
+import io.github.yuri_hack.rag_knowledge_qa.dto.response.DocumentProgressResponse;
 
 import java.util.List;
 
 public interface KnowledgeBaseService {
 
+    /**
+     * 暂存上传文件并提交异步摄取任务，立即返回documentId
+     */
     String uploadAndProcessFile(FileUploadRequest request);
 
+    /**
+     * 查询文档摄取进度
+     */
+    DocumentProgressResponse getDocumentProgress(String documentId);
+
+    /**
+     * 删除文档及其向量、文档块和依赖这些块的缓存
+     */
+    void deleteDocument(String documentId);
+
     List<KnowledgeSearchResult> searchKnowledge(SearchRequest request);
 
-    double getMaxSimilarity(String query);
+    /**
+     * 知识检索，复用查询上下文中已计算的问题向量
+     */
+    List<KnowledgeSearchResult> searchKnowledge(SearchRequest request, QueryContext context);
+
+    double getMaxSimilarity(QueryContext context);
 }
@@ -1,33 +1,39 @@
 package io.github.yuri_hack.rag_knowledge_qa.knowledge.impl;
 
-import io.github.yuri_hack.rag_knowledge_qa.document.FileProcessor;
-import io.github.yuri_hack.rag_knowledge_qa.document.FileProcessorFactory;
+import io.github.yuri_hack.rag_knowledge_qa.cache.CacheInvalidationService;
+import io.github.yuri_hack.rag_knowledge_qa.context.QueryContext;
+import io.github.yuri_hack.rag_knowledge_qa.context.QueryContextFactory;
 import io.github.yuri_hack.rag_knowledge_qa.dto.internal.KnowledgeSearchResult;
-import io.github.yuri_hack.rag_knowledge_qa.dto.internal.ProcessResult;
-import io.github.yuri_hack.rag_knowledge_qa.dto.internal.RerankResult;
 import io.github.yuri_hack.rag_knowledge_qa.dto.internal.VectorSearchResult;
 import io.github.yuri_hack.rag_knowledge_qa.dto.request.FileUploadRequest;
 import io.github.yuri_hack.rag_knowledge_qa.dto.request.SearchRequest;
-import io.github.yuri_hack.rag_knowledge_qa.embed.EmbeddingService;
+import io.github.yuri_hack.rag_knowledge_qa.dto.response.DocumentProgressResponse;
 import io.github.yuri_hack.rag_knowledge_qa.entity.DocumentChunk;
 import io.github.yuri_hack.rag_knowledge_qa.entity.UploadedDocument;
 import io.github.yuri_hack.rag_knowledge_qa.enums.DocumentStatus;
+import io.github.yuri_hack.rag_knowledge_qa.enums.IngestionStage;
 import io.github.yuri_hack.rag_knowledge_qa.knowledge.KnowledgeBaseService;
+import io.github.yuri_hack.rag_knowledge_qa.knowledge.ingest.DocumentIngestionExecutor;
 import io.github.yuri_hack.rag_knowledge_qa.repository.DocumentChunkRepository;
 import io.github.yuri_hack.rag_knowledge_qa.repository.UploadedDocumentRepository;
-import io.github.yuri_hack.rag_knowledge_qa.rerank.RerankerService;
-import io.github.yuri_hack.rag_knowledge_qa.splitter.TextSplitter;
-import io.github.yuri_hack.rag_knowledge_qa.splitter.model.TextChunk;
+import io.github.yuri_hack.rag_knowledge_qa.rerank.CascadeRanker;
 import io.github.yuri_hack.rag_knowledge_qa.vector.VectorStoreService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -41,63 +47,100 @@ import java.util.stream.Collectors;
 @Transactional
 public class KnowledgeBaseServiceImpl implements KnowledgeBaseService {
 
-    private final FileProcessorFactory fileProcessorFactory;
-    private final TextSplitter textSplitter;
-    private final EmbeddingService embeddingService;
+    private final QueryContextFactory queryContextFactory;
     private final VectorStoreService vectorStoreService;
     private final DocumentChunkRepository chunkRepository;
     private final UploadedDocumentRepository documentRepository;
-    private final RerankerService rerankerService;
+    private final CascadeRanker cascadeRanker;
+    private final DocumentIngestionExecutor ingestionExecutor;
+    private final CacheInvalidationService cacheInvalidationService;
 
     public String uploadAndProcessFile(FileUploadRequest request) {
+        // 指定documentId时视为该文档的新版本，沿用documentId以便增量更新
+        Optional<UploadedDocument> existing = Optional.empty();
+        if (request.getDocumentId() != null && !request.getDocumentId().isBlank()) {
+            existing = Optional.of(documentRepository.findByDocumentId(request.getDocumentId())
+                    .orElseThrow(() -> new IllegalArgumentException("文档不存在: " + request.getDocumentId())));
+            if (existing.get().getStatus() == DocumentStatus.PROCESSING) {
+                throw new IllegalStateException("文档正在处理中，请稍后再上传新版本: " + request.getDocumentId());
+            }
+        }
+
         // 自增id作主键 documentId索引业务id
-        String documentId = generateDocumentId();
+        String documentId = existing.map(UploadedDocument::getDocumentId).orElseGet(this::generateDocumentId);
+        MultipartFile file = request.getFile();
 
         try {
+            // 暂存文件，供异步摄取和重启恢复使用
+            String fileExtension = getFileExtension(Objects.requireNonNull(file.getOriginalFilename()));
+            Path storagePath = ingestionExecutor.stageFile(documentId, fileExtension, file.getInputStream());
+
             // 保存文档记录
-            UploadedDocument document = createUploadedDocument(request, documentId);
+            UploadedDocument document = existing
+                    .map(previous -> createNewVersion(previous, request))
+                    .orElseGet(() -> createUploadedDocument(request, documentId));
+            document.setStoragePath(storagePath.toString());
             documentRepository.save(document);
 
-            // 处理文件
-            ProcessResult processResult = processFile(request.getFile());
+            // 事务提交后再投递，保证工作线程能读到文档记录
+            runAfterCommit(() -> ingestionExecutor.submit(documentId));
 
-            // 分割文本
-            List<TextChunk> textChunks = textSplitter.splitText(
-                    processResult.getContent(),
-                    request.getFileName(),
-                    documentId
-            );
+            log.info("文件已提交处理: {}, documentId: {}, 版本: {}", request.getFileName(), documentId, document.getVersion());
+            return documentId;
 
-            // 生成向量并保存
-            List<DocumentChunk> documentChunks = createDocumentChunks(textChunks);
-            chunkRepository.saveAll(documentChunks);
+        } catch (IOException e) {
+            log.error("文件暂存失败: {}", request.getFileName(), e);
+            throw new RuntimeException("文件暂存失败: " + e.getMessage(), e);
+        }
+    }
 
-            // 插入到Milvus
-            vectorStoreService.insertVectors(documentChunks);
+    @Override
+    @Transactional(readOnly = true)
+    public DocumentProgressResponse getDocumentProgress(String documentId) {
+        return documentRepository.findByDocumentId(documentId)
+                .map(DocumentProgressResponse::from)
+                .orElseThrow(() -> new IllegalArgumentException("文档不存在: " + documentId));
+    }
 
-            // 更新文档状态
-            document.setStatus(DocumentStatus.COMPLETED);
-            document.setUpdateTime(LocalDateTime.now());
-            documentRepository.save(document);
+    @Override
+    public void deleteDocument(String documentId) {
+        UploadedDocument document = documentRepository.findByDocumentId(documentId)
+                .orElseThrow(() -> new IllegalArgumentException("文档不存在: " + documentId));
+        if (document.getStatus() == DocumentStatus.PROCESSING) {
+            throw new IllegalStateException("文档正在处理中，请稍后再删除: " + documentId);
+        }
 
-            log.info("文件处理完成: {}, 生成 {} 个块", request.getFileName(), documentChunks.size());
-            return documentId;
+        // 先删向量，避免检索命中已删除的块
+        List<Long> chunkIds = chunkRepository.findIdsByDocumentId(documentId);
+        vectorStoreService.deleteByChunkIds(chunkIds);
+        // 按documentId兜底清理未登记块ID的残留向量
+        vectorStoreService.deleteByDocumentId(documentId);
 
-        } catch (Exception e) {
-            log.error("文件处理失败: {}", request.getFileName(), e);
-            updateDocumentStatus(documentId, DocumentStatus.FAILED);
-            throw new RuntimeException("文件处理失败: " + e.getMessage(), e);
-        }
+        chunkRepository.deleteAllByIdInBatch(chunkIds);
+        documentRepository.delete(document);
+
+        // 事务提交后再失效缓存，避免并发请求用尚未删除的块重新写入缓存
+        runAfterCommit(() -> {
+            cacheInvalidationService.invalidateChunks(chunkIds);
+            deleteStoredFile(document);
+        });
+
+        log.info("文档已删除: {}, 文档块数: {}", documentId, chunkIds.size());
     }
 
     @Override
     public List<KnowledgeSearchResult> searchKnowledge(SearchRequest request) {
+        return searchKnowledge(request, queryContextFactory.create(request.getQuery()));
+    }
+
+    @Override
+    public List<KnowledgeSearchResult> searchKnowledge(SearchRequest request, QueryContext context) {
         try {
             // 生成查询向量
-            float[] queryVector = embeddingService.getEmbedding(request.getQuery());
+            float[] queryVector = context.getQueryEmbedding();
 
             // 在Milvus中搜索相似向量
-            List<VectorSearchResult> vectorResults = vectorStoreService.searchSimilarVectors(queryVector, request.getTopK());
+            List<VectorSearchResult> vectorResults = vectorStoreService.searchSimilarVectors(queryVector, request.getTopK(), request.getSearchEffort());
 
             // 获取完整的文档块信息
             List<KnowledgeSearchResult> knowledgeResults = enrichSearchResults(vectorResults);
@@ -114,10 +157,11 @@ public class KnowledgeBaseServiceImpl implements KnowledgeBaseService {
     }
 
     @Override
-    public double getMaxSimilarity(String query) {
+    public double getMaxSimilarity(QueryContext context) {
+        String query = context.getQuestion();
         try {
             // 生成查询向量
-            float[] queryVector = embeddingService.getEmbedding(query);
+            float[] queryVector = context.getQueryEmbedding();
 
             // 在Milvus中搜索相似向量，只取最相似的1个结果
             List<VectorSearchResult> vectorResults = vectorStoreService.searchSimilarVectors(queryVector, 1);
@@ -141,10 +185,12 @@ public class KnowledgeBaseServiceImpl implements KnowledgeBaseService {
 
     /**
      * 按比例截取前topRatio的数据
+     * 未经重排序的结果 (rerankScore 为空) 保持排序器给出的先后顺序
      */
     private List<KnowledgeSearchResult> dynamicCutOff(List<KnowledgeSearchResult> searchResults, Double topRatio) {
-        // 按rerank score降序排序
-        searchResults.sort((a, b) -> Double.compare(b.getRerankScore(), a.getRerankScore()));
+        // 按rerank score降序排序，稳定排序不改变无分数结果的顺序
+        searchResults.sort(Comparator.comparing(KnowledgeSearchResult::getRerankScore,
+                Comparator.nullsLast(Comparator.reverseOrder())));
         int take = computeTakeCount(searchResults.size(), topRatio);
         return searchResults.subList(0, take);
     }
@@ -169,72 +215,45 @@ public class KnowledgeBaseServiceImpl implements KnowledgeBaseService {
     }
 
     /**
-     * 应用重排序到搜索结果
+     * 级联排序：初筛后只对前N个候选重排序
      */
     private List<KnowledgeSearchResult> applyReranking(String query,
                                                        List<KnowledgeSearchResult> knowledgeResults) {
         try {
-            List<RerankResult> rerankedResults = rerankerService.rerankKnowledgeResults(query, knowledgeResults);
-
-            // 将重排序结果转换回KnowledgeSearchResult格式
-            return convertToKnowledgeSearchResults(rerankedResults);
-
+            return cascadeRanker.rank(query, knowledgeResults);
         } catch (Exception e) {
             log.warn("重排序处理失败，返回原始搜索结果: {}", e.getMessage());
-            return knowledgeResults;
+            // 不把向量相似度写入 rerankScore，避免与重排序分数混用
+            List<KnowledgeSearchResult> fallback = new ArrayList<>(knowledgeResults);
+            fallback.forEach(result -> result.setRerankScore(null));
+            fallback.sort(Comparator.comparing(KnowledgeSearchResult::getSimilarity,
+                    Comparator.nullsLast(Comparator.reverseOrder())));
+            return fallback;
         }
     }
 
-    /**
-     * 将重排序结果转换为知识搜索结果
-     */
-    private List<KnowledgeSearchResult> convertToKnowledgeSearchResults(List<RerankResult> rerankedResults) {
-        return rerankedResults.stream()
-                .map(this::convertToKnowledgeSearchResult)
-                .collect(Collectors.toList());
-    }
-
-    /**
-     * 单个重排序结果转换
-     */
-    private KnowledgeSearchResult convertToKnowledgeSearchResult(RerankResult rerankResult) {
-        KnowledgeSearchResult result = new KnowledgeSearchResult();
-        result.setChunkIndex(rerankResult.getChunkIndex());
-        result.setSimilarity(rerankResult.getSimilarity());
-        result.setDocumentId(rerankResult.getDocumentId());
-        result.setFileName(rerankResult.getFileName());
-        result.setContent(rerankResult.getContent());
-        result.setRerankScore(rerankResult.getRerankScore());
-        result.setChunkId(rerankResult.getDocumentChunkId());
-        return result;
-    }
-
-    private ProcessResult processFile(MultipartFile file) {
-        String fileExtension = getFileExtension(Objects.requireNonNull(file.getOriginalFilename()));
-        Optional<FileProcessor> processorOptional = fileProcessorFactory.getProcessor(fileExtension);
-
-        if (processorOptional.isEmpty()) {
-            throw new IllegalArgumentException("不支持的文件类型: " + fileExtension);
+    private void runAfterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
         }
-
-        return processorOptional.get().process(file);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
     }
 
-    private List<DocumentChunk> createDocumentChunks(List<TextChunk> textChunks) {
-        List<DocumentChunk> documentChunks = new ArrayList<>();
-
-        for (TextChunk textChunk : textChunks) {
-            DocumentChunk chunk = new DocumentChunk();
-            chunk.setDocumentId(textChunk.getDocumentId());
-            chunk.setFileName(textChunk.getFileName());
-            chunk.setChunkIndex(textChunk.getChunkIndex());
-            chunk.setContent(textChunk.getContent());
-            chunk.setCreateTime(LocalDateTime.now());
-
-            documentChunks.add(chunk);
+    private void deleteStoredFile(UploadedDocument document) {
+        if (document.getStoragePath() == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(Paths.get(document.getStoragePath()));
+        } catch (IOException e) {
+            log.warn("删除暂存文件失败: {}", document.getStoragePath(), e);
         }
-
-        return documentChunks;
     }
 
     private String generateDocumentId() {
@@ -248,18 +267,28 @@ public class KnowledgeBaseServiceImpl implements KnowledgeBaseService {
         document.setFileType(getFileExtension(request.getFileName()));
         document.setFileSize(request.getFile().getSize());
         document.setDescription(request.getDescription());
+        document.setVersion(1);
         document.setStatus(DocumentStatus.PROCESSING);
+        document.setStage(IngestionStage.QUEUED);
         document.setCreateTime(LocalDateTime.now());
         document.setUpdateTime(LocalDateTime.now());
         return document;
     }
 
-    private void updateDocumentStatus(String documentId, DocumentStatus status) {
-        documentRepository.findByDocumentId(documentId).ifPresent(document -> {
-            document.setStatus(status);
-            document.setUpdateTime(LocalDateTime.now());
-            documentRepository.save(document);
-        });
+    private UploadedDocument createNewVersion(UploadedDocument document, FileUploadRequest request) {
+        document.setVersion(document.getVersion() != null ? document.getVersion() + 1 : 2);
+        document.setFileName(request.getFileName());
+        document.setFileType(getFileExtension(request.getFileName()));
+        document.setFileSize(request.getFile().getSize());
+        if (request.getDescription() != null) {
+            document.setDescription(request.getDescription());
+        }
+        document.setStatus(DocumentStatus.PROCESSING);
+        document.setStage(IngestionStage.QUEUED);
+        document.setProcessedChunks(0);
+        document.setErrorMessage(null);
+        document.setUpdateTime(LocalDateTime.now());
+        return document;
     }
 
     private String getFileExtension(String fileName) {
@@ -0,0 +1,379 @@
+package io.github.yuri_hack.rag_knowledge_qa.knowledge.ingest;
+
+import io.github.yuri_hack.rag_knowledge_qa.cache.CacheInvalidationService;
+import io.github.yuri_hack.rag_knowledge_qa.config.IngestionConfig;
+import io.github.yuri_hack.rag_knowledge_qa.document.FileProcessor;
+import io.github.yuri_hack.rag_knowledge_qa.document.FileProcessorFactory;
+import io.github.yuri_hack.rag_knowledge_qa.dto.internal.ProcessResult;
+import io.github.yuri_hack.rag_knowledge_qa.embed.EmbeddingService;
+import io.github.yuri_hack.rag_knowledge_qa.entity.DocumentChunk;
+import io.github.yuri_hack.rag_knowledge_qa.entity.UploadedDocument;
+import io.github.yuri_hack.rag_knowledge_qa.enums.DocumentStatus;
+import io.github.yuri_hack.rag_knowledge_qa.enums.IngestionStage;
+import io.github.yuri_hack.rag_knowledge_qa.repository.DocumentChunkRepository;
+import io.github.yuri_hack.rag_knowledge_qa.repository.UploadedDocumentRepository;
+import io.github.yuri_hack.rag_knowledge_qa.splitter.TextSplitterFactory;
+import io.github.yuri_hack.rag_knowledge_qa.splitter.model.TextChunk;
+import io.github.yuri_hack.rag_knowledge_qa.vector.VectorStoreService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static io.github.yuri_hack.rag_knowledge_qa.util.HashUtils.sha256Hex;
+
+/**
+ * 文档摄取执行器
+ * 以有界线程池异步驱动文档经过 解析 -> 分割 -> 向量化 -> 存储 各阶段，
+ * 阶段进度持久化在 UploadedDocument 上，应用重启后自动恢复未完成的任务；
+ * 同一文档重新上传时按块内容哈希增量更新向量，新版本存储完成后才删除旧版本的块
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class DocumentIngestionExecutor {
+
+    private final IngestionConfig ingestionConfig;
+    private final FileProcessorFactory fileProcessorFactory;
+    private final TextSplitterFactory textSplitterFactory;
+    private final EmbeddingService embeddingService;
+    private final VectorStoreService vectorStoreService;
+    private final DocumentChunkRepository chunkRepository;
+    private final UploadedDocumentRepository documentRepository;
+    private final CacheInvalidationService cacheInvalidationService;
+
+    // 已提交且尚未结束的文档，避免重复执行
+    private final Set<String> inFlight = ConcurrentHashMap.newKeySet();
+
+    private ThreadPoolExecutor executor;
+
+    @PostConstruct
+    public void init() {
+        int threads = Math.max(1, ingestionConfig.getWorkerThreads());
+        executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, ingestionConfig.getQueueCapacity())),
+                new CustomizableThreadFactory("ingestion-"),
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @PreDestroy
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * 将上传文件暂存到本地目录
+     *
+     * @return 暂存文件的绝对路径
+     */
+    public Path stageFile(String documentId, String extension, InputStream content) throws IOException {
+        Path dir = Paths.get(ingestionConfig.getStorageDir()).toAbsolutePath();
+        Files.createDirectories(dir);
+        Path target = dir.resolve(documentId + "." + extension);
+        Files.copy(content, target, StandardCopyOption.REPLACE_EXISTING);
+        return target;
+    }
+
+    /**
+     * 提交文档摄取任务，队列已满时将文档标记为失败
+     */
+    public void submit(String documentId) {
+        if (!inFlight.add(documentId)) {
+            log.debug("文档 {} 已在处理队列中", documentId);
+            return;
+        }
+
+        try {
+            executor.execute(() -> {
+                try {
+                    ingest(documentId);
+                } finally {
+                    inFlight.remove(documentId);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            inFlight.remove(documentId);
+            log.warn("摄取队列已满，文档 {} 提交失败", documentId);
+            documentRepository.findByDocumentId(documentId)
+                    .ifPresent(document -> markFailed(document, "摄取队列已满，请稍后重新上传"));
+        }
+    }
+
+    /**
+     * 应用启动后恢复未完成的摄取任务
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeUnfinished() {
+        List<UploadedDocument> unfinished = documentRepository.findByStatus(DocumentStatus.PROCESSING);
+        if (unfinished.isEmpty()) {
+            return;
+        }
+
+        log.info("发现 {} 个未完成的摄取任务，开始恢复", unfinished.size());
+        for (UploadedDocument document : unfinished) {
+            submit(document.getDocumentId());
+        }
+    }
+
+    /**
+     * 执行单个文档的摄取流程
+     * 按内容哈希与已有块比对，只向量化新增或变化的块，存储完成后删除新版本中已不存在的块。
+     * 整个文档只在内存中保留已有块的ID和哈希，块内容和向量按窗口逐批处理
+     */
+    private void ingest(String documentId) {
+        Optional<UploadedDocument> documentOptional = documentRepository.findByDocumentId(documentId);
+        if (documentOptional.isEmpty() || documentOptional.get().getStatus() != DocumentStatus.PROCESSING) {
+            return;
+        }
+        UploadedDocument document = documentOptional.get();
+        long start = System.currentTimeMillis();
+
+        try {
+            if (reachedStage(document, IngestionStage.EMBEDDING)) {
+                resume(document);
+            } else {
+                parseAndDiff(document);
+            }
+
+            int embedded = embedAndStore(document);
+
+            // 新版本已全部可检索，再删除旧版本中已不存在的块
+            updateStage(document, IngestionStage.STORING);
+            removeChunks(document, chunkRepository.findIdsOlderThanVersion(document.getDocumentId(), document.getVersion()));
+
+            document.setStatus(DocumentStatus.COMPLETED);
+            updateStage(document, IngestionStage.DONE);
+            deleteStagedFile(document);
+
+            log.info("文件处理完成: {}, 版本 {}, 共 {} 个块, 新向量化 {} 个, 耗时 {} ms",
+                    document.getFileName(), document.getVersion(), document.getTotalChunks(), embedded,
+                    System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            log.error("文件处理失败: {}, 阶段: {}", document.getFileName(), document.getStage(), e);
+            markFailed(document, e.getMessage());
+        }
+    }
+
+    /**
+     * 解析并分割文件，与文档已有的块按内容哈希比对：
+     * 内容相同的块复用原记录及其向量，新内容创建新块，两者都标记为当前版本；
+     * 未匹配的旧块保留旧版本号，在新版本存储完成前继续提供检索
+     */
+    private void parseAndDiff(UploadedDocument document) throws IOException {
+        updateStage(document, IngestionStage.PARSING);
+        Path file = Paths.get(document.getStoragePath());
+        if (!Files.exists(file)) {
+            throw new IllegalStateException("暂存文件不存在: " + file);
+        }
+
+        // 已有块ID按内容哈希分组，同一内容可能出现多次
+        Map<String, Deque<Long>> existingChunkIds = new HashMap<>();
+        for (DocumentChunkRepository.ChunkHash chunk : chunkRepository.findHashesByDocumentId(document.getDocumentId())) {
+            if (chunk.getContentHash() != null) {
+                existingChunkIds.computeIfAbsent(chunk.getContentHash(), hash -> new ArrayDeque<>()).add(chunk.getId());
+            }
+        }
+
+        int total = 0;
+        int reused = 0;
+        try (ProcessResult processResult = processFile(file);
+             Reader reader = processResult.openReader()) {
+            updateStage(document, IngestionStage.SPLITTING);
+
+            // 边分割边分批保存文档块
+            int batchSize = Math.max(1, ingestionConfig.getProgressWindow());
+            List<TextChunk> batch = new ArrayList<>(batchSize);
+            Iterator<TextChunk> textChunks = textSplitterFactory.getSplitter(getFileExtension(file))
+                    .iterateChunks(reader, document.getFileName(), document.getDocumentId());
+            while (textChunks.hasNext()) {
+                batch.add(textChunks.next());
+                if (batch.size() >= batchSize || !textChunks.hasNext()) {
+                    reused += saveChunks(document, batch, existingChunkIds);
+                    total += batch.size();
+                    batch.clear();
+                }
+            }
+        }
+
+        document.setTotalChunks(total);
+        log.info("文件 {} 分割为 {} 个块, 复用 {} 个", document.getFileName(), total, reused);
+    }
+
+    /**
+     * 保存一批分割结果，内容未变化的块复用原记录，只更新位置和版本
+     *
+     * @return 复用的块数
+     */
+    private int saveChunks(UploadedDocument document, List<TextChunk> textChunks,
+                           Map<String, Deque<Long>> existingChunkIds) {
+        List<String> contentHashes = new ArrayList<>(textChunks.size());
+        List<Long> reusedIds = new ArrayList<>();
+        for (TextChunk textChunk : textChunks) {
+            String contentHash = sha256Hex(textChunk.getContent());
+            contentHashes.add(contentHash);
+            Deque<Long> sameContent = existingChunkIds.get(contentHash);
+            Long chunkId = sameContent != null ? sameContent.pollFirst() : null;
+            reusedIds.add(chunkId);
+        }
+
+        Map<Long, DocumentChunk> reusedChunks = new HashMap<>();
+        for (DocumentChunk chunk : chunkRepository.findAllById(reusedIds.stream().filter(Objects::nonNull).toList())) {
+            reusedChunks.put(chunk.getId(), chunk);
+        }
+
+        List<DocumentChunk> batch = new ArrayList<>(textChunks.size());
+        for (int i = 0; i < textChunks.size(); i++) {
+            TextChunk textChunk = textChunks.get(i);
+            DocumentChunk chunk = reusedIds.get(i) != null ? reusedChunks.get(reusedIds.get(i)) : null;
+            if (chunk == null) {
+                chunk = createDocumentChunk(textChunk);
+            }
+            chunk.setChunkIndex(textChunk.getChunkIndex());
+            chunk.setHeadingPath(textChunk.getHeadingPath());
+            chunk.setContentHash(contentHashes.get(i));
+            chunk.setDocumentVersion(document.getVersion());
+            batch.add(chunk);
+        }
+        chunkRepository.saveAll(batch);
+        return reusedChunks.size();
+    }
+
+    /**
+     * 删除新版本中已不存在的块，先删向量再删记录
+     */
+    private void removeChunks(UploadedDocument document, List<Long> chunkIds) {
+        if (chunkIds.isEmpty()) {
+            return;
+        }
+        vectorStoreService.deleteByChunkIds(chunkIds);
+        chunkRepository.deleteAllByIdInBatch(chunkIds);
+        cacheInvalidationService.invalidateChunks(chunkIds);
+        log.info("文档 {} 删除旧版本块 {} 个", document.getDocumentId(), chunkIds.size());
+    }
+
+    /**
+     * 当前版本的文档块已持久化时跳过解析和分割，
+     * 清理未标记完成的块可能已部分写入的向量
+     */
+    private void resume(UploadedDocument document) {
+        List<Long> unindexedIds = chunkRepository.findUnindexedIds(document.getDocumentId(), document.getVersion());
+        vectorStoreService.deleteByChunkIds(unindexedIds);
+        log.info("恢复文档 {} 的摄取任务, 待向量化 {} 个块", document.getDocumentId(), unindexedIds.size());
+    }
+
+    /**
+     * 分窗口向量化当前版本中尚未写入Milvus的块，每个窗口向量化后立即写入并标记完成，
+     * 同时更新一次进度，已复用的块计入已处理数
+     *
+     * @return 本次向量化的块数
+     */
+    private int embedAndStore(UploadedDocument document) {
+        String documentId = document.getDocumentId();
+        Integer version = document.getVersion();
+        long pending = chunkRepository.countByDocumentIdAndDocumentVersionAndIndexedFalse(documentId, version);
+        int total = document.getTotalChunks() != null ? document.getTotalChunks() : 0;
+        document.setProcessedChunks((int) Math.max(0, total - pending));
+        updateStage(document, IngestionStage.EMBEDDING);
+
+        int window = Math.max(1, ingestionConfig.getProgressWindow());
+        int embedded = 0;
+        List<DocumentChunk> batch;
+        // 每批写入后即标记为已索引，因此总是取第一页
+        while (!(batch = chunkRepository.findByDocumentIdAndDocumentVersionAndIndexedFalseOrderByChunkIndex(
+                documentId, version, PageRequest.of(0, window))).isEmpty()) {
+            List<String> contents = batch.stream().map(DocumentChunk::getContent).toList();
+            vectorStoreService.insertVectors(batch, embeddingService.getEmbeddings(contents));
+            batch.forEach(chunk -> chunk.setIndexed(true));
+            chunkRepository.saveAll(batch);
+
+            embedded += batch.size();
+            document.setProcessedChunks(document.getProcessedChunks() + batch.size());
+            saveDocument(document);
+        }
+        return embedded;
+    }
+
+    private ProcessResult processFile(Path file) {
+        String fileExtension = getFileExtension(file);
+        Optional<FileProcessor> processorOptional = fileProcessorFactory.getProcessor(fileExtension);
+
+        if (processorOptional.isEmpty()) {
+            throw new IllegalArgumentException("不支持的文件类型: " + fileExtension);
+        }
+
+        return processorOptional.get().process(file);
+    }
+
+    private String getFileExtension(Path file) {
+        String fileName = file.getFileName().toString();
+        return fileName.substring(fileName.lastIndexOf(".") + 1).toLowerCase();
+    }
+
+    private DocumentChunk createDocumentChunk(TextChunk textChunk) {
+        DocumentChunk chunk = new DocumentChunk();
+        chunk.setDocumentId(textChunk.getDocumentId());
+        chunk.setFileName(textChunk.getFileName());
+        chunk.setContent(textChunk.getContent());
+        chunk.setIndexed(false);
+        chunk.setCreateTime(LocalDateTime.now());
+        return chunk;
+    }
+
+    private boolean reachedStage(UploadedDocument document, IngestionStage stage) {
+        return document.getStage() != null && document.getStage().compareTo(stage) >= 0;
+    }
+
+    private void updateStage(UploadedDocument document, IngestionStage stage) {
+        document.setStage(stage);
+        saveDocument(document);
+        log.debug("文档 {} 进入阶段: {}", document.getDocumentId(), stage);
+    }
+
+    private void markFailed(UploadedDocument document, String errorMessage) {
+        document.setStatus(DocumentStatus.FAILED);
+        document.setErrorMessage(errorMessage);
+        saveDocument(document);
+    }
+
+    private void saveDocument(UploadedDocument document) {
+        document.setUpdateTime(LocalDateTime.now());
+        documentRepository.save(document);
+    }
+
+    private void deleteStagedFile(UploadedDocument document) {
+        try {
+            Files.deleteIfExists(Paths.get(document.getStoragePath()));
+        } catch (IOException e) {
+            log.warn("删除暂存文件失败: {}", document.getStoragePath(), e);
+        }
+    }
+}
@@ -1,10 +1,12 @@
 package io.github.yuri_hack.rag_knowledge_qa.repository;
 
 import io.github.yuri_hack.rag_knowledge_qa.entity.DocumentChunk;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
@@ -16,7 +18,39 @@ public interface DocumentChunkRepository extends JpaRepository<DocumentChunk, Lo
     Optional<DocumentChunk> findByDocumentIdAndChunkIndex(@Param("documentId") String documentId, 
                                                          @Param("chunkIndex") Integer chunkIndex);
     
+    @Transactional
     void deleteByDocumentId(String documentId);
 
+    List<DocumentChunk> findByDocumentIdOrderByChunkIndex(String documentId);
+
+    /**
+     * 只加载块ID和内容哈希，用于重新上传时比对
+     */
+    List<ChunkHash> findHashesByDocumentId(String documentId);
+
+    List<DocumentChunk> findByDocumentIdAndDocumentVersionAndIndexedFalseOrderByChunkIndex(
+            String documentId, Integer documentVersion, Pageable pageable);
+
+    long countByDocumentIdAndDocumentVersionAndIndexedFalse(String documentId, Integer documentVersion);
+
+    @Query("SELECT dc.id FROM DocumentChunk dc WHERE dc.documentId = :documentId " +
+            "AND dc.documentVersion = :documentVersion AND dc.indexed = false")
+    List<Long> findUnindexedIds(@Param("documentId") String documentId,
+                                @Param("documentVersion") Integer documentVersion);
+
+    @Query("SELECT dc.id FROM DocumentChunk dc WHERE dc.documentId = :documentId " +
+            "AND (dc.documentVersion IS NULL OR dc.documentVersion < :documentVersion)")
+    List<Long> findIdsOlderThanVersion(@Param("documentId") String documentId,
+                                       @Param("documentVersion") Integer documentVersion);
+
+    interface ChunkHash {
+        Long getId();
+
+        String getContentHash();
+    }
+
     List<DocumentChunk> findByIdIn(List<Long> chunkIds);
+
+    @Query("SELECT dc.id FROM DocumentChunk dc WHERE dc.documentId = :documentId")
+    List<Long> findIdsByDocumentId(@Param("documentId") String documentId);
 }
\ No newline at end of file
@@ -0,0 +1,211 @@
+package io.github.yuri_hack.rag_knowledge_qa.rerank;
+
+import io.github.yuri_hack.rag_knowledge_qa.config.RerankConfig;
+import io.github.yuri_hack.rag_knowledge_qa.dto.internal.KnowledgeSearchResult;
+import io.github.yuri_hack.rag_knowledge_qa.dto.internal.RerankResult;
+import io.github.yuri_hack.rag_knowledge_qa.util.SimpleNormalizer;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 级联排序
+ * 第一阶段用向量相似度加词面重合度的低成本分数初筛候选，
+ * 第二阶段只将前N个候选交给重排序服务；向量分数已足够区分时跳过重排序
+ * 各阶段耗时记录到计时器 rag.rerank.cascade (标签 stage=first/rerank)，跳过重排序的次数记录到 rag.rerank.cascade.skipped
+ */
+@Slf4j
+@Component
+public class CascadeRanker {
+
+    private static final String STAGE_TIMER = "rag.rerank.cascade";
+
+    private final RerankerService rerankerService;
+    private final RerankConfig rerankConfig;
+    private final SimpleNormalizer simpleNormalizer;
+    private final Timer firstStageTimer;
+    private final Timer rerankTimer;
+    private final Counter skippedCounter;
+
+    /**
+     * 未引入 actuator 时没有 MeterRegistry bean，使用全局注册表
+     */
+    @Autowired
+    public CascadeRanker(RerankerService rerankerService, RerankConfig rerankConfig, SimpleNormalizer simpleNormalizer,
+                         ObjectProvider<MeterRegistry> meterRegistry) {
+        this(rerankerService, rerankConfig, simpleNormalizer, meterRegistry.getIfAvailable(() -> Metrics.globalRegistry));
+    }
+
+    CascadeRanker(RerankerService rerankerService, RerankConfig rerankConfig, SimpleNormalizer simpleNormalizer,
+                  MeterRegistry meterRegistry) {
+        this.rerankerService = rerankerService;
+        this.rerankConfig = rerankConfig;
+        this.simpleNormalizer = simpleNormalizer;
+        this.firstStageTimer = Timer.builder(STAGE_TIMER)
+                .description("级联排序各阶段耗时")
+                .tag("stage", "first")
+                .register(meterRegistry);
+        this.rerankTimer = Timer.builder(STAGE_TIMER)
+                .description("级联排序各阶段耗时")
+                .tag("stage", "rerank")
+                .register(meterRegistry);
+        this.skippedCounter = Counter.builder("rag.rerank.cascade.skipped")
+                .description("向量分数差距足够而跳过重排序的次数")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 对检索结果排序，经过重排序的结果将重排序分数写入 rerankScore
+     * 跳过重排序时 rerankScore 保持为空，初筛分数只用于内部排序，不与重排序分数混用同一字段
+     *
+     * @return 按最终排序先后排列的结果
+     */
+    public List<KnowledgeSearchResult> rank(String query, List<KnowledgeSearchResult> candidates) {
+        if (candidates.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        RerankConfig.Cascade cascade = rerankConfig.getCascade();
+        if (!cascade.isEnabled()) {
+            return timedRerank(query, candidates);
+        }
+
+        // 第一阶段：低成本初筛
+        long startTime = System.nanoTime();
+        Set<String> queryGrams = bigrams(query);
+        Map<KnowledgeSearchResult, Double> firstStageScores = new IdentityHashMap<>();
+        List<KnowledgeSearchResult> shortlist = new ArrayList<>(candidates);
+        for (KnowledgeSearchResult candidate : shortlist) {
+            candidate.setRerankScore(null);
+            firstStageScores.put(candidate, firstStageScore(candidate, queryGrams, cascade.getVectorWeight()));
+        }
+        shortlist.sort(Comparator.comparing((KnowledgeSearchResult candidate) -> firstStageScores.get(candidate)).reversed());
+        shortlist = new ArrayList<>(shortlist.subList(0, Math.min(shortlist.size(), Math.max(1, cascade.getFirstStageTopN()))));
+        long firstStageNanos = System.nanoTime() - startTime;
+        firstStageTimer.record(firstStageNanos, TimeUnit.NANOSECONDS);
+
+        // 向量分数已足够区分时直接使用初筛结果
+        if (isDecisive(candidates, cascade.getScoreGap())) {
+            skippedCounter.increment();
+            log.debug("级联排序: 初筛 {} -> {}, 耗时 {} ms; 向量分数差距足够，跳过重排序",
+                    candidates.size(), shortlist.size(), TimeUnit.NANOSECONDS.toMillis(firstStageNanos));
+            return shortlist;
+        }
+
+        // 第二阶段：重排序
+        long rerankStart = System.nanoTime();
+        List<KnowledgeSearchResult> reranked = timedRerank(query, shortlist);
+        log.debug("级联排序: 初筛 {} -> {}, 耗时 {} ms; 重排序 {} 个, 耗时 {} ms",
+                candidates.size(), shortlist.size(), TimeUnit.NANOSECONDS.toMillis(firstStageNanos),
+                reranked.size(), elapsedMs(rerankStart));
+        return reranked;
+    }
+
+    private List<KnowledgeSearchResult> timedRerank(String query, List<KnowledgeSearchResult> candidates) {
+        return rerankTimer.record(() -> rerank(query, candidates));
+    }
+
+    /**
+     * 调用重排序服务，按块ID将分数写回原结果以保留全部字段
+     */
+    private List<KnowledgeSearchResult> rerank(String query, List<KnowledgeSearchResult> candidates) {
+        Map<Long, KnowledgeSearchResult> byChunkId = new HashMap<>();
+        for (KnowledgeSearchResult candidate : candidates) {
+            byChunkId.put(candidate.getChunkId(), candidate);
+        }
+
+        List<KnowledgeSearchResult> results = new ArrayList<>(candidates.size());
+        for (RerankResult rerankResult : rerankerService.rerankKnowledgeResults(query, candidates)) {
+            KnowledgeSearchResult result = byChunkId.get(rerankResult.getDocumentChunkId());
+            if (result != null) {
+                result.setRerankScore(rerankResult.getRerankScore());
+                results.add(result);
+            }
+        }
+        results.sort(Comparator.comparing(KnowledgeSearchResult::getRerankScore).reversed());
+        return results;
+    }
+
+    /**
+     * 初筛分数：向量相似度与查询二元组在文档中的覆盖率加权
+     */
+    private double firstStageScore(KnowledgeSearchResult candidate, Set<String> queryGrams, double vectorWeight) {
+        double similarity = candidate.getSimilarity() != null ? candidate.getSimilarity() : 0.0;
+        if (queryGrams.isEmpty()) {
+            return similarity;
+        }
+
+        Set<String> documentGrams = bigrams(candidate.getContent());
+        int matched = 0;
+        for (String gram : queryGrams) {
+            if (documentGrams.contains(gram)) {
+                matched++;
+            }
+        }
+        double overlap = (double) matched / queryGrams.size();
+        return vectorWeight * similarity + (1 - vectorWeight) * overlap;
+    }
+
+    /**
+     * 前两名向量相似度差距达到阈值，或只有一个候选
+     */
+    private boolean isDecisive(List<KnowledgeSearchResult> candidates, double scoreGap) {
+        if (scoreGap <= 0) {
+            return false;
+        }
+        if (candidates.size() == 1) {
+            return true;
+        }
+
+        double first = Double.NEGATIVE_INFINITY;
+        double second = Double.NEGATIVE_INFINITY;
+        for (KnowledgeSearchResult candidate : candidates) {
+            double similarity = candidate.getSimilarity() != null ? candidate.getSimilarity() : 0.0;
+            if (similarity > first) {
+                second = first;
+                first = similarity;
+            } else if (similarity > second) {
+                second = similarity;
+            }
+        }
+        return first - second >= scoreGap;
+    }
+
+    /**
+     * 归一化后按空白分段提取字符二元组，中英文通用；单字符片段保留本身
+     */
+    private Set<String> bigrams(String text) {
+        Set<String> grams = new HashSet<>();
+        if (text == null) {
+            return grams;
+        }
+        for (String segment : simpleNormalizer.normalize(text).split(" ")) {
+            if (segment.length() == 1) {
+                grams.add(segment);
+            }
+            for (int i = 0; i + 1 < segment.length(); i++) {
+                grams.add(segment.substring(i, i + 2));
+            }
+        }
+        return grams;
+    }
+
+    private static long elapsedMs(long startNanos) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+    }
+}
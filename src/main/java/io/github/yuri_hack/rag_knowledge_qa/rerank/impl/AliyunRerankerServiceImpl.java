@@ -2,11 +2,16 @@ package io.github.yuri_hack.rag_knowledge_qa.rerank.impl;
 
 import com.alibaba.fastjson.JSONArray;
 import com.alibaba.fastjson.JSONObject;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.github.yuri_hack.rag_knowledge_qa.config.RerankConfig;
 import io.github.yuri_hack.rag_knowledge_qa.dto.internal.KnowledgeSearchResult;
 import io.github.yuri_hack.rag_knowledge_qa.dto.internal.RerankResult;
 import io.github.yuri_hack.rag_knowledge_qa.rerank.RerankerService;
+import io.github.yuri_hack.rag_knowledge_qa.util.SimpleNormalizer;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
@@ -15,26 +20,42 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
 
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
 
+import static io.github.yuri_hack.rag_knowledge_qa.util.HashUtils.sha256Hex;
+
 @Slf4j
 @Service
+@ConditionalOnProperty(prefix = "rag.rerank", name = "provider", havingValue = "aliyun", matchIfMissing = true)
 public class AliyunRerankerServiceImpl implements RerankerService {
 
     @Value("${aliyun.opensearch.api-key}")
     private String apiKey;
 
-    private static final String API_URL = "http://default-05lk.platform-cn-shanghai.opensearch.aliyuncs.com/v3/openapi/workspaces/default/ranker/ops-bge-reranker-larger";
-    private static final int MAX_RERANK_DOCUMENTS = 50;
-
     private final RestTemplate restTemplate;
-
-    public AliyunRerankerServiceImpl() {
-        this.restTemplate = new RestTemplate();
+    private final RerankConfig rerankConfig;
+    private final SimpleNormalizer simpleNormalizer;
+
+    // (归一化查询哈希:文档块ID) -> 重排序分数
+    private final Cache<String, Double> scoreCache;
+
+    public AliyunRerankerServiceImpl(RestTemplate rerankRestTemplate, RerankConfig rerankConfig, SimpleNormalizer simpleNormalizer) {
+        this.restTemplate = rerankRestTemplate;
+        this.rerankConfig = rerankConfig;
+        this.simpleNormalizer = simpleNormalizer;
+        RerankConfig.ScoreCache cache = rerankConfig.getCache();
+        this.scoreCache = cache.isEnabled()
+                ? Caffeine.newBuilder()
+                .maximumSize(cache.getMaxSize())
+                .expireAfterWrite(Duration.ofMinutes(cache.getTtlMinutes()))
+                .build()
+                : null;
     }
 
     /**
@@ -49,16 +70,44 @@ public class AliyunRerankerServiceImpl implements RerankerService {
         try {
             // 限制重排序的文档数量以避免API限制
             List<KnowledgeSearchResult> documentsToRerank = knowledgeResults.stream()
-                    .limit(MAX_RERANK_DOCUMENTS)
+                    .limit(rerankConfig.getMaxDocuments())
                     .collect(Collectors.toList());
 
-            List<String> documentContents = documentsToRerank.stream()
-                    .map(KnowledgeSearchResult::getContent)
-                    .collect(Collectors.toList());
-
-            List<Double> rerankScores = callRerankerApi(query, documentContents);
-
-            return buildRerankResults(documentsToRerank, rerankScores);
+            // 先取缓存分数，只将未命中的文档发送给API
+            String queryHash = sha256Hex(simpleNormalizer.normalize(query));
+            Double[] scores = new Double[documentsToRerank.size()];
+            List<Integer> missIndexes = new ArrayList<>();
+            for (int i = 0; i < documentsToRerank.size(); i++) {
+                String cacheKey = buildCacheKey(queryHash, documentsToRerank.get(i));
+                scores[i] = cacheKey != null ? scoreCache.getIfPresent(cacheKey) : null;
+                if (scores[i] == null) {
+                    missIndexes.add(i);
+                }
+            }
+
+            if (!missIndexes.isEmpty()) {
+                List<String> documentContents = missIndexes.stream()
+                        .map(i -> documentsToRerank.get(i).getContent())
+                        .collect(Collectors.toList());
+
+                List<Double> rerankScores = callRerankerApi(query, documentContents);
+                if (rerankScores.size() != missIndexes.size()) {
+                    throw new IllegalStateException("重排序分数数量与文档数量不一致: %d != %d"
+                            .formatted(rerankScores.size(), missIndexes.size()));
+                }
+
+                for (int j = 0; j < missIndexes.size(); j++) {
+                    int index = missIndexes.get(j);
+                    scores[index] = rerankScores.get(j);
+                    String cacheKey = buildCacheKey(queryHash, documentsToRerank.get(index));
+                    if (cacheKey != null) {
+                        scoreCache.put(cacheKey, scores[index]);
+                    }
+                }
+            }
+            log.debug("重排序分数缓存命中 {}/{}", documentsToRerank.size() - missIndexes.size(), documentsToRerank.size());
+
+            return buildRerankResults(documentsToRerank, Arrays.asList(scores));
 
         } catch (Exception e) {
             log.warn("重排序服务调用失败，返回原始排序结果: {}", e.getMessage());
@@ -66,6 +115,16 @@ public class AliyunRerankerServiceImpl implements RerankerService {
         }
     }
 
+    /**
+     * 构建分数缓存key，未启用缓存或缺少块ID时返回null
+     */
+    private String buildCacheKey(String queryHash, KnowledgeSearchResult result) {
+        if (scoreCache == null || result.getChunkId() == null) {
+            return null;
+        }
+        return queryHash + ":" + result.getChunkId();
+    }
+
     /**
      * 调用阿里云重排序API
      */
@@ -80,7 +139,7 @@ public class AliyunRerankerServiceImpl implements RerankerService {
         log.debug("调用阿里云重排序API，查询: {}, 文档数量: {}", query, documents.size());
 
         ResponseEntity<String> response = restTemplate.exchange(
-                API_URL, HttpMethod.POST, requestEntity, String.class);
+                rerankConfig.getApiUrl(), HttpMethod.POST, requestEntity, String.class);
 
         return parseRerankerResponse(response.getBody());
     }
@@ -0,0 +1,267 @@
+package io.github.yuri_hack.rag_knowledge_qa.rerank.impl;
+
+import ai.onnxruntime.OnnxTensor;
+import ai.onnxruntime.OrtEnvironment;
+import ai.onnxruntime.OrtException;
+import ai.onnxruntime.OrtSession;
+import io.github.yuri_hack.rag_knowledge_qa.config.RerankConfig;
+import io.github.yuri_hack.rag_knowledge_qa.dto.internal.KnowledgeSearchResult;
+import io.github.yuri_hack.rag_knowledge_qa.dto.internal.RerankResult;
+import io.github.yuri_hack.rag_knowledge_qa.rerank.RerankerService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
+
+/**
+ * 本地交叉编码器重排序
+ * 在进程内用 ONNX Runtime 运行使用 BERT WordPiece 词表的交叉编码器 (如 ms-marco-MiniLM、bert-base-chinese 微调模型)，
+ * 候选文档按批次在有界线程池中并行推理；队列已满或超时时取消未完成的批次并回退到向量相似度。
+ * 使用 SentencePiece 分词的模型 (如基于 XLM-RoBERTa 的 bge-reranker) 没有 vocab.txt 和 [CLS]/[SEP] 标记，不受支持
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "rag.rerank", name = "provider", havingValue = "local")
+public class LocalCrossEncoderRerankerServiceImpl implements RerankerService {
+
+    private static final String INPUT_IDS = "input_ids";
+    private static final String ATTENTION_MASK = "attention_mask";
+    private static final String TOKEN_TYPE_IDS = "token_type_ids";
+
+    private final RerankConfig rerankConfig;
+
+    private OrtEnvironment environment;
+    private OrtSession session;
+    private WordPieceTokenizer tokenizer;
+    private ThreadPoolExecutor executor;
+    // 部分导出的模型 (如 DistilBERT 结构) 没有 token_type_ids 输入
+    private boolean useTokenTypeIds;
+
+    @PostConstruct
+    public void init() throws OrtException, IOException {
+        RerankConfig.Local local = rerankConfig.getLocal();
+        tokenizer = new WordPieceTokenizer(Paths.get(local.getVocabPath()), local.isLowerCase());
+
+        environment = OrtEnvironment.getEnvironment();
+        try (OrtSession.SessionOptions options = new OrtSession.SessionOptions()) {
+            options.setIntraOpNumThreads(Math.max(1, local.getIntraOpThreads()));
+            options.setOptimizationLevel(OrtSession.SessionOptions.OptLevel.ALL_OPT);
+            session = environment.createSession(local.getModelPath(), options);
+        }
+        useTokenTypeIds = session.getInputNames().contains(TOKEN_TYPE_IDS);
+
+        int threads = Math.max(1, local.getThreads());
+        // 队列满时拒绝而不是在请求线程上推理，否则超时无法生效
+        executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, local.getQueueCapacity())),
+                new CustomizableThreadFactory("rerank-local-"),
+                new ThreadPoolExecutor.AbortPolicy());
+
+        log.info("本地重排序模型已加载: {}, 输入: {}", local.getModelPath(), session.getInputNames());
+    }
+
+    @PreDestroy
+    public void destroy() throws OrtException {
+        executor.shutdownNow();
+        session.close();
+    }
+
+    @Override
+    public List<RerankResult> rerankKnowledgeResults(String query, List<KnowledgeSearchResult> knowledgeResults) {
+        if (knowledgeResults == null || knowledgeResults.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        RerankConfig.Local local = rerankConfig.getLocal();
+        List<Future<double[]>> futures = new ArrayList<>();
+        try {
+            List<KnowledgeSearchResult> documentsToRerank = knowledgeResults.stream()
+                    .limit(rerankConfig.getMaxDocuments())
+                    .collect(Collectors.toList());
+
+            List<Integer> queryIds = tokenizer.encode(query);
+
+            // 按批次提交推理，结果按提交顺序拼接
+            int batchSize = Math.max(1, local.getBatchSize());
+            for (int start = 0; start < documentsToRerank.size(); start += batchSize) {
+                List<KnowledgeSearchResult> batch = documentsToRerank.subList(start, Math.min(documentsToRerank.size(), start + batchSize));
+                futures.add(executor.submit(() -> scoreBatch(queryIds, batch)));
+            }
+
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(local.getTimeoutMs());
+            List<Double> scores = new ArrayList<>(documentsToRerank.size());
+            for (Future<double[]> future : futures) {
+                for (double score : future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS)) {
+                    scores.add(score);
+                }
+            }
+
+            return buildRerankResults(documentsToRerank, scores);
+
+        } catch (RejectedExecutionException e) {
+            log.warn("本地重排序队列已满，返回原始排序结果");
+            return convertToRerankResults(knowledgeResults);
+        } catch (TimeoutException e) {
+            log.warn("本地重排序超时 ({} ms)，返回原始排序结果", local.getTimeoutMs());
+            return convertToRerankResults(knowledgeResults);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("本地重排序被中断，返回原始排序结果");
+            return convertToRerankResults(knowledgeResults);
+        } catch (Exception e) {
+            log.warn("本地重排序失败，返回原始排序结果: {}", e.getMessage());
+            return convertToRerankResults(knowledgeResults);
+        } finally {
+            cancelUnfinished(futures);
+        }
+    }
+
+    /**
+     * 取消没有读取结果的批次，排队中的批次不再执行并从队列移除
+     */
+    private void cancelUnfinished(List<Future<double[]>> futures) {
+        boolean cancelled = false;
+        for (Future<double[]> future : futures) {
+            if (!future.isDone()) {
+                cancelled |= future.cancel(true);
+            }
+        }
+        if (cancelled) {
+            executor.purge();
+        }
+    }
+
+    /**
+     * 对一批 (查询, 文档) 对推理相关性分数
+     */
+    private double[] scoreBatch(List<Integer> queryIds, List<KnowledgeSearchResult> batch) throws OrtException {
+        int maxLength = rerankConfig.getLocal().getMaxSequenceLength();
+        List<long[]> encoded = new ArrayList<>(batch.size());
+        List<Integer> segmentStarts = new ArrayList<>(batch.size());
+        int width = 0;
+        for (KnowledgeSearchResult result : batch) {
+            long[] ids = encodePair(queryIds, tokenizer.encode(result.getContent()), maxLength, segmentStarts);
+            encoded.add(ids);
+            width = Math.max(width, ids.length);
+        }
+
+        // 按批内最长序列补齐
+        long[][] inputIds = new long[batch.size()][width];
+        long[][] attentionMask = new long[batch.size()][width];
+        long[][] tokenTypeIds = new long[batch.size()][width];
+        for (int i = 0; i < encoded.size(); i++) {
+            long[] ids = encoded.get(i);
+            for (int j = 0; j < width; j++) {
+                inputIds[i][j] = j < ids.length ? ids[j] : tokenizer.padId;
+                attentionMask[i][j] = j < ids.length ? 1 : 0;
+                tokenTypeIds[i][j] = j < ids.length && j >= segmentStarts.get(i) ? 1 : 0;
+            }
+        }
+
+        Map<String, OnnxTensor> inputs = new HashMap<>();
+        try {
+            inputs.put(INPUT_IDS, OnnxTensor.createTensor(environment, inputIds));
+            inputs.put(ATTENTION_MASK, OnnxTensor.createTensor(environment, attentionMask));
+            if (useTokenTypeIds) {
+                inputs.put(TOKEN_TYPE_IDS, OnnxTensor.createTensor(environment, tokenTypeIds));
+            }
+
+            try (OrtSession.Result output = session.run(inputs)) {
+                float[][] logits = (float[][]) output.get(0).getValue();
+                double[] scores = new double[logits.length];
+                for (int i = 0; i < logits.length; i++) {
+                    scores[i] = toScore(logits[i]);
+                }
+                return scores;
+            }
+        } finally {
+            inputs.values().forEach(OnnxTensor::close);
+        }
+    }
+
+    /**
+     * 编码为 [CLS] query [SEP] document [SEP]，超长时优先截断较长的一段
+     *
+     * @param segmentStarts 记录第二段的起始位置
+     */
+    private long[] encodePair(List<Integer> queryIds, List<Integer> documentIds, int maxLength, List<Integer> segmentStarts) {
+        int budget = Math.max(2, maxLength - 3);
+        int queryLength = queryIds.size();
+        int documentLength = documentIds.size();
+        while (queryLength + documentLength > budget) {
+            if (queryLength > documentLength) {
+                queryLength--;
+            } else {
+                documentLength--;
+            }
+        }
+
+        long[] ids = new long[queryLength + documentLength + 3];
+        int position = 0;
+        ids[position++] = tokenizer.clsId;
+        for (int i = 0; i < queryLength; i++) {
+            ids[position++] = queryIds.get(i);
+        }
+        ids[position++] = tokenizer.sepId;
+        segmentStarts.add(position);
+        for (int i = 0; i < documentLength; i++) {
+            ids[position++] = documentIds.get(i);
+        }
+        ids[position] = tokenizer.sepId;
+        return ids;
+    }
+
+    /**
+     * 单输出取 sigmoid，二分类输出取正类的 softmax 概率
+     */
+    private static double toScore(float[] logits) {
+        if (logits.length == 1) {
+            return 1.0 / (1.0 + Math.exp(-logits[0]));
+        }
+        double max = Math.max(logits[0], logits[logits.length - 1]);
+        double positive = Math.exp(logits[logits.length - 1] - max);
+        double sum = 0;
+        for (float logit : logits) {
+            sum += Math.exp(logit - max);
+        }
+        return positive / sum;
+    }
+
+    /**
+     * 构建重排序结果，按分数降序排列
+     */
+    private List<RerankResult> buildRerankResults(List<KnowledgeSearchResult> knowledgeResults, List<Double> rerankScores) {
+        List<RerankResult> rerankResults = new ArrayList<>(knowledgeResults.size());
+        for (int i = 0; i < knowledgeResults.size(); i++) {
+            rerankResults.add(RerankResult.from(knowledgeResults.get(i), rerankScores.get(i)));
+        }
+        rerankResults.sort((a, b) -> Double.compare(b.getRerankScore(), a.getRerankScore()));
+
+        log.debug("本地重排序完成，处理了 {} 个文档", rerankResults.size());
+        return rerankResults;
+    }
+
+    private List<RerankResult> convertToRerankResults(List<KnowledgeSearchResult> knowledgeResults) {
+        return knowledgeResults.stream()
+                .map(result -> RerankResult.from(result, result.getSimilarity()))
+                .collect(Collectors.toList());
+    }
+}
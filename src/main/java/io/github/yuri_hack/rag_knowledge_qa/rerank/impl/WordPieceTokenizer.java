@@ -0,0 +1,180 @@
+package io.github.yuri_hack.rag_knowledge_qa.rerank.impl;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * BERT WordPiece 分词器
+ * 基础分词：清理控制字符、中日韩字符逐字切分、可选小写并去除重音、按空白和标点切分；
+ * 之后对每个词按词表做最长前缀匹配，续接片段使用 "##" 前缀
+ */
+class WordPieceTokenizer {
+
+    private static final String CONTINUATION_PREFIX = "##";
+    private static final int MAX_CHARS_PER_WORD = 100;
+
+    private final Map<String, Integer> vocab;
+    private final boolean lowerCase;
+
+    final int clsId;
+    final int sepId;
+    final int padId;
+    private final int unkId;
+
+    WordPieceTokenizer(Path vocabPath, boolean lowerCase) throws IOException {
+        this.vocab = loadVocab(vocabPath);
+        this.lowerCase = lowerCase;
+        this.clsId = requireToken("[CLS]");
+        this.sepId = requireToken("[SEP]");
+        this.padId = requireToken("[PAD]");
+        this.unkId = requireToken("[UNK]");
+    }
+
+    /**
+     * 编码为词表ID，不含特殊标记
+     */
+    List<Integer> encode(String text) {
+        List<Integer> ids = new ArrayList<>();
+        for (String word : basicTokenize(text)) {
+            wordPiece(word, ids);
+        }
+        return ids;
+    }
+
+    private List<String> basicTokenize(String text) {
+        List<String> words = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+
+        String source = lowerCase ? stripAccents(text.toLowerCase()) : text;
+        for (int i = 0; i < source.length(); ) {
+            int cp = source.codePointAt(i);
+            i += Character.charCount(cp);
+
+            if (cp == 0 || cp == 0xFFFD || isControl(cp)) {
+                continue;
+            }
+            if (Character.isWhitespace(cp) || Character.isSpaceChar(cp)) {
+                flush(current, words);
+            } else if (isCjk(cp) || isPunctuation(cp)) {
+                // 中日韩字符和标点各自成词
+                flush(current, words);
+                words.add(new String(Character.toChars(cp)));
+            } else {
+                current.appendCodePoint(cp);
+            }
+        }
+        flush(current, words);
+        return words;
+    }
+
+    private void wordPiece(String word, List<Integer> ids) {
+        if (word.codePointCount(0, word.length()) > MAX_CHARS_PER_WORD) {
+            ids.add(unkId);
+            return;
+        }
+
+        List<Integer> pieces = new ArrayList<>();
+        int start = 0;
+        while (start < word.length()) {
+            int end = word.length();
+            Integer pieceId = null;
+            while (start < end) {
+                String piece = word.substring(start, end);
+                if (start > 0) {
+                    piece = CONTINUATION_PREFIX + piece;
+                }
+                pieceId = vocab.get(piece);
+                if (pieceId != null) {
+                    break;
+                }
+                end = word.offsetByCodePoints(end, -1);
+            }
+            if (pieceId == null) {
+                // 任一片段无法匹配时整个词记为未知
+                ids.add(unkId);
+                return;
+            }
+            pieces.add(pieceId);
+            start = end;
+        }
+        ids.addAll(pieces);
+    }
+
+    private static void flush(StringBuilder current, List<String> words) {
+        if (!current.isEmpty()) {
+            words.add(current.toString());
+            current.setLength(0);
+        }
+    }
+
+    private static String stripAccents(String text) {
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        StringBuilder result = new StringBuilder(decomposed.length());
+        for (int i = 0; i < decomposed.length(); i++) {
+            char c = decomposed.charAt(i);
+            if (Character.getType(c) != Character.NON_SPACING_MARK) {
+                result.append(c);
+            }
+        }
+        return result.toString();
+    }
+
+    private static boolean isControl(int cp) {
+        if (cp == '\t' || cp == '\n' || cp == '\r') {
+            return false;
+        }
+        int type = Character.getType(cp);
+        return type == Character.CONTROL || type == Character.FORMAT;
+    }
+
+    private static boolean isPunctuation(int cp) {
+        if ((cp >= 33 && cp <= 47) || (cp >= 58 && cp <= 64) || (cp >= 91 && cp <= 96) || (cp >= 123 && cp <= 126)) {
+            return true;
+        }
+        return switch (Character.getType(cp)) {
+            case Character.CONNECTOR_PUNCTUATION, Character.DASH_PUNCTUATION, Character.START_PUNCTUATION,
+                 Character.END_PUNCTUATION, Character.INITIAL_QUOTE_PUNCTUATION, Character.FINAL_QUOTE_PUNCTUATION,
+                 Character.OTHER_PUNCTUATION -> true;
+            default -> false;
+        };
+    }
+
+    private static boolean isCjk(int cp) {
+        return (cp >= 0x4E00 && cp <= 0x9FFF)
+                || (cp >= 0x3400 && cp <= 0x4DBF)
+                || (cp >= 0x20000 && cp <= 0x2A6DF)
+                || (cp >= 0x2A700 && cp <= 0x2B73F)
+                || (cp >= 0x2B740 && cp <= 0x2B81F)
+                || (cp >= 0x2B820 && cp <= 0x2CEAF)
+                || (cp >= 0xF900 && cp <= 0xFAFF)
+                || (cp >= 0x2F800 && cp <= 0x2FA1F);
+    }
+
+    private int requireToken(String token) {
+        Integer id = vocab.get(token);
+        if (id == null) {
+            throw new IllegalStateException("词表缺少特殊标记: " + token + "，本地重排序仅支持 BERT WordPiece 词表的模型");
+        }
+        return id;
+    }
+
+    private static Map<String, Integer> loadVocab(Path vocabPath) throws IOException {
+        Map<String, Integer> vocab = new HashMap<>();
+        try (BufferedReader reader = Files.newBufferedReader(vocabPath, StandardCharsets.UTF_8)) {
+            String line;
+            int index = 0;
+            while ((line = reader.readLine()) != null) {
+                vocab.put(line.strip(), index++);
+            }
+        }
+        return vocab;
+    }
+}
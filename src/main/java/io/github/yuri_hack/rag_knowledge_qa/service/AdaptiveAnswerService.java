@@ -1,5 +1,6 @@
 package io.github.yuri_hack.rag_knowledge_qa.service;
 
+import io.github.yuri_hack.rag_knowledge_qa.context.QueryContext;
 import io.github.yuri_hack.rag_knowledge_qa.dto.response.StreamChatResponse;
 import reactor.core.publisher.Flux;
 
@@ -9,5 +10,5 @@ import reactor.core.publisher.Flux;
  */
 public interface AdaptiveAnswerService {
 
-    Flux<StreamChatResponse> handleAmbiguousQuery(String question);
+    Flux<StreamChatResponse> handleAmbiguousQuery(QueryContext context);
 }
@@ -1,5 +1,8 @@
 package io.github.yuri_hack.rag_knowledge_qa.service;
 
+import io.github.yuri_hack.rag_knowledge_qa.context.QueryContext;
+import reactor.core.publisher.Mono;
+
 public interface IntentService {
 
     /**
@@ -8,4 +11,19 @@ public interface IntentService {
      * @return [0-1] 分数越大和企业知识相关越高
      */
     Double getKnowledgeIntentScore(String question);
+
+    /**
+     * 非阻塞获取企业相关知识问答的分，等待模型响应时不占用调用线程
+     * @param question 用户问题
+     * @return [0-1] 分数越大和企业知识相关越高
+     */
+    Mono<Double> getKnowledgeIntentScoreAsync(String question);
+
+    /**
+     * 先用问题向量做本地分类，分数落在路由模糊区间或无法判断时再调用模型
+     * 本地分类阶段需要问题向量，可能阻塞，应在有界调度器上订阅
+     * @param context 查询上下文，复用其中的问题向量
+     * @return [0-1] 分数越大和企业知识相关越高
+     */
+    Mono<Double> getKnowledgeIntentScoreAsync(QueryContext context);
 }
@@ -1,9 +1,10 @@
 package io.github.yuri_hack.rag_knowledge_qa.service;
 
+import io.github.yuri_hack.rag_knowledge_qa.context.QueryContext;
 import io.github.yuri_hack.rag_knowledge_qa.dto.response.StreamChatResponse;
 import reactor.core.publisher.Flux;
 
 public interface RAGService {
 
-    Flux<StreamChatResponse> handleKnowledgeBaseQuery(String question);
+    Flux<StreamChatResponse> handleKnowledgeBaseQuery(QueryContext context);
 }
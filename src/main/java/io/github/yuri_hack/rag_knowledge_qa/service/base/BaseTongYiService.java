@@ -1,6 +1,5 @@
 package io.github.yuri_hack.rag_knowledge_qa.service.base;
 
-import com.alibaba.dashscope.aigc.generation.Generation;
 import com.alibaba.dashscope.aigc.generation.GenerationParam;
 import com.alibaba.dashscope.aigc.generation.GenerationResult;
 import com.alibaba.dashscope.aigc.generation.GenerationUsage;
@@ -12,14 +11,16 @@ import io.github.yuri_hack.rag_knowledge_qa.config.TongYiModelConfig;
 import io.github.yuri_hack.rag_knowledge_qa.dto.response.ChatResponse;
 import io.github.yuri_hack.rag_knowledge_qa.dto.response.StreamChatResponse;
 import io.github.yuri_hack.rag_knowledge_qa.dto.response.UsageInfo;
-import io.reactivex.Flowable;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
 
 @Slf4j
 @RequiredArgsConstructor
@@ -27,23 +28,29 @@ public abstract class BaseTongYiService {
 
     protected final TongYiBaseConfig tongYiBaseConfig;
     protected final PromptConfig promptConfig;
-    protected final Generation generation = new Generation();
+    protected final TongYiModelClient modelClient;
 
     /**
-     * 通用的非流式生成方法
+     * 通用的非流式生成方法，阻塞等待结果
      */
     protected ChatResponse generate(List<Message> messages, TongYiModelConfig modelConfig) {
-        GenerationParam param = buildGenerationParam(messages, modelConfig, false);
-        try {
-            GenerationResult generationResult = generation.call(param);
-            return parseResponse(generationResult);
-        } catch (Exception e) {
-            log.error("调用通义千问API失败", e);
-            return ChatResponse.builder()
-                    .success(false)
-                    .errorMessage("服务调用失败: " + e.getMessage())
-                    .build();
-        }
+        return generateAsync(messages, modelConfig).block();
+    }
+
+    /**
+     * 通用的非阻塞生成方法，失败、超时或被隔离舱拒绝时返回失败响应
+     */
+    protected Mono<ChatResponse> generateAsync(List<Message> messages, TongYiModelConfig modelConfig) {
+        return Mono.fromCallable(() -> buildGenerationParam(messages, modelConfig, false))
+                .flatMap(param -> modelClient.call(param, modelConfig))
+                .map(this::parseResponse)
+                .onErrorResume(e -> {
+                    log.error("调用通义千问API失败: {}", e.toString());
+                    return Mono.just(ChatResponse.builder()
+                            .success(false)
+                            .errorMessage("服务调用失败: " + e.getMessage())
+                            .build());
+                });
     }
 
     /**
@@ -52,9 +59,8 @@ public abstract class BaseTongYiService {
     protected Flux<StreamChatResponse> generateStream(List<Message> messages, TongYiModelConfig modelConfig) {
         try {
             GenerationParam param = buildGenerationParam(messages, modelConfig, true);
-            Flowable<GenerationResult> flowable = generation.streamCall(param);
 
-            return Flux.from(flowable)
+            return modelClient.streamCall(param, modelConfig)
                     .map(this::convertToStreamResponse)
                     .onErrorResume(throwable -> {
                         log.error("流式调用失败", throwable);
@@ -67,6 +73,33 @@ public abstract class BaseTongYiService {
         }
     }
 
+    /**
+     * 累积流式答案，流正常结束、没有错误响应且答案非空时回调完整答案，用于写入缓存
+     * 调用失败、超时或被隔离舱拒绝时错误会转成带 errorMessage 的响应并正常结束，此时不回调
+     */
+    protected Flux<StreamChatResponse> onAnswerComplete(Flux<StreamChatResponse> stream, Consumer<String> onAnswer) {
+        return Flux.defer(() -> {
+            // 每次订阅独立累积
+            StringBuilder answer = new StringBuilder();
+            AtomicBoolean failed = new AtomicBoolean();
+            return stream
+                    .doOnNext(response -> {
+                        if (StringUtils.isNotEmpty(response.getErrorMessage())) {
+                            failed.set(true);
+                        } else if (response.getContent() != null) {
+                            answer.append(response.getContent());
+                        }
+                    })
+                    .doOnComplete(() -> {
+                        if (failed.get() || StringUtils.isBlank(answer)) {
+                            log.warn("答案生成失败或为空，不写入缓存");
+                            return;
+                        }
+                        onAnswer.accept(answer.toString());
+                    });
+        });
+    }
+
     /**
      * 构建消息列表
      */
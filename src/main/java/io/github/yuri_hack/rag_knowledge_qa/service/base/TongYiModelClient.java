@@ -0,0 +1,116 @@
+package io.github.yuri_hack.rag_knowledge_qa.service.base;
+
+import com.alibaba.dashscope.aigc.generation.Generation;
+import com.alibaba.dashscope.aigc.generation.GenerationParam;
+import com.alibaba.dashscope.aigc.generation.GenerationResult;
+import com.alibaba.dashscope.common.ResultCallback;
+import com.alibaba.dashscope.protocol.ConnectionConfigurations;
+import com.alibaba.dashscope.utils.Constants;
+import io.github.yuri_hack.rag_knowledge_qa.config.TongYiBaseConfig;
+import io.github.yuri_hack.rag_knowledge_qa.config.TongYiModelConfig;
+import io.github.yuri_hack.rag_knowledge_qa.exception.ModelBulkheadFullException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+
+/**
+ * 通义千问共享调用客户端
+ * 全局只有一个 Generation 实例，底层 OkHttp 连接池和异步调度由所有服务共用；
+ * 非流式调用走 SDK 的回调接口，不占用调用线程。
+ * 每个 TongYiModelConfig 有独立的并发隔离舱，进行中的调用达到上限时立即拒绝，
+ * 避免慢模型拖住其它调用
+ */
+@Slf4j
+@Component
+public class TongYiModelClient {
+
+    private final Generation generation;
+
+    // 按配置对象区分隔离舱，参数相同的不同用途配置互不影响
+    private final Map<TongYiModelConfig, Semaphore> bulkheads = Collections.synchronizedMap(new IdentityHashMap<>());
+
+    public TongYiModelClient(TongYiBaseConfig tongYiBaseConfig) {
+        // SDK 在首次请求时按该配置创建全局 OkHttp 客户端，必须在任何调用之前设置
+        TongYiBaseConfig.Client client = tongYiBaseConfig.getClient();
+        Constants.connectionConfigurations = ConnectionConfigurations.builder()
+                .connectTimeout(Duration.ofMillis(client.getConnectTimeoutMs()))
+                .readTimeout(Duration.ofMillis(client.getReadTimeoutMs()))
+                .writeTimeout(Duration.ofMillis(client.getWriteTimeoutMs()))
+                .connectionPoolSize(client.getConnectionPoolSize())
+                .connectionIdleTimeout(Duration.ofSeconds(client.getConnectionIdleTimeoutSeconds()))
+                .maximumAsyncRequests(client.getMaxAsyncRequests())
+                .maximumAsyncRequestsPerHost(client.getMaxAsyncRequestsPerHost())
+                .build();
+        this.generation = new Generation();
+    }
+
+    /**
+     * 非流式调用，超过模型配置的截止时间后以 TimeoutException 结束
+     */
+    public Mono<GenerationResult> call(GenerationParam param, TongYiModelConfig modelConfig) {
+        return Mono.defer(() -> {
+            Semaphore bulkhead = acquire(modelConfig);
+            return Mono.<GenerationResult>create(sink -> {
+                        try {
+                            generation.call(param, new ResultCallback<>() {
+                                @Override
+                                public void onEvent(GenerationResult result) {
+                                    sink.success(result);
+                                }
+
+                                @Override
+                                public void onComplete() {
+                                    sink.success();
+                                }
+
+                                @Override
+                                public void onError(Exception e) {
+                                    sink.error(e);
+                                }
+                            });
+                        } catch (Exception e) {
+                            sink.error(e);
+                        }
+                    })
+                    .timeout(Duration.ofMillis(modelConfig.getTimeoutMs()))
+                    .doFinally(signal -> bulkhead.release());
+        });
+    }
+
+    /**
+     * 流式调用，整个流结束或取消前占用隔离舱名额；相邻两段输出间隔超过截止时间时以 TimeoutException 结束
+     */
+    public Flux<GenerationResult> streamCall(GenerationParam param, TongYiModelConfig modelConfig) {
+        return Flux.defer(() -> {
+            Semaphore bulkhead = acquire(modelConfig);
+            try {
+                return Flux.from(generation.streamCall(param))
+                        .timeout(Duration.ofMillis(modelConfig.getTimeoutMs()))
+                        .doFinally(signal -> bulkhead.release());
+            } catch (Exception e) {
+                bulkhead.release();
+                return Flux.error(e);
+            }
+        });
+    }
+
+    /**
+     * 占用一个隔离舱名额，已满时抛出 ModelBulkheadFullException
+     */
+    private Semaphore acquire(TongYiModelConfig modelConfig) {
+        Semaphore bulkhead = bulkheads.computeIfAbsent(modelConfig,
+                config -> new Semaphore(Math.max(1, config.getMaxConcurrency())));
+        if (!bulkhead.tryAcquire()) {
+            log.warn("模型 {} 并发调用已达上限 {}，拒绝本次调用", modelConfig.getModel(), modelConfig.getMaxConcurrency());
+            throw new ModelBulkheadFullException("模型调用繁忙，请稍后重试: " + modelConfig.getModel());
+        }
+        return bulkhead;
+    }
+}
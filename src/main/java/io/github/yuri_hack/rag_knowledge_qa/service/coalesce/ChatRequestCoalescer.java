@@ -0,0 +1,165 @@
+package io.github.yuri_hack.rag_knowledge_qa.service.coalesce;
+
+import io.github.yuri_hack.rag_knowledge_qa.config.CoalescingConfig;
+import io.github.yuri_hack.rag_knowledge_qa.dto.response.StreamChatResponse;
+import io.github.yuri_hack.rag_knowledge_qa.util.StreamUtils;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import redis.clients.jedis.JedisPooled;
+import redis.clients.jedis.params.SetParams;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+import static io.github.yuri_hack.rag_knowledge_qa.util.HashUtils.sha256Hex;
+
+/**
+ * 相同问题的并发请求合并
+ * 同一合并key的第一个请求执行完整流程，并发的重复请求订阅同一条可重放的共享流，
+ * 流结束时在结束信号送达订阅者之前移除，全部订阅者取消时同样移除；开启集群合并时，未取得 Redis 租约的节点轮询持有节点发布的答案
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ChatRequestCoalescer {
+
+    // 仅在租约仍属于自己时删除
+    private static final String RELEASE_SCRIPT =
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end";
+
+    private final CoalescingConfig coalescingConfig;
+    private final JedisPooled jedisPooled;
+
+    private final Map<String, Flux<StreamChatResponse>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * 合并执行
+     *
+     * @param key      合并key，一般为归一化后的问题
+     * @param pipeline 完整的问答流程
+     */
+    public Flux<StreamChatResponse> coalesce(String key, Supplier<Flux<StreamChatResponse>> pipeline) {
+        if (!coalescingConfig.isEnabled() || StringUtils.isBlank(key)) {
+            return pipeline.get();
+        }
+
+        AtomicBoolean created = new AtomicBoolean();
+        Flux<StreamChatResponse> shared = inFlight.computeIfAbsent(key, k -> {
+            created.set(true);
+            AtomicReference<Flux<StreamChatResponse>> self = new AtomicReference<>();
+            // 先移除再下发结束信号：否则结束回调中到达的重复请求会拿到已结束的共享流，refCount 重新订阅执行流程且不在合并表中
+            Flux<StreamChatResponse> flux = Flux.defer(() -> clusterAware(k, pipeline))
+                    .doOnTerminate(() -> inFlight.remove(k, self.get()))
+                    .doOnCancel(() -> inFlight.remove(k, self.get()))
+                    .replay()
+                    .refCount();
+            self.set(flux);
+            return flux;
+        });
+
+        if (!created.get()) {
+            log.info("合并相同问题的并发请求: key={}", key);
+        }
+        return shared;
+    }
+
+    /**
+     * 集群合并：取得租约的节点执行流程并发布答案，其它节点等待答案，租约释放仍无答案时自行执行
+     */
+    private Flux<StreamChatResponse> clusterAware(String key, Supplier<Flux<StreamChatResponse>> pipeline) {
+        if (!coalescingConfig.isClusterEnabled()) {
+            return pipeline.get();
+        }
+
+        String hash = sha256Hex(key);
+        String leaseKey = coalescingConfig.getKeyPrefix() + "lease:" + hash;
+        String resultKey = coalescingConfig.getKeyPrefix() + "result:" + hash;
+        String token = UUID.randomUUID().toString();
+
+        boolean leader;
+        try {
+            leader = "OK".equals(jedisPooled.set(leaseKey, token,
+                    SetParams.setParams().nx().px(coalescingConfig.getLeaseMs())));
+        } catch (Exception e) {
+            log.warn("获取请求合并租约失败，直接执行: {}", e.getMessage());
+            return pipeline.get();
+        }
+
+        if (leader) {
+            return publishing(pipeline.get(), leaseKey, resultKey, token);
+        }
+
+        log.info("其它节点正在处理相同问题，等待其答案: key={}", key);
+        return awaitResult(leaseKey, resultKey)
+                .flatMapMany(StreamUtils::str2StreamChatResponse)
+                .switchIfEmpty(Flux.defer(pipeline));
+    }
+
+    /**
+     * 执行流程并累积答案，正常完成时发布答案，结束后释放租约
+     */
+    private Flux<StreamChatResponse> publishing(Flux<StreamChatResponse> source, String leaseKey, String resultKey, String token) {
+        StringBuilder answer = new StringBuilder();
+        AtomicBoolean failed = new AtomicBoolean();
+        return source
+                .doOnNext(response -> {
+                    if (StringUtils.isNotEmpty(response.getErrorMessage())) {
+                        failed.set(true);
+                    } else if (response.getContent() != null) {
+                        answer.append(response.getContent());
+                    }
+                })
+                .doOnComplete(() -> {
+                    if (!failed.get() && !answer.isEmpty()) {
+                        try {
+                            jedisPooled.set(resultKey, answer.toString(),
+                                    SetParams.setParams().px(coalescingConfig.getResultTtlMs()));
+                        } catch (Exception e) {
+                            log.warn("发布合并请求答案失败: {}", e.getMessage());
+                        }
+                    }
+                })
+                .doFinally(signal -> {
+                    try {
+                        jedisPooled.eval(RELEASE_SCRIPT, List.of(leaseKey), List.of(token));
+                    } catch (Exception e) {
+                        log.warn("释放请求合并租约失败: {}", e.getMessage());
+                    }
+                });
+    }
+
+    /**
+     * 轮询持有节点发布的答案；租约已释放或超时仍无答案时返回空
+     */
+    private Mono<String> awaitResult(String leaseKey, String resultKey) {
+        return Mono.fromCallable(() -> jedisPooled.get(resultKey))
+                .subscribeOn(Schedulers.boundedElastic())
+                .switchIfEmpty(Mono.defer(() -> jedisPooled.exists(leaseKey)
+                        ? Mono.empty()
+                        // 租约释放与答案发布之间可能交错，再读一次答案
+                        : Mono.justOrEmpty(jedisPooled.get(resultKey)).switchIfEmpty(Mono.error(new LeaseReleasedException()))))
+                .repeatWhenEmpty(repeats -> repeats.delayElements(Duration.ofMillis(coalescingConfig.getPollIntervalMs())))
+                .timeout(Duration.ofMillis(coalescingConfig.getLeaseMs()))
+                .onErrorResume(e -> {
+                    log.debug("等待其它节点答案结束，改为本节点执行: {}", e.toString());
+                    return Mono.empty();
+                });
+    }
+
+    private static class LeaseReleasedException extends RuntimeException {
+        LeaseReleasedException() {
+            super("租约已释放且没有发布答案", null, false, false);
+        }
+    }
+}
@@ -5,19 +5,21 @@ import io.github.yuri_hack.rag_knowledge_qa.cache.CacheService;
 import io.github.yuri_hack.rag_knowledge_qa.cache.SemanticAnswerCacheService;
 import io.github.yuri_hack.rag_knowledge_qa.config.PromptConfig;
 import io.github.yuri_hack.rag_knowledge_qa.config.TongYiBaseConfig;
+import io.github.yuri_hack.rag_knowledge_qa.context.QueryContext;
 import io.github.yuri_hack.rag_knowledge_qa.dto.internal.KnowledgeSearchResult;
+import io.github.yuri_hack.rag_knowledge_qa.dto.internal.PackedContext;
 import io.github.yuri_hack.rag_knowledge_qa.dto.request.SearchRequest;
 import io.github.yuri_hack.rag_knowledge_qa.dto.response.StreamChatResponse;
+import io.github.yuri_hack.rag_knowledge_qa.knowledge.ContextPacker;
 import io.github.yuri_hack.rag_knowledge_qa.knowledge.KnowledgeBaseService;
 import io.github.yuri_hack.rag_knowledge_qa.service.AdaptiveAnswerService;
 import io.github.yuri_hack.rag_knowledge_qa.service.base.BaseTongYiService;
+import io.github.yuri_hack.rag_knowledge_qa.service.base.TongYiModelClient;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
 
 import java.util.List;
-import java.util.concurrent.atomic.AtomicReference;
-import java.util.stream.Collectors;
 
 @Slf4j
 @Service
@@ -26,44 +28,38 @@ public class AdaptiveAnswerServiceImpl extends BaseTongYiService implements Adap
     private final KnowledgeBaseService knowledgeBaseService;
     private final SemanticAnswerCacheService semanticAnswerCacheService;
     private final CacheService cacheService;
+    private final ContextPacker contextPacker;
 
     public AdaptiveAnswerServiceImpl(TongYiBaseConfig tongYiBaseConfig, PromptConfig promptConfig,
-                                     KnowledgeBaseService knowledgeBaseService,
-                                     SemanticAnswerCacheService semanticAnswerCacheService, CacheService cacheService) {
-        super(tongYiBaseConfig, promptConfig);
+                                     TongYiModelClient modelClient, KnowledgeBaseService knowledgeBaseService,
+                                     SemanticAnswerCacheService semanticAnswerCacheService, CacheService cacheService,
+                                     ContextPacker contextPacker) {
+        super(tongYiBaseConfig, promptConfig, modelClient);
         this.knowledgeBaseService = knowledgeBaseService;
         this.semanticAnswerCacheService = semanticAnswerCacheService;
         this.cacheService = cacheService;
+        this.contextPacker = contextPacker;
     }
 
     @Override
-    public Flux<StreamChatResponse> handleAmbiguousQuery(String question) {
-        AtomicReference<StringBuilder> fullAnswer = new AtomicReference<>(new StringBuilder());
+    public Flux<StreamChatResponse> handleAmbiguousQuery(QueryContext queryContext) {
+        String question = queryContext.getQuestion();
 
         // 构造prompt
-        List<KnowledgeSearchResult> results = knowledgeBaseService.searchKnowledge(SearchRequest.of(question));
-        String context = results.stream()
-                .map(KnowledgeSearchResult::getContent)
-                .collect(Collectors.joining("\n\n"));
-        String prompt = promptConfig.getAdaptiveAnswerPrompt().replace("{retrieved_docs}", context);
+        List<KnowledgeSearchResult> results = knowledgeBaseService.searchKnowledge(SearchRequest.of(question), queryContext);
+        PackedContext packedContext = contextPacker.pack(results, tongYiBaseConfig.getAdaptiveModelConfig());
+        List<Long> chunkIds = packedContext.getChunkIds();
+        String prompt = promptConfig.getAdaptiveAnswerPrompt().replace("{retrieved_docs}", packedContext.getContent());
 
         // 构造message
         List<Message> messages = buildMessages(prompt, question);
 
         // 生成答案
-        return generateStream(messages, tongYiBaseConfig.getAdaptiveModelConfig())
-                .map(streamResponse -> {
-                    if (streamResponse.getContent() != null) {
-                        fullAnswer.get().append(streamResponse.getContent());
-                    }
-                    return streamResponse;
-                })
-                .doOnComplete(() -> {
-                    // 缓存结果
-                    String answer = fullAnswer.get().toString();
-                    cacheService.cacheExactAnswer(question, answer);
-                    semanticAnswerCacheService.cacheSemanticAnswer(question, answer);
-                    log.info("完整RAG流程完成，缓存已更新");
-                });
+        return onAnswerComplete(generateStream(messages, tongYiBaseConfig.getAdaptiveModelConfig()), answer -> {
+            // 缓存结果
+            cacheService.cacheExactAnswer(question, answer, chunkIds);
+            semanticAnswerCacheService.cacheSemanticAnswer(queryContext, answer, chunkIds);
+            log.info("完整RAG流程完成，缓存已提交");
+        });
     }
 }
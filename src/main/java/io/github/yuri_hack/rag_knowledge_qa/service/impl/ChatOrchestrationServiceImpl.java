@@ -4,6 +4,9 @@ import io.github.yuri_hack.rag_knowledge_qa.cache.CacheService;
 import io.github.yuri_hack.rag_knowledge_qa.cache.SemanticAnswerCacheService;
 import io.github.yuri_hack.rag_knowledge_qa.cache.model.SemanticAnswerCacheHit;
 import io.github.yuri_hack.rag_knowledge_qa.config.RoutingConfig;
+import io.github.yuri_hack.rag_knowledge_qa.config.RoutingProbeConfig;
+import io.github.yuri_hack.rag_knowledge_qa.context.QueryContext;
+import io.github.yuri_hack.rag_knowledge_qa.context.QueryContextFactory;
 import io.github.yuri_hack.rag_knowledge_qa.dto.response.StreamChatResponse;
 import io.github.yuri_hack.rag_knowledge_qa.knowledge.KnowledgeBaseService;
 import io.github.yuri_hack.rag_knowledge_qa.service.ChatOrchestrationService;
@@ -11,13 +14,20 @@ import io.github.yuri_hack.rag_knowledge_qa.service.DailyChatService;
 import io.github.yuri_hack.rag_knowledge_qa.service.AdaptiveAnswerService;
 import io.github.yuri_hack.rag_knowledge_qa.service.IntentService;
 import io.github.yuri_hack.rag_knowledge_qa.service.RAGService;
+import io.github.yuri_hack.rag_knowledge_qa.service.coalesce.ChatRequestCoalescer;
+import io.github.yuri_hack.rag_knowledge_qa.util.RuleNormalizer;
 import io.github.yuri_hack.rag_knowledge_qa.util.StreamUtils;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
 
+import java.time.Duration;
 import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.function.UnaryOperator;
 
 @Slf4j
 @Service
@@ -31,7 +41,12 @@ public class ChatOrchestrationServiceImpl implements ChatOrchestrationService {
     private final SemanticAnswerCacheService semanticAnswerCacheService;
     private final KnowledgeBaseService knowledgeBaseService;
     private final RoutingConfig routingConfig;
+    private final RoutingProbeConfig routingProbeConfig;
+    private final Scheduler probeScheduler;
     private final AdaptiveAnswerService adaptiveAnswerService;
+    private final QueryContextFactory queryContextFactory;
+    private final ChatRequestCoalescer chatRequestCoalescer;
+    private final RuleNormalizer ruleNormalizer;
 
     @Override
     public Flux<StreamChatResponse> chatStream(String question) {
@@ -42,28 +57,143 @@ public class ChatOrchestrationServiceImpl implements ChatOrchestrationService {
             return StreamUtils.str2StreamChatResponse(exactAnswer.get());
         }
 
-        // 2. 检查语义答案缓存
-        Optional<SemanticAnswerCacheHit> semanticAnswerHit = semanticAnswerCacheService.searchSimilarAnswers(question);
-        if (semanticAnswerHit.isPresent()) {
-            log.info("语义答案缓存命中: question={}, 相似度={}", question, semanticAnswerHit.get().getSimilarity());
+        // 2. 规则归一化后相同的并发问题只执行一次完整流程，其余请求共享同一条输出流
+        return chatRequestCoalescer.coalesce(ruleNormalizer.normalize(question), () -> {
+            // 本次请求内共享归一化结果和问题向量
+            QueryContext context = queryContextFactory.create(question);
 
-            // 回写精确缓存
-            String answer = semanticAnswerHit.get().getAnswer();
-            exactCacheService.cacheExactAnswer(question, answer);
+            // 3. 并发探测语义答案缓存、知识相似度和意图，得到结论后立即路由
+            // 决定路由的探测结果可能在计时器线程或 HTTP 回调线程上发出，
+            // 路由后的检索、重排序和归一化都是阻塞调用，切回探测调度器执行
+            return resolveRoute(context)
+                    .publishOn(probeScheduler)
+                    .flatMapMany(state -> dispatch(state, context));
+        });
+    }
+
+    /**
+     * 并发执行各路由探测，任一时刻足以决定路由时取消仍在进行的探测
+     */
+    private Mono<RoutingState> resolveRoute(QueryContext context) {
+        Mono<UnaryOperator<RoutingState>> answerProbe = probe("semantic-answer",
+                () -> {
+                    SemanticAnswerCacheHit hit = semanticAnswerCacheService.searchSimilarAnswers(context).orElse(null);
+                    return state -> state.withAnswer(hit);
+                },
+                routingProbeConfig.getAnswerCacheTimeoutMs(),
+                state -> state.withAnswer(null));
+
+        Mono<UnaryOperator<RoutingState>> similarityProbe = probe("similarity",
+                () -> {
+                    double similarity = knowledgeBaseService.getMaxSimilarity(context);
+                    return state -> state.withSimilarity(similarity);
+                },
+                routingProbeConfig.getSimilarityTimeoutMs(),
+                state -> state.withSimilarity(0.0));
+
+        // 本地分类在探测调度器上执行，需要回退模型时等待响应不占用线程
+        Mono<UnaryOperator<RoutingState>> intentProbe = probe("intent",
+                intentService.getKnowledgeIntentScoreAsync(context)
+                        .<UnaryOperator<RoutingState>>map(intentScore -> state -> state.withIntentScore(intentScore))
+                        .subscribeOn(probeScheduler),
+                routingProbeConfig.getIntentTimeoutMs(),
+                state -> state.withIntentScore(0.0));
+
+        return Flux.merge(answerProbe, similarityProbe, intentProbe)
+                .scan(RoutingState.EMPTY, (state, update) -> update.apply(state))
+                .filter(state -> state.isDecided(routingConfig.getIntentHigh()))
+                .next();
+    }
+
+    /**
+     * 根据探测结果路由到不同的服务
+     */
+    private Flux<StreamChatResponse> dispatch(RoutingState state, QueryContext context) {
+        String question = context.getQuestion();
+
+        if (state.answerHit() != null) {
+            log.info("语义答案缓存命中: question={}, 相似度={}", question, state.answerHit().getSimilarity());
+
+            // 回写精确缓存，沿用原答案的来源块以便随文档删除失效
+            String answer = state.answerHit().getAnswer();
+            exactCacheService.cacheExactAnswer(question, answer, state.answerHit().getSourceChunkIds());
 
             return StreamUtils.str2StreamChatResponse(answer);
         }
 
-        // 3. 意图识别
-        double intentScore = intentService.getKnowledgeIntentScore(question);
-        double similarity = knowledgeBaseService.getMaxSimilarity(question);
-        // 根据意图路由到不同的服务
+        double intentScore = state.intentScore() != null ? state.intentScore() : 0.0;
+        double similarity = state.similarity() != null ? state.similarity() : 0.0;
+        log.debug("路由探测结果: question={}, intent={}, similarity={}", question, state.intentScore(), state.similarity());
+
         if (intentScore > routingConfig.getIntentHigh() || similarity > routingConfig.getIntentHigh()) {
-            return ragService.handleKnowledgeBaseQuery(question);
+            return ragService.handleKnowledgeBaseQuery(context);
         } else if (intentScore < routingConfig.getIntentLow() && similarity < routingConfig.getIntentLow()) {
             return dailyChatService.handleDailyChat(question);
         } else {
-            return adaptiveAnswerService.handleAmbiguousQuery(question);
+            return adaptiveAnswerService.handleAmbiguousQuery(context);
+        }
+    }
+
+    /**
+     * 在探测调度器上执行单个阻塞探测，超时或失败时使用降级结果
+     */
+    private Mono<UnaryOperator<RoutingState>> probe(String name, Callable<UnaryOperator<RoutingState>> call,
+                                                    long timeoutMs, UnaryOperator<RoutingState> fallback) {
+        return probe(name, Mono.fromCallable(call).subscribeOn(probeScheduler), timeoutMs, fallback);
+    }
+
+    /**
+     * 执行单个探测，超时或失败时使用降级结果
+     */
+    private Mono<UnaryOperator<RoutingState>> probe(String name, Mono<UnaryOperator<RoutingState>> call,
+                                                    long timeoutMs, UnaryOperator<RoutingState> fallback) {
+        return call
+                .timeout(Duration.ofMillis(timeoutMs))
+                .elapsed()
+                .map(elapsed -> {
+                    log.debug("路由探测 {} 完成, 耗时 {} ms", name, elapsed.getT1());
+                    return elapsed.getT2();
+                })
+                .onErrorResume(e -> {
+                    log.warn("路由探测 {} 失败或超时，使用降级结果: {}", name, e.toString());
+                    return Mono.just(fallback);
+                });
+    }
+
+    /**
+     * 路由探测的累积状态，null表示对应探测尚未返回
+     */
+    private record RoutingState(boolean answerResolved, SemanticAnswerCacheHit answerHit,
+                                Double similarity, Double intentScore) {
+
+        static final RoutingState EMPTY = new RoutingState(false, null, null, null);
+
+        RoutingState withAnswer(SemanticAnswerCacheHit hit) {
+            return new RoutingState(true, hit, similarity, intentScore);
+        }
+
+        RoutingState withSimilarity(double value) {
+            return new RoutingState(answerResolved, answerHit, value, intentScore);
+        }
+
+        RoutingState withIntentScore(double value) {
+            return new RoutingState(answerResolved, answerHit, similarity, value);
+        }
+
+        /**
+         * 答案缓存命中即可返回；否则需等缓存未命中确认后，
+         * 任一分数超过高阈值即走RAG，或两个分数都已返回
+         */
+        boolean isDecided(double highThreshold) {
+            if (answerHit != null) {
+                return true;
+            }
+            if (!answerResolved) {
+                return false;
+            }
+            boolean highSignal = (similarity != null && similarity > highThreshold)
+                    || (intentScore != null && intentScore > highThreshold);
+            return highSignal || (similarity != null && intentScore != null);
         }
     }
-}
\ No newline at end of file
+}
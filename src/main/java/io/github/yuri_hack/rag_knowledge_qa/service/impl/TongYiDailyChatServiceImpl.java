@@ -6,6 +6,7 @@ import io.github.yuri_hack.rag_knowledge_qa.config.TongYiBaseConfig;
 import io.github.yuri_hack.rag_knowledge_qa.dto.response.StreamChatResponse;
 import io.github.yuri_hack.rag_knowledge_qa.service.DailyChatService;
 import io.github.yuri_hack.rag_knowledge_qa.service.base.BaseTongYiService;
+import io.github.yuri_hack.rag_knowledge_qa.service.base.TongYiModelClient;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
 
@@ -14,8 +15,8 @@ import java.util.List;
 @Service
 public class TongYiDailyChatServiceImpl extends BaseTongYiService implements DailyChatService {
 
-    public TongYiDailyChatServiceImpl(TongYiBaseConfig tongYiBaseConfig, PromptConfig promptConfig) {
-        super(tongYiBaseConfig, promptConfig);
+    public TongYiDailyChatServiceImpl(TongYiBaseConfig tongYiBaseConfig, PromptConfig promptConfig, TongYiModelClient modelClient) {
+        super(tongYiBaseConfig, promptConfig, modelClient);
     }
 
     @Override
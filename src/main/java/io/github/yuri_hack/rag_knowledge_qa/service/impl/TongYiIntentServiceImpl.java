@@ -2,12 +2,17 @@ package io.github.yuri_hack.rag_knowledge_qa.service.impl;
 
 import com.alibaba.dashscope.common.Message;
 import io.github.yuri_hack.rag_knowledge_qa.config.PromptConfig;
+import io.github.yuri_hack.rag_knowledge_qa.config.RoutingConfig;
 import io.github.yuri_hack.rag_knowledge_qa.config.TongYiBaseConfig;
+import io.github.yuri_hack.rag_knowledge_qa.context.QueryContext;
 import io.github.yuri_hack.rag_knowledge_qa.dto.response.ChatResponse;
+import io.github.yuri_hack.rag_knowledge_qa.intent.LocalIntentClassifier;
 import io.github.yuri_hack.rag_knowledge_qa.service.IntentService;
 import io.github.yuri_hack.rag_knowledge_qa.service.base.BaseTongYiService;
+import io.github.yuri_hack.rag_knowledge_qa.service.base.TongYiModelClient;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
 
 import java.util.List;
 import java.util.regex.Matcher;
@@ -20,21 +25,49 @@ public class TongYiIntentServiceImpl extends BaseTongYiService implements Intent
     // 用于提取数字的正则表达式
     private static final Pattern NUMBER_PATTERN = Pattern.compile("0\\.\\d+|1\\.0");
 
-    public TongYiIntentServiceImpl(TongYiBaseConfig tongYiBaseConfig, PromptConfig promptConfig) {
-        super(tongYiBaseConfig, promptConfig);
+    private final LocalIntentClassifier localIntentClassifier;
+    private final RoutingConfig routingConfig;
+
+    public TongYiIntentServiceImpl(TongYiBaseConfig tongYiBaseConfig, PromptConfig promptConfig, TongYiModelClient modelClient,
+                                   LocalIntentClassifier localIntentClassifier, RoutingConfig routingConfig) {
+        super(tongYiBaseConfig, promptConfig, modelClient);
+        this.localIntentClassifier = localIntentClassifier;
+        this.routingConfig = routingConfig;
     }
 
     @Override
     public Double getKnowledgeIntentScore(String question) {
+        return getKnowledgeIntentScoreAsync(question).block();
+    }
+
+    @Override
+    public Mono<Double> getKnowledgeIntentScoreAsync(String question) {
         List<Message> messages = buildMessages(promptConfig.getIntentPrompt(), question);
-        ChatResponse response = generate(messages, tongYiBaseConfig.getIntentModelConfig());
+        return generateAsync(messages, tongYiBaseConfig.getIntentModelConfig())
+                .map(response -> {
+                    if (!response.isSuccess()) {
+                        log.error("Intent classification error: {}", response.getErrorMessage());
+                        return 0.0; // 默认返回0分
+                    }
+                    return extractScoreFromResponse(response.getContent());
+                });
+    }
 
-        if (!response.isSuccess()) {
-            log.error("Intent classification error: {}", response.getErrorMessage());
-            return 0.0; // 默认返回0分
+    @Override
+    public Mono<Double> getKnowledgeIntentScoreAsync(QueryContext context) {
+        if (!localIntentClassifier.isReady()) {
+            return getKnowledgeIntentScoreAsync(context.getQuestion());
         }
 
-        return extractScoreFromResponse(response.getContent());
+        return Mono.fromCallable(() -> localIntentClassifier.score(context.getQueryEmbedding()))
+                .onErrorResume(e -> {
+                    log.warn("本地意图分类失败，改用模型识别: {}", e.getMessage());
+                    return Mono.empty();
+                })
+                .filter(score -> score < routingConfig.getIntentLow() || score > routingConfig.getIntentHigh())
+                .doOnNext(score -> log.debug("本地意图分类: question={}, score={}", context.getQuestion(), score))
+                // 无法判断或落在模糊区间时由模型决定
+                .switchIfEmpty(Mono.defer(() -> getKnowledgeIntentScoreAsync(context.getQuestion())));
     }
 
     /**
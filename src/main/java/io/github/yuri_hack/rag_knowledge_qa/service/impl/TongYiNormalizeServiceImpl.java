@@ -1,36 +1,62 @@
 package io.github.yuri_hack.rag_knowledge_qa.service.impl;
 
 import com.alibaba.dashscope.common.Message;
+import io.github.yuri_hack.rag_knowledge_qa.cache.NormalizationCacheService;
 import io.github.yuri_hack.rag_knowledge_qa.config.PromptConfig;
 import io.github.yuri_hack.rag_knowledge_qa.config.TongYiBaseConfig;
 import io.github.yuri_hack.rag_knowledge_qa.dto.response.ChatResponse;
 import io.github.yuri_hack.rag_knowledge_qa.service.NormalizeService;
 import io.github.yuri_hack.rag_knowledge_qa.service.base.BaseTongYiService;
+import io.github.yuri_hack.rag_knowledge_qa.service.base.TongYiModelClient;
+import io.github.yuri_hack.rag_knowledge_qa.util.RuleNormalizer;
 import io.github.yuri_hack.rag_knowledge_qa.util.SimpleNormalizer;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
+import java.util.Map;
 
 @Slf4j
 @Service
 public class TongYiNormalizeServiceImpl extends BaseTongYiService implements NormalizeService {
 
     private final SimpleNormalizer simpleNormalizer;
+    private final RuleNormalizer ruleNormalizer;
+    private final NormalizationCacheService normalizationCacheService;
 
     public TongYiNormalizeServiceImpl(TongYiBaseConfig tongYiBaseConfig, PromptConfig promptConfig,
-                                      SimpleNormalizer simpleNormalizer) {
-        super(tongYiBaseConfig, promptConfig);
+                                      TongYiModelClient modelClient, SimpleNormalizer simpleNormalizer,
+                                      RuleNormalizer ruleNormalizer, NormalizationCacheService normalizationCacheService) {
+        super(tongYiBaseConfig, promptConfig, modelClient);
         this.simpleNormalizer = simpleNormalizer;
+        this.ruleNormalizer = ruleNormalizer;
+        this.normalizationCacheService = normalizationCacheService;
     }
 
+    /**
+     * 先按基础归一化形式和规则归一化形式查缓存，都未命中时再调用模型；
+     * 模型结果同时登记在两种形式以及结果自身的规则形式下，
+     * 之后规则归一化得到同一标准形式的问题不再调用模型
+     */
     @Override
     public String normalizeQuestion(String question) {
         if (StringUtils.isBlank(question)) {
             return question;
         }
 
+        String simpleKey = simpleNormalizer.normalize(question);
+        String ruleKey = ruleNormalizer.normalize(question);
+        Map<String, String> cached = normalizationCacheService.getAll(List.of(simpleKey, ruleKey));
+        String hit = cached.getOrDefault(simpleKey, cached.get(ruleKey));
+        if (hit != null) {
+            if (!cached.containsKey(simpleKey)) {
+                normalizationCacheService.putAll(List.of(simpleKey), hit);
+            }
+            log.debug("问题归一化缓存命中 - 原始: [{}], 归一化: [{}]", question, hit);
+            return hit;
+        }
+
         // 构建归一化消息
         List<Message> messages = buildMessages(promptConfig.getNormalizePrompt(), question);
         
@@ -39,13 +65,14 @@ public class TongYiNormalizeServiceImpl extends BaseTongYiService implements Nor
         
         if (!response.isSuccess()) {
             log.error("问题归一化失败，问题: {}, 错误: {}", question, response.getErrorMessage());
-            // 失败时降级简单处理
-            return simpleNormalizer.normalize(question);
+            // 失败时降级为规则归一化，不写入缓存
+            return ruleKey;
         }
         
         String normalized = response.getContent().trim();
+        normalizationCacheService.putAll(List.of(simpleKey, ruleKey, ruleNormalizer.normalize(normalized)), normalized);
         log.debug("问题归一化完成 - 原始: [{}], 归一化: [{}]", question, normalized);
         
         return normalized;
     }
-}
\ No newline at end of file
+}
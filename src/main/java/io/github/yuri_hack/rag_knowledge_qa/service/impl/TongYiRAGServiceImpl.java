@@ -8,12 +8,16 @@ import io.github.yuri_hack.rag_knowledge_qa.cache.SemanticDocumentCacheService;
 import io.github.yuri_hack.rag_knowledge_qa.cache.model.SemanticDocumentCache;
 import io.github.yuri_hack.rag_knowledge_qa.config.PromptConfig;
 import io.github.yuri_hack.rag_knowledge_qa.config.TongYiBaseConfig;
+import io.github.yuri_hack.rag_knowledge_qa.context.QueryContext;
 import io.github.yuri_hack.rag_knowledge_qa.dto.internal.KnowledgeSearchResult;
+import io.github.yuri_hack.rag_knowledge_qa.dto.internal.PackedContext;
 import io.github.yuri_hack.rag_knowledge_qa.dto.request.SearchRequest;
 import io.github.yuri_hack.rag_knowledge_qa.dto.response.StreamChatResponse;
+import io.github.yuri_hack.rag_knowledge_qa.knowledge.ContextPacker;
 import io.github.yuri_hack.rag_knowledge_qa.knowledge.KnowledgeBaseService;
 import io.github.yuri_hack.rag_knowledge_qa.service.RAGService;
 import io.github.yuri_hack.rag_knowledge_qa.service.base.BaseTongYiService;
+import io.github.yuri_hack.rag_knowledge_qa.service.base.TongYiModelClient;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
@@ -31,108 +35,92 @@ public class TongYiRAGServiceImpl extends BaseTongYiService implements RAGServic
     private final SemanticDocumentCacheService semanticDocumentCacheService;
     private final SemanticAnswerCacheService semanticAnswerCacheService;
     private final CacheService cacheService;
+    private final ContextPacker contextPacker;
 
     public TongYiRAGServiceImpl(TongYiBaseConfig tongYiBaseConfig,
                                 PromptConfig promptConfig,
+                                TongYiModelClient modelClient,
                                 KnowledgeBaseService knowledgeBaseService,
                                 SemanticDocumentCacheService semanticDocumentCacheService,
                                 SemanticAnswerCacheService semanticAnswerCacheService,
-                                CacheService cacheService) {
-        super(tongYiBaseConfig, promptConfig);
+                                CacheService cacheService,
+                                ContextPacker contextPacker) {
+        super(tongYiBaseConfig, promptConfig, modelClient);
         this.knowledgeBaseService = knowledgeBaseService;
         this.semanticDocumentCacheService = semanticDocumentCacheService;
         this.semanticAnswerCacheService = semanticAnswerCacheService;
         this.cacheService = cacheService;
+        this.contextPacker = contextPacker;
     }
 
     @Override
-    public Flux<StreamChatResponse> handleKnowledgeBaseQuery(String question) {
-        log.info("处理知识库查询: {}", question);
+    public Flux<StreamChatResponse> handleKnowledgeBaseQuery(QueryContext context) {
+        log.info("处理知识库查询: {}", context.getQuestion());
 
         // 检查语义缓存
-        Optional<SemanticDocumentCache> semanticCacheHit = semanticDocumentCacheService.searchSimilarDocument(question);
+        Optional<SemanticDocumentCache> semanticCacheHit = semanticDocumentCacheService.searchSimilarDocument(context);
         if (semanticCacheHit.isPresent()) {
             log.info("语义文档缓存命中,{}", semanticCacheHit.get());
-            return generateWithCachedContext(question, semanticCacheHit.get().getContextChunks());
+            return generateWithCachedContext(context, semanticCacheHit.get());
         }
 
         // 缓存未命中，执行完整RAG流程
-        return executeFullRAG(question);
+        return executeFullRAG(context);
     }
 
     /**
      * 使用缓存上下文重新生成答案
      */
-    private Flux<StreamChatResponse> generateWithCachedContext(String question, List<String> contextChunks) {
-        AtomicReference<StringBuilder> fullAnswer = new AtomicReference<>(new StringBuilder());
-
-        return buildRAGMessages(question, contextChunks)
-                .flatMapMany(messages -> generateStream(messages, tongYiBaseConfig.getRagModelConfig()))
-                .map(streamResponse -> {
-                    // 累积完整答案用于缓存
-                    if (streamResponse.getContent() != null) {
-                        fullAnswer.get().append(streamResponse.getContent());
-                    }
-                    return streamResponse;
-                })
-                .doOnComplete(() -> {
-                    // 缓存新生成的答案
-                    String answer = fullAnswer.get().toString();
-                    cacheService.cacheExactAnswer(question, answer);
-                    semanticAnswerCacheService.cacheSemanticAnswer(question, answer);
-                    log.info("语义缓存重新生成完成，答案已缓存");
-                });
+    private Flux<StreamChatResponse> generateWithCachedContext(QueryContext context, SemanticDocumentCache cachedContext) {
+        String question = context.getQuestion();
+        PackedContext packedContext = contextPacker.pack(cachedContext.getContextChunks(), tongYiBaseConfig.getRagModelConfig());
+        List<Long> chunkIds = packedContext.getChunkIds();
+
+        Flux<StreamChatResponse> stream = buildRAGMessages(question, packedContext)
+                .flatMapMany(messages -> generateStream(messages, tongYiBaseConfig.getRagModelConfig()));
+        return onAnswerComplete(stream, answer -> {
+            // 缓存新生成的答案
+            cacheService.cacheExactAnswer(question, answer, chunkIds);
+            semanticAnswerCacheService.cacheSemanticAnswer(context, answer, chunkIds);
+            log.info("语义缓存重新生成完成，答案已提交缓存");
+        });
     }
 
     /**
      * 执行完整RAG流程
      */
-    private Flux<StreamChatResponse> executeFullRAG(String question) {
-        AtomicReference<StringBuilder> fullAnswer = new AtomicReference<>(new StringBuilder());
+    private Flux<StreamChatResponse> executeFullRAG(QueryContext context) {
+        String question = context.getQuestion();
         AtomicReference<List<Long>> documentChunkIds = new AtomicReference<>();
 
-        return Mono.fromCallable(() -> {
+        Flux<StreamChatResponse> stream = Mono.fromCallable(() -> {
                     // 检索知识
                     List<KnowledgeSearchResult> searchResults = knowledgeBaseService
-                            .searchKnowledge(SearchRequest.of(question));
+                            .searchKnowledge(SearchRequest.of(question), context);
 
-                    List<String> contexts = searchResults.stream()
-                            .map(KnowledgeSearchResult::getContent)
-                            .toList();
+                    // 合并重叠块并按预算装入上下文，缓存只依赖实际使用的块
+                    PackedContext packedContext = contextPacker.pack(searchResults, tongYiBaseConfig.getRagModelConfig());
+                    documentChunkIds.set(packedContext.getChunkIds());
 
-                    List<Long> chunkIds = searchResults.stream()
-                            .map(KnowledgeSearchResult::getChunkId)
-                            .toList();
-                    documentChunkIds.set(chunkIds);
-
-                    return contexts;
-                })
-                .flatMapMany(contexts -> buildRAGMessages(question, contexts))
-                .flatMap(messages -> generateStream(messages, tongYiBaseConfig.getRagModelConfig()))
-                .map(streamResponse -> {
-                    // 累积完整答案
-                    if (streamResponse.getContent() != null) {
-                        fullAnswer.get().append(streamResponse.getContent());
-                    }
-                    return streamResponse;
+                    return packedContext;
                 })
-                .doOnComplete(() -> {
-                    // 缓存结果
-                    String answer = fullAnswer.get().toString();
-                    cacheService.cacheExactAnswer(question, answer);
-                    semanticAnswerCacheService.cacheSemanticAnswer(question, answer);
-                    semanticDocumentCacheService.cacheSemanticDocument(question, documentChunkIds.get());
-                    log.info("完整RAG流程完成，缓存已更新");
-                });
+                .flatMapMany(packedContext -> buildRAGMessages(question, packedContext))
+                .flatMap(messages -> generateStream(messages, tongYiBaseConfig.getRagModelConfig()));
+        return onAnswerComplete(stream, answer -> {
+            // 缓存结果
+            cacheService.cacheExactAnswer(question, answer, documentChunkIds.get());
+            semanticAnswerCacheService.cacheSemanticAnswer(context, answer, documentChunkIds.get());
+            semanticDocumentCacheService.cacheSemanticDocument(context, documentChunkIds.get());
+            log.info("完整RAG流程完成，缓存已提交");
+        });
     }
 
     /**
      * 构建RAG消息
      */
-    private Mono<List<Message>> buildRAGMessages(String question, List<String> contextChunks) {
+    private Mono<List<Message>> buildRAGMessages(String question, PackedContext packedContext) {
         return Mono.fromCallable(() -> {
-            String context = String.join("\n\n", contextChunks);
-            String ragPrompt = promptConfig.getRagPrompt().replace("{context}", context);
+            String ragPrompt = promptConfig.getRagPrompt().replace("{context}", packedContext.getContent());
             return buildMessages(ragPrompt, question);
         });
     }
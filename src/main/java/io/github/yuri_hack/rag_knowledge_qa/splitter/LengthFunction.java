@@ -0,0 +1,9 @@
+package io.github.yuri_hack.rag_knowledge_qa.splitter;
+
+/**
+ * 文本长度度量，决定 rag.chunk.size / overlap 的单位
+ */
+public interface LengthFunction {
+
+    int length(CharSequence text);
+}
@@ -2,12 +2,38 @@ package io.github.yuri_hack.rag_knowledge_qa.splitter;
 
 import io.github.yuri_hack.rag_knowledge_qa.splitter.model.TextChunk;
 
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
 
 /**
  * 文本分割器接口
  */
 public interface TextSplitter {
 
-    List<TextChunk> splitText(String content, String fileName, String documentId);
-}
\ No newline at end of file
+    /**
+     * 从文本流惰性分割，每次 next 时才读取生成下一个块所需的文本
+     * 读取失败时迭代器抛出 UncheckedIOException
+     */
+    Iterator<TextChunk> iterateChunks(Reader reader, String fileName, String documentId);
+
+    /**
+     * 专门处理的文件类型，为空表示通用分割器
+     */
+    default Set<String> getSupportedFileTypes() {
+        return Set.of();
+    }
+
+    default List<TextChunk> splitText(Reader reader, String fileName, String documentId) {
+        List<TextChunk> chunks = new ArrayList<>();
+        iterateChunks(reader, fileName, documentId).forEachRemaining(chunks::add);
+        return chunks;
+    }
+
+    default List<TextChunk> splitText(String content, String fileName, String documentId) {
+        return splitText(new StringReader(content != null ? content : ""), fileName, documentId);
+    }
+}
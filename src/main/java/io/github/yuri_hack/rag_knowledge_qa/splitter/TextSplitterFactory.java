@@ -0,0 +1,40 @@
+package io.github.yuri_hack.rag_knowledge_qa.splitter;
+
+import io.github.yuri_hack.rag_knowledge_qa.splitter.impl.SlidingWindowTextSplitter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 文本分割器工厂 - 按文件类型选择分割器，未专门处理的类型使用滑动窗口分割器
+ */
+@Slf4j
+@Component
+public class TextSplitterFactory {
+
+    private final Map<String, TextSplitter> splitterMap = new ConcurrentHashMap<>();
+    private final TextSplitter defaultSplitter;
+
+    public TextSplitterFactory(List<TextSplitter> splitters, SlidingWindowTextSplitter defaultSplitter) {
+        this.defaultSplitter = defaultSplitter;
+        for (TextSplitter splitter : splitters) {
+            for (String fileType : splitter.getSupportedFileTypes()) {
+                splitterMap.put(fileType.toLowerCase(), splitter);
+            }
+        }
+        log.info("文本分割器工厂初始化完成，专用分割器: {}", splitterMap.keySet());
+    }
+
+    /**
+     * 根据文件扩展名获取分割器
+     */
+    public TextSplitter getSplitter(String fileExtension) {
+        if (fileExtension == null) {
+            return defaultSplitter;
+        }
+        return splitterMap.getOrDefault(fileExtension.toLowerCase().trim(), defaultSplitter);
+    }
+}
@@ -0,0 +1,18 @@
+package io.github.yuri_hack.rag_knowledge_qa.splitter.impl;
+
+import io.github.yuri_hack.rag_knowledge_qa.splitter.LengthFunction;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * 按字符数计算长度
+ */
+@Component
+@ConditionalOnProperty(name = "rag.chunk.length-unit", havingValue = "char", matchIfMissing = true)
+public class CharacterLengthFunction implements LengthFunction {
+
+    @Override
+    public int length(CharSequence text) {
+        return text.length();
+    }
+}
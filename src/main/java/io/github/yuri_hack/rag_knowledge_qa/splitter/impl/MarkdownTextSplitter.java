@@ -0,0 +1,362 @@
+package io.github.yuri_hack.rag_knowledge_qa.splitter.impl;
+
+import io.github.yuri_hack.rag_knowledge_qa.splitter.LengthFunction;
+import io.github.yuri_hack.rag_knowledge_qa.splitter.TextSplitter;
+import io.github.yuri_hack.rag_knowledge_qa.splitter.model.TextChunk;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Markdown结构感知分割器
+ * 按标题层级切分，块不跨越标题；围栏代码块和表格保持完整，超出块大小时按行拆分并保留围栏/表头；
+ * 普通段落超出块大小时按句子拆分。每个块记录所属的标题路径
+ */
+@Component
+@RequiredArgsConstructor
+public class MarkdownTextSplitter implements TextSplitter {
+
+    private static final Pattern HEADING_PATTERN = Pattern.compile("^(#{1,6})\\s+(.+?)\\s*#*\\s*$");
+    private static final Pattern TABLE_SEPARATOR_PATTERN = Pattern.compile("^\\|?\\s*:?-+:?\\s*(\\|\\s*:?-+:?\\s*)*\\|?$");
+    private static final String HEADING_PATH_SEPARATOR = " > ";
+    private static final String HEADING_PATH_ELLIPSIS = "…";
+    // 与 document_chunk.heading_path 列长度一致
+    static final int MAX_HEADING_PATH_LENGTH = 512;
+    private static final String BLOCK_SEPARATOR = "\n\n";
+    private static final String SENTENCE_SEPARATOR = " ";
+
+    @Value("${rag.chunk.size:1000}")
+    private int chunkSize;
+
+    private final LengthFunction lengthFunction;
+
+    @Override
+    public Iterator<TextChunk> iterateChunks(Reader reader, String fileName, String documentId) {
+        return new ChunkIterator(new BlockReader(new BufferedReader(reader)), fileName, documentId);
+    }
+
+    @Override
+    public Set<String> getSupportedFileTypes() {
+        return Set.of("md", "markdown");
+    }
+
+    private enum BlockType {
+        HEADING, PARAGRAPH, CODE, TABLE
+    }
+
+    private record Block(BlockType type, List<String> lines, String headingPath) {
+    }
+
+    /**
+     * 组成块的最小单元：标题、完整段落/代码/表格，或超长段落拆出的句子
+     *
+     * @param sectionStart 标题单元，开始新的块
+     * @param separator    与前一个单元之间的分隔符
+     */
+    private record Unit(String text, int length, String headingPath, boolean sectionStart, String separator) {
+    }
+
+    /**
+     * 逐行读取Markdown并识别结构块
+     */
+    private static class BlockReader {
+
+        private final BufferedReader reader;
+        private final String[] headings = new String[6];
+        private String pushedBack;
+
+        BlockReader(BufferedReader reader) {
+            this.reader = reader;
+        }
+
+        Block next() throws IOException {
+            List<String> paragraph = new ArrayList<>();
+            String line;
+            while ((line = readLine()) != null) {
+                String trimmed = line.trim();
+
+                if (trimmed.isEmpty()) {
+                    if (!paragraph.isEmpty()) {
+                        return block(BlockType.PARAGRAPH, paragraph);
+                    }
+                    continue;
+                }
+
+                boolean fence = trimmed.startsWith("```") || trimmed.startsWith("~~~");
+                Matcher heading = HEADING_PATTERN.matcher(trimmed);
+                boolean table = trimmed.startsWith("|");
+
+                if (!fence && !heading.matches() && !table) {
+                    paragraph.add(line);
+                    continue;
+                }
+
+                // 结构块开始前先结束当前段落
+                if (!paragraph.isEmpty()) {
+                    pushedBack = line;
+                    return block(BlockType.PARAGRAPH, paragraph);
+                }
+
+                if (fence) {
+                    return readFence(line, trimmed.substring(0, 3));
+                }
+                if (heading.matches()) {
+                    int level = heading.group(1).length();
+                    headings[level - 1] = heading.group(2);
+                    Arrays.fill(headings, level, headings.length, null);
+                    return block(BlockType.HEADING, List.of(line));
+                }
+                return readTable(line);
+            }
+            return paragraph.isEmpty() ? null : block(BlockType.PARAGRAPH, paragraph);
+        }
+
+        private Block readFence(String openLine, String marker) throws IOException {
+            List<String> lines = new ArrayList<>();
+            lines.add(openLine);
+            String line;
+            while ((line = readLine()) != null) {
+                lines.add(line);
+                if (line.trim().startsWith(marker)) {
+                    break;
+                }
+            }
+            return block(BlockType.CODE, lines);
+        }
+
+        private Block readTable(String firstLine) throws IOException {
+            List<String> lines = new ArrayList<>();
+            lines.add(firstLine);
+            String line;
+            while ((line = readLine()) != null) {
+                if (!line.trim().startsWith("|")) {
+                    pushedBack = line;
+                    break;
+                }
+                lines.add(line);
+            }
+            return block(BlockType.TABLE, lines);
+        }
+
+        private Block block(BlockType type, List<String> lines) {
+            String headingPath = headingPath(Arrays.stream(headings).filter(Objects::nonNull).toList());
+            return new Block(type, new ArrayList<>(lines), headingPath.isEmpty() ? null : headingPath);
+        }
+
+        /**
+         * 拼接标题路径，超出列长度时从最外层开始省略，优先保留最近的标题
+         */
+        private static String headingPath(List<String> path) {
+            String joined = String.join(HEADING_PATH_SEPARATOR, path);
+            for (int from = 1; joined.length() > MAX_HEADING_PATH_LENGTH && from < path.size(); from++) {
+                joined = HEADING_PATH_ELLIPSIS + HEADING_PATH_SEPARATOR
+                        + String.join(HEADING_PATH_SEPARATOR, path.subList(from, path.size()));
+            }
+            if (joined.length() > MAX_HEADING_PATH_LENGTH) {
+                joined = joined.substring(0, MAX_HEADING_PATH_LENGTH - HEADING_PATH_ELLIPSIS.length()) + HEADING_PATH_ELLIPSIS;
+            }
+            return joined;
+        }
+
+        private String readLine() throws IOException {
+            if (pushedBack != null) {
+                String line = pushedBack;
+                pushedBack = null;
+                return line;
+            }
+            return reader.readLine();
+        }
+    }
+
+    /**
+     * 按标题边界和块大小组装单元的块迭代器
+     */
+    private class ChunkIterator implements Iterator<TextChunk> {
+
+        private final BlockReader blockReader;
+        private final String fileName;
+        private final String documentId;
+
+        private final Deque<Unit> pending = new ArrayDeque<>();
+        private boolean exhausted;
+        private int chunkIndex;
+
+        ChunkIterator(BlockReader blockReader, String fileName, String documentId) {
+            this.blockReader = blockReader;
+            this.fileName = fileName;
+            this.documentId = documentId;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return fill();
+        }
+
+        @Override
+        public TextChunk next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+
+            Unit first = pending.pollFirst();
+            StringBuilder content = new StringBuilder(first.text());
+            int currentLength = first.length();
+            int unitCount = 1;
+            String headingPath = first.headingPath();
+            // 只有标题行时继续合并后续内容，避免产生仅含标题的块
+            boolean headingOnly = first.sectionStart();
+
+            while (fill()) {
+                Unit unit = pending.peekFirst();
+                boolean newSection = unit.sectionStart() || !Objects.equals(unit.headingPath(), headingPath);
+                if (newSection && !headingOnly) {
+                    break;
+                }
+                int added = lengthFunction.length(unit.separator()) + unit.length();
+                if (currentLength + added > chunkSize) {
+                    break;
+                }
+                content.append(unit.separator()).append(unit.text());
+                currentLength += added;
+                unitCount++;
+                headingPath = unit.headingPath();
+                headingOnly = unit.sectionStart();
+                pending.pollFirst();
+            }
+
+            TextChunk chunk = new TextChunk();
+            chunk.setContent(content.toString());
+            chunk.setFileName(fileName);
+            chunk.setDocumentId(documentId);
+            chunk.setChunkIndex(chunkIndex++);
+            chunk.setSentencesCount(unitCount);
+            chunk.setHeadingPath(headingPath);
+            return chunk;
+        }
+
+        /**
+         * 待组装单元为空时读取下一个结构块
+         *
+         * @return 是否还有待组装的单元
+         */
+        private boolean fill() {
+            try {
+                while (pending.isEmpty() && !exhausted) {
+                    Block block = blockReader.next();
+                    if (block == null) {
+                        exhausted = true;
+                    } else {
+                        toUnits(block);
+                    }
+                }
+                return !pending.isEmpty();
+            } catch (IOException e) {
+                throw new UncheckedIOException("读取文件内容失败: " + fileName, e);
+            }
+        }
+
+        private void toUnits(Block block) throws IOException {
+            String text = String.join("\n", block.lines());
+            int length = lengthFunction.length(text);
+            boolean heading = block.type() == BlockType.HEADING;
+
+            if (heading || length <= chunkSize) {
+                pending.add(new Unit(text, length, block.headingPath(), heading, BLOCK_SEPARATOR));
+                return;
+            }
+
+            switch (block.type()) {
+                case CODE -> splitCode(block);
+                case TABLE -> splitTable(block);
+                default -> splitSentences(block, text);
+            }
+        }
+
+        /**
+         * 超长段落按句子拆分，句子之间以空格连接
+         */
+        private void splitSentences(Block block, String text) throws IOException {
+            SentenceScanner scanner = new SentenceScanner(new StringReader(text), 1, chunkSize);
+            String separator = BLOCK_SEPARATOR;
+            String sentence;
+            while ((sentence = scanner.next()) != null) {
+                pending.add(new Unit(sentence, lengthFunction.length(sentence), block.headingPath(), false, separator));
+                separator = SENTENCE_SEPARATOR;
+            }
+        }
+
+        /**
+         * 超长代码块按行拆分，每段都补全开闭围栏
+         */
+        private void splitCode(Block block) {
+            List<String> lines = block.lines();
+            String openFence = lines.get(0);
+            String marker = openFence.trim().substring(0, 3);
+            boolean closed = lines.size() > 1 && lines.get(lines.size() - 1).trim().startsWith(marker);
+            splitLines(block, openFence, lines.subList(1, closed ? lines.size() - 1 : lines.size()), marker);
+        }
+
+        /**
+         * 超长表格按行拆分，每段重复表头
+         */
+        private void splitTable(Block block) {
+            List<String> lines = block.lines();
+            if (lines.size() > 2 && TABLE_SEPARATOR_PATTERN.matcher(lines.get(1).trim()).matches()) {
+                splitLines(block, lines.get(0) + "\n" + lines.get(1), lines.subList(2, lines.size()), null);
+            } else {
+                splitLines(block, null, lines, null);
+            }
+        }
+
+        private void splitLines(Block block, String header, List<String> body, String footer) {
+            int fixedLength = (header == null ? 0 : lengthFunction.length(header) + 1)
+                    + (footer == null ? 0 : lengthFunction.length(footer) + 1);
+
+            List<String> piece = new ArrayList<>();
+            int pieceLength = fixedLength;
+            for (String line : body) {
+                int lineLength = lengthFunction.length(line) + 1;
+                if (!piece.isEmpty() && pieceLength + lineLength > chunkSize) {
+                    addPiece(block, header, piece, footer);
+                    piece.clear();
+                    pieceLength = fixedLength;
+                }
+                piece.add(line);
+                pieceLength += lineLength;
+            }
+            if (!piece.isEmpty()) {
+                addPiece(block, header, piece, footer);
+            }
+        }
+
+        private void addPiece(Block block, String header, List<String> piece, String footer) {
+            List<String> lines = new ArrayList<>(piece.size() + 2);
+            if (header != null) {
+                lines.add(header);
+            }
+            lines.addAll(piece);
+            if (footer != null) {
+                lines.add(footer);
+            }
+            String text = String.join("\n", lines);
+            pending.add(new Unit(text, lengthFunction.length(text), block.headingPath(), false, BLOCK_SEPARATOR));
+        }
+    }
+}
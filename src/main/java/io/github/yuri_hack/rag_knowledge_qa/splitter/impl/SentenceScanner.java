@@ -0,0 +1,201 @@
+package io.github.yuri_hack.rag_knowledge_qa.splitter.impl;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Set;
+
+/**
+ * 单遍句子扫描器
+ * 从 Reader 逐字符读取，按中英文句末标点 (.!?。！？) 和段落 (空行) 切分句子，
+ * 连续空白折叠为单个空格，中文字符之间的换行直接去除。
+ * 英文句号后须紧跟空白才视为句末，避免切开小数；常见缩写和单字母首字母缩写后的句号不视为句末。
+ * 过短的句子与下一句合并，而不是丢弃
+ */
+public class SentenceScanner {
+
+    private static final int BUFFER_SIZE = 8192;
+
+    // 句号后不断句的常见缩写 (小写，不含末尾句号)
+    private static final Set<String> ABBREVIATIONS = Set.of(
+            "e.g", "i.e", "cf", "vs", "mr", "mrs", "ms", "dr", "prof", "st", "jr", "sr",
+            "inc", "ltd", "corp", "fig", "vol", "approx", "dept", "u.s");
+
+    private final Reader reader;
+    private final int minSentenceLength;
+    private final int maxSentenceLength;
+
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private int position;
+    private int limit;
+
+    private final StringBuilder sentence = new StringBuilder(256);
+
+    // 尚未输出的过短句子，等待与下一句合并
+    private String pending;
+    // 因合并后超长而推迟到下次输出的句子
+    private String deferred;
+
+    /**
+     * @param minSentenceLength 短于该长度的句子与下一句合并
+     * @param maxSentenceLength 无标点的超长文本达到该长度时强制切分
+     */
+    public SentenceScanner(Reader reader, int minSentenceLength, int maxSentenceLength) {
+        this.reader = reader;
+        this.minSentenceLength = minSentenceLength;
+        this.maxSentenceLength = Math.max(1, maxSentenceLength);
+    }
+
+    /**
+     * 读取下一个句子
+     *
+     * @return 句子，读取完毕时返回 null
+     */
+    public String next() throws IOException {
+        String result;
+        while ((result = nextRaw()) != null) {
+            if (pending != null) {
+                if (pending.length() + 1 + result.length() > maxSentenceLength) {
+                    // 合并后超出最大长度，短句单独输出
+                    String shortSentence = pending;
+                    pending = null;
+                    deferred = result;
+                    return shortSentence;
+                }
+                result = join(pending, result);
+                pending = null;
+            }
+            if (result.length() >= minSentenceLength) {
+                return result;
+            }
+            pending = result;
+        }
+        // 文末剩余的短句照常输出
+        String last = pending;
+        pending = null;
+        return last;
+    }
+
+    private String nextRaw() throws IOException {
+        if (deferred != null) {
+            String result = deferred;
+            deferred = null;
+            return result;
+        }
+        return scanSentence();
+    }
+
+    private static String join(String first, String second) {
+        if (isCjk(first.charAt(first.length() - 1)) && isCjk(second.charAt(0))) {
+            return first + second;
+        }
+        return first + ' ' + second;
+    }
+
+    private String scanSentence() throws IOException {
+        sentence.setLength(0);
+        boolean pendingSpace = false;
+        int newlines = 0;
+        // 已遇到句末标点，等待确认句子结束
+        boolean terminated = false;
+        boolean cjkTerminated = false;
+
+        int c;
+        while ((c = read()) != -1) {
+            char ch = (char) c;
+
+            if (Character.isWhitespace(ch)) {
+                if (ch == '\n') {
+                    newlines++;
+                }
+                pendingSpace = true;
+                // 句末标点后接空白，或遇到段落分隔
+                if (sentence.length() > 0 && (terminated || newlines >= 2)) {
+                    return sentence.toString();
+                }
+                continue;
+            }
+
+            if (terminated && !isTerminator(ch) && !isClosing(ch)) {
+                if (cjkTerminated) {
+                    position--;
+                    return sentence.toString();
+                }
+                // 英文句号后未接空白，如 3.14、e.g.
+                terminated = false;
+            }
+
+            if (pendingSpace && sentence.length() > 0
+                    && !(isCjk(sentence.charAt(sentence.length() - 1)) && isCjk(ch))) {
+                sentence.append(' ');
+            }
+            pendingSpace = false;
+            newlines = 0;
+            sentence.append(ch);
+
+            if (isTerminator(ch)) {
+                // 缩写后的句号即使后接空白也不断句，如 e.g. 、Dr. 、J.
+                terminated = ch != '.' || terminated || !endsWithAbbreviation();
+                cjkTerminated = cjkTerminated || ch > 0x7F;
+            } else if (sentence.length() >= maxSentenceLength && !isClosing(ch)) {
+                return sentence.toString();
+            }
+        }
+
+        return sentence.length() > 0 ? sentence.toString() : null;
+    }
+
+    /**
+     * 判断句子末尾句号前的单词是否为缩写
+     */
+    private boolean endsWithAbbreviation() {
+        int end = sentence.length() - 1;
+        int start = end;
+        while (start > 0) {
+            char prev = sentence.charAt(start - 1);
+            if (!(isAsciiLetter(prev) || prev == '.')) {
+                break;
+            }
+            start--;
+        }
+        if (start == end) {
+            return false;
+        }
+        if (end - start == 1) {
+            // 单个大写字母视为姓名首字母
+            return Character.isUpperCase(sentence.charAt(start));
+        }
+        return ABBREVIATIONS.contains(sentence.substring(start, end).toLowerCase());
+    }
+
+    private static boolean isAsciiLetter(char ch) {
+        return (ch >= 'a' && ch <= 'z') || (ch >= 'A' && ch <= 'Z');
+    }
+
+    private int read() throws IOException {
+        if (position >= limit) {
+            limit = reader.read(buffer, 0, BUFFER_SIZE);
+            position = 0;
+            if (limit <= 0) {
+                limit = 0;
+                return -1;
+            }
+        }
+        return buffer[position++];
+    }
+
+    private static boolean isTerminator(char ch) {
+        return ch == '.' || ch == '!' || ch == '?' || ch == '。' || ch == '！' || ch == '？';
+    }
+
+    private static boolean isClosing(char ch) {
+        return ch == '"' || ch == '\'' || ch == ')' || ch == '”' || ch == '’'
+                || ch == '」' || ch == '』' || ch == '）' || ch == '】';
+    }
+
+    /**
+     * 中日文字符及全角标点，这些字符之间不需要空格
+     */
+    private static boolean isCjk(char ch) {
+        return (ch >= 0x3000 && ch <= 0x9FFF) || (ch >= 0xFF00 && ch <= 0xFFEF);
+    }
+}
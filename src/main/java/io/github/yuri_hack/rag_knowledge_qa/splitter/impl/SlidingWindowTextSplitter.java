@@ -1,25 +1,31 @@
 package io.github.yuri_hack.rag_knowledge_qa.splitter.impl;
 
+import io.github.yuri_hack.rag_knowledge_qa.splitter.LengthFunction;
 import io.github.yuri_hack.rag_knowledge_qa.splitter.TextSplitter;
 import io.github.yuri_hack.rag_knowledge_qa.splitter.model.TextChunk;
-import lombok.extern.slf4j.Slf4j;
+import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
-import java.util.regex.Pattern;
+import java.util.NoSuchElementException;
 
-@Slf4j
+/**
+ * 基于句子的滑动窗口分割器
+ * 句子由 SentenceScanner 单遍扫描得到，窗口内只缓存构成当前块所需的句子
+ * 块大小和重叠的单位由 LengthFunction 决定 (字符或token)
+ */
 @Component
+@RequiredArgsConstructor
 public class SlidingWindowTextSplitter implements TextSplitter {
 
-    private static final Pattern SENTENCE_PATTERN = Pattern.compile(
-        "[^.!?\\s][^.!?]*(?:[.!?](?!['\"]?\\s|$)[^.!?]*)*[.!?]?['\"]?(?=\\s|$)",
-        Pattern.MULTILINE
-    );
-
-    private static final Pattern PARAGRAPH_PATTERN = Pattern.compile("\\n\\s*\\n");
+    // 过滤过短的句子
+    private static final int MIN_SENTENCE_LENGTH = 6;
 
     @Value("${rag.chunk.size:1000}")
     private int chunkSize;
@@ -27,168 +33,125 @@ public class SlidingWindowTextSplitter implements TextSplitter {
     @Value("${rag.chunk.overlap:200}")
     private int chunkOverlap;
 
-    /**
-     * 使用滑动窗口分割文本
-     */
-    public List<TextChunk> splitText(String content, String fileName, String documentId) {
-        if (content == null || content.trim().isEmpty()) {
-            log.warn("空内容文件: {}", fileName);
-            return new ArrayList<>();
-        }
-
-        // 预处理文本
-        String processedContent = preprocessText(content);
+    private final LengthFunction lengthFunction;
 
-        return splitBySentences(processedContent, fileName, documentId);
+    @Override
+    public Iterator<TextChunk> iterateChunks(Reader reader, String fileName, String documentId) {
+        // 无标点长文本按 chunkSize 个字符强制切分，token数不超过字符数，因此两种单位下都不会超出块大小
+        return new ChunkIterator(new SentenceScanner(reader, MIN_SENTENCE_LENGTH, chunkSize), fileName, documentId);
     }
 
     /**
-     * 基于句子的滑动窗口分割
+     * 滑动窗口块迭代器
      */
-    private List<TextChunk> splitBySentences(String content, String fileName, String documentId) {
-        List<String> sentences = extractSentences(content);
-        log.debug("从文件 {} 中提取了 {} 个句子", fileName, sentences.size());
-
-        List<TextChunk> chunks = new ArrayList<>();
-        int startIndex = 0;
-        int chunkIndex = 0;
-
-        while (startIndex < sentences.size()) {
-            TextChunk chunk = buildChunkWithSlidingWindow(sentences, startIndex, fileName, documentId, chunkIndex);
-            chunks.add(chunk);
-
-            // 计算下一个窗口的起始位置
-            int sentencesInChunk = chunk.getSentencesCount();
-            if (sentencesInChunk <= 0) break;
-
-            // 滑动窗口：前进 (chunkSize - overlap) 个句子
-            int stepSize = Math.max(1, sentencesInChunk - calculateOverlapSentences(sentences, startIndex));
-            startIndex += stepSize;
-            chunkIndex++;
+    private class ChunkIterator implements Iterator<TextChunk> {
+
+        private final SentenceScanner scanner;
+        private final String fileName;
+        private final String documentId;
+
+        // 尚未滑出窗口的句子及其长度
+        private final List<String> window = new ArrayList<>();
+        private final List<Integer> lengths = new ArrayList<>();
+        private final int separatorLength = lengthFunction.length(" ");
+        private boolean exhausted;
+        private int chunkIndex;
+
+        ChunkIterator(SentenceScanner scanner, String fileName, String documentId) {
+            this.scanner = scanner;
+            this.fileName = fileName;
+            this.documentId = documentId;
         }
 
-        log.info("文件 {} 使用句子滑动窗口分割为 {} 个块", fileName, chunks.size());
-        return chunks;
-    }
-
-    /**
-     * 构建滑动窗口块
-     */
-    private TextChunk buildChunkWithSlidingWindow(List<String> sentences, int startIndex,
-                                                 String fileName, String documentId, int chunkIndex) {
-        StringBuilder chunkContent = new StringBuilder();
-        int currentLength = 0;
-        int sentenceCount = 0;
-
-        // 添加句子直到达到块大小
-        for (int i = startIndex; i < sentences.size(); i++) {
-            String sentence = sentences.get(i).trim();
-            if (sentence.isEmpty()) continue;
-
-            int sentenceLength = sentence.length();
-
-            // 如果添加这个句子会超过块大小，且已经有内容，则停止
-            if (currentLength + sentenceLength > chunkSize && currentLength > 0) {
-                break;
-            }
-
-            if (!chunkContent.isEmpty()) {
-                chunkContent.append(" ");
-                currentLength += 1;
-            }
-
-            chunkContent.append(sentence);
-            currentLength += sentenceLength;
-            sentenceCount++;
-
-            // 如果达到块大小，停止添加更多句子
-            if (currentLength >= chunkSize) {
-                break;
-            }
+        @Override
+        public boolean hasNext() {
+            return fill(1);
         }
 
-        TextChunk chunk = new TextChunk();
-        chunk.setContent(chunkContent.toString());
-        chunk.setFileName(fileName);
-        chunk.setDocumentId(documentId);
-        chunk.setChunkIndex(chunkIndex);
-        chunk.setSentencesCount(sentenceCount);
-
-        return chunk;
-    }
+        @Override
+        public TextChunk next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
 
-    /**
-     * 计算重叠的句子数量
-     */
-    private int calculateOverlapSentences(List<String> sentences, int startIndex) {
-        int overlapChars = 0;
-        int overlapSentences = 0;
+            StringBuilder chunkContent = new StringBuilder();
+            int currentLength = 0;
+            int sentenceCount = 0;
 
-        // 从当前起始位置向前计算重叠的句子
-        for (int i = startIndex; i >= 0 && overlapChars < chunkOverlap; i--) {
-            if (i >= sentences.size()) continue;
+            // 添加句子直到达到块大小
+            while (currentLength < chunkSize && fill(sentenceCount + 1)) {
+                String sentence = window.get(sentenceCount);
+                int sentenceLength = lengths.get(sentenceCount);
+                boolean first = chunkContent.isEmpty();
+                int separator = first ? 0 : separatorLength;
 
-            String sentence = sentences.get(i);
-            overlapChars += sentence.length() + 1; // +1 for space
-            overlapSentences++;
+                // 如果添加这个句子会超过块大小，且已经有内容，则停止
+                if (currentLength + separator + sentenceLength > chunkSize && !first) {
+                    break;
+                }
 
-            if (overlapChars >= chunkOverlap) {
-                break;
+                if (!first) {
+                    chunkContent.append(' ');
+                }
+                chunkContent.append(sentence);
+                currentLength += separator + sentenceLength;
+                sentenceCount++;
             }
-        }
-
-        return Math.max(1, overlapSentences);
-    }
 
-    /**
-     * 提取句子
-     */
-    private List<String> extractSentences(String content) {
-        List<String> sentences = new ArrayList<>();
+            TextChunk chunk = new TextChunk();
+            chunk.setContent(chunkContent.toString());
+            chunk.setFileName(fileName);
+            chunk.setDocumentId(documentId);
+            chunk.setChunkIndex(chunkIndex++);
+            chunk.setSentencesCount(sentenceCount);
 
-        // 首先按段落分割
-        String[] paragraphs = PARAGRAPH_PATTERN.split(content);
+            slide(sentenceCount);
+            return chunk;
+        }
 
-        for (String paragraph : paragraphs) {
-            if (paragraph.trim().isEmpty()) continue;
+        /**
+         * 滑动窗口：块末尾累计长度不少于 overlap 的句子保留到下一个块，其余句子滑出窗口
+         */
+        private void slide(int sentenceCount) {
+            if (!fill(sentenceCount + 1)) {
+                // 剩余句子已全部包含在当前块中
+                window.clear();
+                lengths.clear();
+                return;
+            }
 
-            // 在段落内分割句子
-            java.util.regex.Matcher matcher = SENTENCE_PATTERN.matcher(paragraph);
-            while (matcher.find()) {
-                String sentence = matcher.group().trim();
-                if (sentence.length() > 5) { // 过滤过短的句子
-                    sentences.add(sentence);
-                }
+            int overlapSentences = 0;
+            int overlapLength = 0;
+            for (int i = sentenceCount - 1; i > 0 && overlapLength < chunkOverlap; i--) {
+                overlapLength += lengths.get(i) + separatorLength;
+                overlapSentences++;
             }
 
-            // 如果正则匹配失败，使用简单分割作为备选
-            if (sentences.isEmpty()) {
-                String[] fallbackSentences = paragraph.split("[.!?]+");
-                for (String sentence : fallbackSentences) {
-                    String trimmed = sentence.trim();
-                    if (trimmed.length() > 5) {
-                        sentences.add(trimmed);
+            int step = Math.max(1, sentenceCount - overlapSentences);
+            window.subList(0, step).clear();
+            lengths.subList(0, step).clear();
+        }
+
+        /**
+         * 从扫描器读取句子，直到窗口中至少有 size 个句子
+         *
+         * @return 窗口中是否有足够的句子
+         */
+        private boolean fill(int size) {
+            try {
+                while (window.size() < size && !exhausted) {
+                    String sentence = scanner.next();
+                    if (sentence == null) {
+                        exhausted = true;
+                    } else {
+                        window.add(sentence);
+                        lengths.add(lengthFunction.length(sentence));
                     }
                 }
+                return window.size() >= size;
+            } catch (IOException e) {
+                throw new UncheckedIOException("读取文件内容失败: " + fileName, e);
             }
         }
-
-        return sentences;
-    }
-
-    /**
-     * 文本预处理
-     */
-    private String preprocessText(String content) {
-        // 移除多余的空白字符
-        String processed = content.replaceAll("\\s+", " ");
-
-        // 标准化换行符
-        processed = processed.replaceAll("\\r\\n|\\r", "\n");
-
-        // 移除首尾空白
-        processed = processed.trim();
-
-        return processed;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,68 @@
+package io.github.yuri_hack.rag_knowledge_qa.splitter.impl;
+
+import io.github.yuri_hack.rag_knowledge_qa.splitter.LengthFunction;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * 本地估算token数，无需加载词表或调用接口
+ * 按通义系列BPE分词的经验值估算：
+ * 中文约1.5字/token，英文单词约4字母/token (短单词为1个token)，数字逐位成token，标点各1个token，空白不计
+ */
+@Component
+@ConditionalOnProperty(name = "rag.chunk.length-unit", havingValue = "token")
+public class TokenEstimateLengthFunction implements LengthFunction {
+
+    // 不超过该长度的英文单词按1个token计
+    private static final int SHORT_WORD_LENGTH = 6;
+    private static final int CHARS_PER_WORD_TOKEN = 4;
+
+    @Override
+    public int length(CharSequence text) {
+        int tokens = 0;
+        int wordLength = 0;
+        int cjkLength = 0;
+
+        for (int i = 0; i < text.length(); i++) {
+            char ch = text.charAt(i);
+
+            if (isCjk(ch)) {
+                tokens += wordTokens(wordLength);
+                wordLength = 0;
+                cjkLength++;
+                continue;
+            }
+            tokens += cjkTokens(cjkLength);
+            cjkLength = 0;
+
+            if ((ch >= 'a' && ch <= 'z') || (ch >= 'A' && ch <= 'Z')) {
+                wordLength++;
+                continue;
+            }
+            tokens += wordTokens(wordLength);
+            wordLength = 0;
+
+            if (!Character.isWhitespace(ch)) {
+                // 数字、标点及其他字符
+                tokens++;
+            }
+        }
+
+        return tokens + wordTokens(wordLength) + cjkTokens(cjkLength);
+    }
+
+    private static int wordTokens(int wordLength) {
+        if (wordLength == 0) {
+            return 0;
+        }
+        return wordLength <= SHORT_WORD_LENGTH ? 1 : (wordLength + CHARS_PER_WORD_TOKEN - 1) / CHARS_PER_WORD_TOKEN;
+    }
+
+    private static int cjkTokens(int cjkLength) {
+        return (cjkLength * 2 + 2) / 3;
+    }
+
+    private static boolean isCjk(char ch) {
+        return ch >= 0x3400 && ch <= 0x9FFF;
+    }
+}
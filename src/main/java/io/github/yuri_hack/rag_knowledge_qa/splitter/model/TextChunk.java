@@ -10,4 +10,5 @@ public class TextChunk {
     private Integer chunkIndex;
     private Integer sentencesCount;
     private Integer endSentenceIndex;
+    private String headingPath; // 所属标题路径，如 "安装 > 环境要求"
 }
\ No newline at end of file
@@ -0,0 +1,221 @@
+package io.github.yuri_hack.rag_knowledge_qa.util;
+
+import io.github.yuri_hack.rag_knowledge_qa.config.NormalizeConfig;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 基于词典的确定性问题归一化
+ * 依次执行全角转半角、繁体转简体、基础归一化、停用短语删除与同义词替换、句尾语气词删除，
+ * 输出仍是 SimpleNormalizer 形式的文本，可直接作为归一化缓存的键。
+ * 替换不会切开受保护词 (如 司机 中的 入司)，拉丁字母和数字组成的变体只在词边界匹配；
+ * 语气词只在整句末尾、且句子呈疑问形式时删除一个，属于受保护词 (如 酒吧、毛呢) 时保留
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RuleNormalizer {
+
+    private static final String TRAILING_PARTICLES = "呢吗嘛啊呀吧哦";
+
+    // 句子含有这些疑问词时，句尾语气词视为疑问语气；吗 本身即表示疑问
+    private static final List<String> INTERROGATIVES = List.of(
+            "什么", "如何", "怎", "咋", "哪", "谁", "多少", "为何", "是否", "能否", "可否",
+            "有没有", "是不是", "能不能", "可不可以", "要不要", "会不会", "对不对");
+
+    private static final Pattern PATTERN_SPACES = Pattern.compile(" {2,}");
+
+    private final SimpleNormalizer simpleNormalizer;
+    private final NormalizeConfig normalizeConfig;
+    private final ResourceLoader resourceLoader;
+
+    private final Map<Character, Character> traditionalToSimplified = new HashMap<>();
+    // 停用短语映射为空串，同义词变体映射为标准词
+    private final Map<String, String> replacements = new HashMap<>();
+    private final List<String> protectedWords = new ArrayList<>();
+    private Pattern replacementPattern;
+
+    @PostConstruct
+    public void init() throws IOException {
+        if (!normalizeConfig.isRuleEnabled()) {
+            return;
+        }
+
+        for (String line : readLines(normalizeConfig.getTraditionalToSimplifiedPath())) {
+            String[] pair = line.split("\\s+");
+            if (pair.length == 2 && pair[0].length() == 1 && pair[1].length() == 1) {
+                traditionalToSimplified.put(pair[0].charAt(0), pair[1].charAt(0));
+            }
+        }
+        protectedWords.addAll(readLines(normalizeConfig.getProtectedWordsPath()));
+        for (String line : readLines(normalizeConfig.getStopPhrasesPath())) {
+            replacements.put(line, "");
+        }
+        for (String line : readLines(normalizeConfig.getSynonymsPath())) {
+            int separator = line.indexOf(':');
+            if (separator <= 0) {
+                continue;
+            }
+            String canonical = line.substring(0, separator).trim();
+            for (String variant : line.substring(separator + 1).split(",")) {
+                if (!variant.isBlank()) {
+                    replacements.put(variant.trim(), canonical);
+                }
+            }
+        }
+
+        // 长词优先，避免短变体截断长变体
+        List<String> keys = new ArrayList<>(replacements.keySet());
+        keys.sort(Comparator.comparingInt(String::length).reversed());
+        if (!keys.isEmpty()) {
+            replacementPattern = Pattern.compile(String.join("|", keys.stream().map(Pattern::quote).toList()));
+        }
+
+        log.info("规则归一化词典已加载, 繁简对照: {}, 替换词: {}, 受保护词: {}",
+                traditionalToSimplified.size(), replacements.size(), protectedWords.size());
+    }
+
+    /**
+     * 规则归一化
+     */
+    public String normalize(String question) {
+        if (question == null || question.isBlank()) {
+            return "";
+        }
+        if (!normalizeConfig.isRuleEnabled()) {
+            return simpleNormalizer.normalize(question);
+        }
+
+        String normalized = simpleNormalizer.normalize(toSimplified(foldWidth(question)));
+
+        if (replacementPattern != null) {
+            List<int[]> protectedSpans = findProtectedSpans(normalized);
+            Matcher matcher = replacementPattern.matcher(normalized);
+            StringBuilder replaced = new StringBuilder(normalized.length());
+            while (matcher.find()) {
+                String replacement = crossesBoundary(normalized, matcher.start(), matcher.end(), protectedSpans)
+                        ? matcher.group()
+                        : replacements.get(matcher.group());
+                matcher.appendReplacement(replaced, Matcher.quoteReplacement(replacement));
+            }
+            matcher.appendTail(replaced);
+            normalized = PATTERN_SPACES.matcher(replaced).replaceAll(" ").trim();
+        }
+
+        String result = stripTrailingParticle(normalized);
+        // 整句都是停用短语时保留基础归一化结果
+        return result.isEmpty() ? simpleNormalizer.normalize(question) : result;
+    }
+
+    /**
+     * 全角字符转半角，全角空格转普通空格
+     */
+    private static String foldWidth(String text) {
+        char[] chars = text.toCharArray();
+        for (int i = 0; i < chars.length; i++) {
+            char c = chars[i];
+            if (c == '　') {
+                chars[i] = ' ';
+            } else if (c >= '！' && c <= '～') {
+                chars[i] = (char) (c - 0xFEE0);
+            }
+        }
+        return new String(chars);
+    }
+
+    private String toSimplified(String text) {
+        char[] chars = text.toCharArray();
+        for (int i = 0; i < chars.length; i++) {
+            Character simplified = traditionalToSimplified.get(chars[i]);
+            if (simplified != null) {
+                chars[i] = simplified;
+            }
+        }
+        return new String(chars);
+    }
+
+    /**
+     * 受保护词在文本中的所有出现位置 [start, end)
+     */
+    private List<int[]> findProtectedSpans(String text) {
+        List<int[]> spans = new ArrayList<>();
+        for (String word : protectedWords) {
+            for (int start = text.indexOf(word); start >= 0; start = text.indexOf(word, start + 1)) {
+                spans.add(new int[]{start, start + word.length()});
+            }
+        }
+        return spans;
+    }
+
+    /**
+     * 匹配是否切开了受保护词，或切开了拉丁字母、数字组成的词
+     */
+    private static boolean crossesBoundary(String text, int start, int end, List<int[]> protectedSpans) {
+        for (int[] span : protectedSpans) {
+            boolean overlaps = span[0] < end && start < span[1];
+            boolean contains = start <= span[0] && span[1] <= end;
+            if (overlaps && !contains) {
+                return true;
+            }
+        }
+        return (isWordChar(text, start - 1) && isWordChar(text, start))
+                || (isWordChar(text, end - 1) && isWordChar(text, end));
+    }
+
+    private static boolean isWordChar(String text, int index) {
+        if (index < 0 || index >= text.length()) {
+            return false;
+        }
+        char c = text.charAt(index);
+        return c < 0x80 && Character.isLetterOrDigit(c);
+    }
+
+    /**
+     * 删除整句末尾的一个语气词，须满足：句子呈疑问形式，语气词不属于受保护词，删除后不为空
+     */
+    private String stripTrailingParticle(String text) {
+        if (text.length() < 2 || TRAILING_PARTICLES.indexOf(text.charAt(text.length() - 1)) < 0) {
+            return text;
+        }
+        for (String word : protectedWords) {
+            if (text.endsWith(word)) {
+                return text;
+            }
+        }
+
+        String body = text.substring(0, text.length() - 1).stripTrailing();
+        boolean questionLike = text.charAt(text.length() - 1) == '吗'
+                || INTERROGATIVES.stream().anyMatch(body::contains);
+        return questionLike && !body.isEmpty() ? body : text;
+    }
+
+    private List<String> readLines(String location) throws IOException {
+        List<String> lines = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                resourceLoader.getResource(location).getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.strip();
+                if (!line.isEmpty() && !line.startsWith("#")) {
+                    lines.add(line);
+                }
+            }
+        }
+        return lines;
+    }
+}
@@ -2,6 +2,9 @@ package io.github.yuri_hack.rag_knowledge_qa.util;
 
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
 
 public class VectorUtils {
 
@@ -25,4 +28,48 @@ public class VectorUtils {
         }
         return vector;
     }
-}
\ No newline at end of file
+
+    /**
+     * 余弦相似度，任一向量为零向量时返回0
+     */
+    public static double cosineSimilarity(float[] a, float[] b) {
+        double dot = 0;
+        double normA = 0;
+        double normB = 0;
+        for (int i = 0; i < a.length; i++) {
+            dot += a[i] * b[i];
+            normA += a[i] * a[i];
+            normB += b[i] * b[i];
+        }
+        return normA == 0 || normB == 0 ? 0 : dot / Math.sqrt(normA * normB);
+    }
+
+    /**
+     * 将 float[] 包装为只读 List&lt;Float&gt; 视图，不复制数据
+     * Milvus SDK 2.3.x 只接受 List&lt;List&lt;Float&gt;&gt;。检索时 SDK 逐个读取元素写入占位符，
+     * 视图读取产生的 Float 可被 JIT 消除；插入时 SDK 会把所有向量 addAll 到一个 ArrayList，
+     * 每个元素仍会装箱，视图只省去了每个向量的中间列表。
+     * 实测见 VectorConversionBenchmark
+     */
+    public static List<Float> asFloatList(float[] vector) {
+        return new FloatArrayView(vector);
+    }
+
+    private static final class FloatArrayView extends AbstractList<Float> implements RandomAccess {
+        private final float[] array;
+
+        private FloatArrayView(float[] array) {
+            this.array = array;
+        }
+
+        @Override
+        public Float get(int index) {
+            return array[index];
+        }
+
+        @Override
+        public int size() {
+            return array.length;
+        }
+    }
+}
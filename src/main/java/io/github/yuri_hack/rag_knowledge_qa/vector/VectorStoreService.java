@@ -9,5 +9,36 @@ public interface VectorStoreService {
 
     List<Long> insertVectors(List<DocumentChunk> chunks);
 
+    /**
+     * 使用已生成的向量插入，embeddings与chunks顺序一一对应
+     */
+    List<Long> insertVectors(List<DocumentChunk> chunks, List<float[]> embeddings);
+
+    /**
+     * 删除文档的全部向量
+     */
+    void deleteByDocumentId(String documentId);
+
+    /**
+     * 按块ID批量删除向量
+     */
+    void deleteByChunkIds(List<Long> chunkIds);
+
     List<VectorSearchResult> searchSimilarVectors(float[] queryVector, int topK);
+
+    /**
+     * 指定搜索力度的向量搜索
+     *
+     * @param searchEffort 为空时使用配置的搜索参数
+     */
+    List<VectorSearchResult> searchSimilarVectors(float[] queryVector, int topK, Integer searchEffort);
+
+    /**
+     * 批量向量搜索，一次RPC检索多个查询向量
+     *
+     * @return 每个查询向量的搜索结果，与输入顺序一一对应
+     */
+    List<List<VectorSearchResult>> searchSimilarVectorsBatch(List<float[]> queryVectors, int topK);
+
+    List<List<VectorSearchResult>> searchSimilarVectorsBatch(List<float[]> queryVectors, int topK, Integer searchEffort);
 }
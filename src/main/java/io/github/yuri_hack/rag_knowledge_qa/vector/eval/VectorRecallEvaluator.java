@@ -0,0 +1,146 @@
+package io.github.yuri_hack.rag_knowledge_qa.vector.eval;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.yuri_hack.rag_knowledge_qa.config.MilvusConfig;
+import io.github.yuri_hack.rag_knowledge_qa.dto.internal.VectorSearchResult;
+import io.github.yuri_hack.rag_knowledge_qa.embed.EmbeddingService;
+import io.github.yuri_hack.rag_knowledge_qa.vector.VectorStoreService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 离线向量检索评估工具
+ * 读取标注好的查询集 (JSONL，每行 {"query": "...", "relevantChunkIds": [1, 2]})，
+ * 按不同搜索力度计算 recall@k 和检索延迟，用于选择索引及搜索参数
+ * batch-size 大于1时使用批量搜索，延迟统计为每次RPC的耗时
+ * 通过 milvus.evaluation.enabled=true 在启动后执行
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "milvus.evaluation", name = "enabled", havingValue = "true")
+public class VectorRecallEvaluator implements ApplicationRunner {
+
+    private final VectorStoreService vectorStoreService;
+    private final EmbeddingService embeddingService;
+    private final MilvusConfig milvusConfig;
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    @Value("${milvus.evaluation.query-file}")
+    private String queryFile;
+
+    @Value("${milvus.evaluation.top-k:10}")
+    private int topK;
+
+    // 每次RPC的查询数，为1时统计单查询延迟
+    @Value("${milvus.evaluation.batch-size:1}")
+    private int batchSize;
+
+    // 逗号分隔的搜索力度列表，为空时只评估当前配置
+    @Value("${milvus.evaluation.efforts:}")
+    private List<Integer> efforts;
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        List<EvaluationQuery> queries = loadQueries();
+        if (queries.isEmpty()) {
+            log.warn("评估查询集为空: {}", queryFile);
+            return;
+        }
+
+        List<float[]> queryVectors = embeddingService.getEmbeddings(queries.stream()
+                .map(EvaluationQuery::query)
+                .toList());
+
+        log.info("开始向量检索评估, 索引: {}, 查询数: {}, topK: {}", milvusConfig.getIndexType(), queries.size(), topK);
+        List<Integer> effortsToRun = efforts == null || efforts.isEmpty()
+                ? Collections.singletonList(null)
+                : efforts;
+        for (Integer effort : effortsToRun) {
+            evaluate(queries, queryVectors, effort);
+        }
+    }
+
+    private void evaluate(List<EvaluationQuery> queries, List<float[]> queryVectors, Integer effort) {
+        int step = Math.max(1, batchSize);
+        double recallSum = 0.0;
+        long[] latencies = new long[(queries.size() + step - 1) / step];
+
+        for (int start = 0, batch = 0; start < queries.size(); start += step, batch++) {
+            int end = Math.min(queries.size(), start + step);
+            long begin = System.nanoTime();
+            List<List<VectorSearchResult>> results = vectorStoreService.searchSimilarVectorsBatch(
+                    queryVectors.subList(start, end), topK, effort);
+            latencies[batch] = System.nanoTime() - begin;
+
+            for (int i = start; i < end; i++) {
+                recallSum += recall(queries.get(i).relevantChunkIds(), results.get(i - start));
+            }
+        }
+
+        Arrays.sort(latencies);
+        log.info("评估结果 [effort={}, params={}, batch={}]: recall@{}={}, 平均延迟={} ms, p50={} ms, p95={} ms",
+                effort != null ? effort : "default",
+                milvusConfig.buildSearchParams(effort, topK),
+                step,
+                topK,
+                "%.4f".formatted(recallSum / queries.size()),
+                "%.2f".formatted(Arrays.stream(latencies).average().orElse(0) / 1_000_000),
+                "%.2f".formatted(percentile(latencies, 0.50) / 1_000_000.0),
+                "%.2f".formatted(percentile(latencies, 0.95) / 1_000_000.0));
+    }
+
+    private double recall(List<Long> relevantChunkIds, List<VectorSearchResult> results) {
+        if (relevantChunkIds == null || relevantChunkIds.isEmpty()) {
+            return 0.0;
+        }
+        Set<Long> relevant = new HashSet<>(relevantChunkIds);
+        long found = results.stream()
+                .map(VectorSearchResult::getChunkId)
+                .filter(relevant::contains)
+                .distinct()
+                .count();
+        return (double) found / relevant.size();
+    }
+
+    private long percentile(long[] sortedValues, double percentile) {
+        int index = (int) Math.ceil(percentile * sortedValues.length) - 1;
+        return sortedValues[Math.max(0, Math.min(sortedValues.length - 1, index))];
+    }
+
+    private List<EvaluationQuery> loadQueries() throws IOException {
+        List<EvaluationQuery> queries = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(Paths.get(queryFile), StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.isBlank()) {
+                    queries.add(objectMapper.readValue(line, EvaluationQuery.class));
+                }
+            }
+        }
+        return queries;
+    }
+
+    record EvaluationQuery(String query, List<Long> relevantChunkIds) {
+    }
+}
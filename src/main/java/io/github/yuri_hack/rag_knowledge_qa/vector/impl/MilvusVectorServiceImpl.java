@@ -20,6 +20,7 @@ import io.milvus.param.collection.DropCollectionParam;
 import io.milvus.param.collection.FieldType;
 import io.milvus.param.collection.HasCollectionParam;
 import io.milvus.param.collection.LoadCollectionParam;
+import io.milvus.param.dml.DeleteParam;
 import io.milvus.param.dml.InsertParam;
 import io.milvus.param.dml.SearchParam;
 import io.milvus.param.index.CreateIndexParam;
@@ -31,8 +32,8 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
-import java.util.stream.Collectors;
-import java.util.stream.IntStream;
+
+import static io.github.yuri_hack.rag_knowledge_qa.util.VectorUtils.asFloatList;
 
 @Slf4j
 @Service
@@ -60,26 +61,37 @@ public class MilvusVectorServiceImpl implements VectorStoreService {
             return Collections.emptyList();
         }
 
+        // 批量生成向量，结果与chunks顺序一一对应
+        List<float[]> embeddings = embeddingService.getEmbeddings(chunks.stream()
+                .map(DocumentChunk::getContent)
+                .toList());
+        return insertVectors(chunks, embeddings);
+    }
+
+    @Override
+    public List<Long> insertVectors(List<DocumentChunk> chunks, List<float[]> embeddings) throws VectorStorageException {
+        if (chunks == null || chunks.isEmpty()) {
+            log.warn("插入向量数据为空");
+            return Collections.emptyList();
+        }
+
         try {
             // 准备插入数据
-            List<List<Float>> vectors = new ArrayList<>();
-            List<String> documentIds = new ArrayList<>();
-            List<Integer> chunkIndexes = new ArrayList<>();
-            List<Long> chunkIds = new ArrayList<>();
+            List<List<Float>> vectors = new ArrayList<>(chunks.size());
+            List<String> documentIds = new ArrayList<>(chunks.size());
+            List<Integer> chunkIndexes = new ArrayList<>(chunks.size());
+            List<Long> chunkIds = new ArrayList<>(chunks.size());
 
-            for (DocumentChunk chunk : chunks) {
-                float[] embedding = embeddingService.getEmbedding(chunk.getContent());
+            for (int index = 0; index < chunks.size(); index++) {
+                DocumentChunk chunk = chunks.get(index);
+                float[] embedding = embeddings.get(index);
                 if (embedding == null) {
                     log.warn("文档块 {} 的向量为空，跳过插入", chunk.getId());
                     continue;
                 }
 
-                // 转换向量格式
-                List<Float> vector = IntStream.range(0, embedding.length)
-                        .mapToObj(i -> embedding[i])
-                        .collect(Collectors.toList());
-
-                vectors.add(vector);
+                // 包装为列表视图，不复制向量数据
+                vectors.add(asFloatList(embedding));
                 documentIds.add(chunk.getDocumentId());
                 chunkIndexes.add(chunk.getChunkIndex());
                 chunkIds.add(chunk.getId());
@@ -119,15 +131,88 @@ public class MilvusVectorServiceImpl implements VectorStoreService {
         }
     }
 
+    @Override
+    public void deleteByDocumentId(String documentId) throws VectorStorageException {
+        long deleted = deleteByExpr("%s == \"%s\"".formatted(DOCUMENT_ID_FIELD, documentId));
+        log.info("已删除文档 {} 的向量, 删除数量: {}", documentId, deleted);
+    }
+
+    @Override
+    public void deleteByChunkIds(List<Long> chunkIds) throws VectorStorageException {
+        if (chunkIds == null || chunkIds.isEmpty()) {
+            return;
+        }
+
+        int batchSize = Math.max(1, milvusConfig.getDeleteBatchSize());
+        long deleted = 0;
+        for (int start = 0; start < chunkIds.size(); start += batchSize) {
+            List<Long> batch = chunkIds.subList(start, Math.min(chunkIds.size(), start + batchSize));
+            deleted += deleteByExpr("%s in %s".formatted(CHUNK_ID_FIELD, batch));
+        }
+        log.info("已按块ID删除向量, 请求数量: {}, 删除数量: {}", chunkIds.size(), deleted);
+    }
+
+    private long deleteByExpr(String expr) {
+        try {
+            DeleteParam deleteParam = DeleteParam.newBuilder()
+                    .withCollectionName(milvusConfig.getCollectionName())
+                    .withExpr(expr)
+                    .build();
+
+            R<MutationResult> response = milvusClient.delete(deleteParam);
+
+            if (response.getStatus() != R.Status.Success.getCode()) {
+                throw new VectorStorageException("删除向量失败: " + response.getMessage());
+            }
+            return response.getData().getDeleteCnt();
+        } catch (Exception e) {
+            log.error("删除Milvus向量失败, expr: {}", expr, e);
+            throw new VectorStorageException("向量删除失败", e);
+        }
+    }
+
     @Override
     public List<VectorSearchResult> searchSimilarVectors(float[] queryVector, int topK) throws VectorStorageException {
+        return searchSimilarVectors(queryVector, topK, null);
+    }
+
+    @Override
+    public List<VectorSearchResult> searchSimilarVectors(float[] queryVector, int topK, Integer searchEffort) throws VectorStorageException {
+        return searchSimilarVectorsBatch(Collections.singletonList(queryVector), topK, searchEffort).get(0);
+    }
+
+    @Override
+    public List<List<VectorSearchResult>> searchSimilarVectorsBatch(List<float[]> queryVectors, int topK) throws VectorStorageException {
+        return searchSimilarVectorsBatch(queryVectors, topK, null);
+    }
+
+    @Override
+    public List<List<VectorSearchResult>> searchSimilarVectorsBatch(List<float[]> queryVectors, int topK, Integer searchEffort) throws VectorStorageException {
+        if (queryVectors == null || queryVectors.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        // 超过单次请求上限时拆分为多次RPC
+        int maxBatchSize = Math.max(1, milvusConfig.getSearchBatchSize());
+        List<List<VectorSearchResult>> results = new ArrayList<>(queryVectors.size());
+        for (int start = 0; start < queryVectors.size(); start += maxBatchSize) {
+            List<float[]> batch = queryVectors.subList(start, Math.min(queryVectors.size(), start + maxBatchSize));
+            results.addAll(searchBatch(batch, topK, searchEffort));
+        }
+        return results;
+    }
+
+    /**
+     * 单次RPC检索多个查询向量，返回结果与输入顺序一一对应
+     */
+    private List<List<VectorSearchResult>> searchBatch(List<float[]> queryVectors, int topK, Integer searchEffort) {
+        int dimension = queryVectors.get(0).length;
         try {
-            // 转换查询向量格式
-            List<Float> queryVectorList = new ArrayList<>();
-            for (float value : queryVector) {
-                queryVectorList.add(value);
+            // 包装查询向量，不复制数据
+            List<List<Float>> searchVectors = new ArrayList<>(queryVectors.size());
+            for (float[] queryVector : queryVectors) {
+                searchVectors.add(asFloatList(queryVector));
             }
-            List<List<Float>> searchVectors = Collections.singletonList(queryVectorList);
 
             // 构建搜索参数
             SearchParam searchParam = SearchParam.newBuilder()
@@ -137,7 +222,7 @@ public class MilvusVectorServiceImpl implements VectorStoreService {
                     .withTopK(topK)
                     .withVectors(searchVectors)
                     .withVectorFieldName(VECTOR_FIELD)
-                    .withParams("{\"nprobe\":10}")
+                    .withParams(milvusConfig.buildSearchParams(searchEffort, topK))
                     .build();
 
             R<SearchResults> response = milvusClient.search(searchParam);
@@ -146,17 +231,17 @@ public class MilvusVectorServiceImpl implements VectorStoreService {
                 throw new VectorStorageException("向量搜索失败: " + response.getMessage());
             }
 
-            // 处理搜索结果
-            List<VectorSearchResult> vectorSearchResults = new ArrayList<>();
-
             // 创建 SearchResultsWrapper 来解析结果
             SearchResultData searchResultData = response.getData().getResults();
             SearchResultsWrapper resultsWrapper = new SearchResultsWrapper(searchResultData);
 
             // 遍历查询向量
+            List<List<VectorSearchResult>> batchResults = new ArrayList<>(searchVectors.size());
+            int total = 0;
             for (int i = 0; i < searchVectors.size(); i++) {
                 // 获取当前查询向量的搜索结果
                 List<SearchResultsWrapper.IDScore> idScores = resultsWrapper.getIDScore(i);
+                List<VectorSearchResult> vectorSearchResults = new ArrayList<>(idScores.size());
 
                 for (SearchResultsWrapper.IDScore idScore : idScores) {
                     double similarity = idScore.getScore();
@@ -173,15 +258,18 @@ public class MilvusVectorServiceImpl implements VectorStoreService {
                         log.warn("处理搜索结果字段时出错，跳过该结果。Score: {}", similarity, fieldException);
                     }
                 }
+
+                batchResults.add(vectorSearchResults);
+                total += vectorSearchResults.size();
             }
 
-            log.debug("向量搜索完成，查询向量维度: {}, 返回结果数: {}", queryVector.length, vectorSearchResults.size());
+            log.debug("向量搜索完成，查询数: {}, 查询向量维度: {}, 返回结果数: {}", queryVectors.size(), dimension, total);
 
-            return vectorSearchResults;
+            return batchResults;
 
         } catch (Exception e) {
-            log.error("Milvus向量搜索失败，查询向量维度: {}, topK: {}", queryVector.length, topK, e);
+            log.error("Milvus向量搜索失败，查询数: {}, 查询向量维度: {}, topK: {}", queryVectors.size(), dimension, topK, e);
             throw new VectorStorageException("向量搜索失败: " + e.getMessage(), e);
         }
     }
-}
\ No newline at end of file
+}
@@ -154,8 +154,9 @@ public class MilvusVectorInitializer {
      */
     private void createIndex() {
         try {
-            IndexType indexType = IndexType.IVF_FLAT;
-            String indexParam = "{\"nlist\":%d}".formatted(milvusConfig.getVectorDimension());
+            IndexType indexType = milvusConfig.getIndexType();
+            String indexParam = milvusConfig.buildIndexParams();
+            log.info("创建Milvus索引: {}, 参数: {}", indexType, indexParam);
 
             CreateIndexParam createIndexParam = CreateIndexParam.newBuilder()
                     .withCollectionName(milvusConfig.getCollectionName())
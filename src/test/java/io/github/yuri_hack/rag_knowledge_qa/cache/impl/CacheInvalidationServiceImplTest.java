@@ -0,0 +1,92 @@
+package io.github.yuri_hack.rag_knowledge_qa.cache.impl;
+
+import io.github.yuri_hack.rag_knowledge_qa.config.CacheConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.data.redis.core.RedisTemplate;
+import redis.clients.jedis.JedisPooled;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.exceptions.JedisConnectionException;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CacheInvalidationServiceImplTest {
+
+    private JedisPooled jedisPooled;
+    private Pipeline pipeline;
+    private CacheInvalidationServiceImpl service;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        jedisPooled = mock(JedisPooled.class);
+        pipeline = mock(Pipeline.class);
+        when(jedisPooled.pipelined()).thenReturn(pipeline);
+        service = new CacheInvalidationServiceImpl(jedisPooled, mock(RedisTemplate.class), new CacheConfig());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void marksChunksDeletedBeforeReadingIndexAndDeletesDependents() {
+        Response<Set<String>> members = mock(Response.class);
+        when(members.get()).thenReturn(Set.of("rag:answer:semantic:1"));
+        when(pipeline.smembers(anyString())).thenReturn(members);
+
+        int invalidated = service.invalidateChunks(List.of(7L));
+
+        assertThat(invalidated).isEqualTo(1);
+        InOrder order = inOrder(pipeline);
+        order.verify(pipeline).setex(eq("rag:cache:deleted:7"), anyLong(), eq("1"));
+        order.verify(pipeline).smembers("rag:cache:chunk:7");
+        order.verify(pipeline).del("rag:answer:semantic:1");
+        order.verify(pipeline).del("rag:cache:chunk:7");
+    }
+
+    @Test
+    void swallowsRedisFailures() {
+        doThrow(new JedisConnectionException("connection refused")).when(pipeline).sync();
+
+        assertThat(service.invalidateChunks(List.of(7L))).isZero();
+        verify(pipeline).close();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void revokesEntryWhenSourceChunkAlreadyDeleted() {
+        Response<Long> deleted = mock(Response.class);
+        when(deleted.get()).thenReturn(1L);
+        when(pipeline.exists(new String[]{"rag:cache:deleted:7"})).thenReturn(deleted);
+
+        assertThat(service.registerDependencies("rag:exact:q", List.of(7L))).isFalse();
+
+        InOrder order = inOrder(pipeline);
+        order.verify(pipeline).sadd("rag:cache:chunk:7", "rag:exact:q");
+        order.verify(pipeline).exists(new String[]{"rag:cache:deleted:7"});
+        order.verify(pipeline).del("rag:exact:q");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void keepsEntryWhenSourceChunksLive() {
+        Response<Long> deleted = mock(Response.class);
+        when(deleted.get()).thenReturn(0L);
+        when(pipeline.exists(new String[]{"rag:cache:deleted:7"})).thenReturn(deleted);
+
+        assertThat(service.registerDependencies("rag:exact:q", List.of(7L))).isTrue();
+        verify(pipeline, never()).del("rag:exact:q");
+    }
+}
@@ -0,0 +1,259 @@
+package io.github.yuri_hack.rag_knowledge_qa.cache.write;
+
+import io.github.yuri_hack.rag_knowledge_qa.cache.CacheInvalidationService;
+import io.github.yuri_hack.rag_knowledge_qa.cache.model.SemanticCacheWrite;
+import io.github.yuri_hack.rag_knowledge_qa.config.CacheConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+import redis.clients.jedis.JedisPooled;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.search.Document;
+import redis.clients.jedis.search.Query;
+import redis.clients.jedis.search.SearchResult;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CacheWriteBehindQueueTest {
+
+    private static final byte[] ANSWER = "answer".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] QUERY = "query".getBytes(StandardCharsets.UTF_8);
+
+    private JedisPooled jedisPooled;
+    private Pipeline pipeline;
+    private CacheInvalidationService invalidationService;
+    private CacheWriteBehindQueue queue;
+
+    // 每次 ftSearch 依次返回的最近邻，null 表示索引中没有条目
+    private final List<Document> nearest = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        jedisPooled = mock(JedisPooled.class);
+        pipeline = mock(Pipeline.class);
+        invalidationService = mock(CacheInvalidationService.class);
+        when(jedisPooled.pipelined()).thenReturn(pipeline);
+        when(pipeline.ftSearch(anyString(), any(Query.class))).thenAnswer(invocation -> {
+            Document document = nearest.isEmpty() ? null : nearest.remove(0);
+            SearchResult result = mock(SearchResult.class);
+            when(result.getDocuments()).thenReturn(document == null ? List.of() : List.of(document));
+            @SuppressWarnings("unchecked")
+            Response<SearchResult> response = mock(Response.class);
+            when(response.get()).thenReturn(result);
+            return response;
+        });
+
+        CacheConfig cacheConfig = new CacheConfig();
+        cacheConfig.getWriteBehind().setBatchSize(10);
+        queue = new CacheWriteBehindQueue(jedisPooled, cacheConfig, invalidationService);
+    }
+
+    @Test
+    void mergesNearDuplicatesWithinOneBatch() {
+        nearest.add(null);
+        nearest.add(null);
+        nearest.add(null);
+        enqueue("q1", write(new float[]{1, 0}, "a1"));
+        enqueue("q2", write(new float[]{0.999f, 0.01f}, "a2"));
+        enqueue("q3", write(new float[]{0, 1}, "a3"));
+
+        drain();
+
+        List<String> keys = writtenKeys(3);
+        assertThat(keys.get(1)).isEqualTo(keys.get(0));
+        assertThat(keys.get(2)).isNotEqualTo(keys.get(0));
+        // 同批重复条目只刷新答案，不覆盖原查询和向量
+        List<Map<byte[], byte[]>> documents = writtenDocuments(3);
+        assertThat(documents.get(0)).containsKey(QUERY);
+        assertThat(documents.get(1)).doesNotContainKey(QUERY).containsEntry(ANSWER, bytes("a2"));
+        // 一批只提交两次：近似重复查询一次、写入一次
+        verify(pipeline, times(2)).sync();
+    }
+
+    @Test
+    void refreshesExistingEntryFoundInIndex() {
+        nearest.add(new Document("rag:answer:semantic:existing", Map.of("distance", "0.01")));
+        enqueue("q1", write(new float[]{1, 0}, "a1"));
+
+        drain();
+
+        assertThat(writtenKeys(1)).containsExactly("rag:answer:semantic:existing");
+        assertThat(writtenDocuments(1).get(0)).doesNotContainKey(QUERY);
+        verify(invalidationService).registerDependencies(eq(pipeline), eq("rag:answer:semantic:existing"), eq(List.of(1L)));
+    }
+
+    @Test
+    void insertsWhenNearestIsBelowThreshold() {
+        nearest.add(new Document("rag:answer:semantic:existing", Map.of("distance", "0.4")));
+        enqueue("q1", write(new float[]{1, 0}, "a1"));
+
+        drain();
+
+        assertThat(writtenKeys(1).get(0)).startsWith("rag:answer:semantic:").isNotEqualTo("rag:answer:semantic:existing");
+        assertThat(writtenDocuments(1).get(0)).containsKey(QUERY);
+    }
+
+    @Test
+    void revokesEntryWhoseSourceChunksWereDeletedWhileQueued() {
+        @SuppressWarnings("unchecked")
+        Response<Long> deleted = mock(Response.class);
+        when(deleted.get()).thenReturn(1L);
+        when(invalidationService.countInvalidatedChunks(eq(pipeline), eq(List.of(1L)))).thenReturn(deleted);
+        enqueue("q1", write(new float[]{1, 0}, "a1"));
+
+        drain();
+
+        String key = writtenKeys(1).get(0);
+        verify(pipeline).del(key);
+        assertThat(queue.getStats().getWritten()).isZero();
+        assertThat(queue.getStats().getDropped()).isEqualTo(1);
+    }
+
+    @Test
+    void coalescesPendingWritesForSameKey() {
+        enqueue("q1", write(new float[]{1, 0}, "old"));
+        enqueue("q1", write(new float[]{1, 0}, "new"));
+
+        drain();
+
+        assertThat(writtenDocuments(1).get(0)).containsEntry(ANSWER, bytes("new"));
+        assertThat(queue.getStats().getCoalesced()).isEqualTo(1);
+        assertThat(queue.getStats().getWritten()).isEqualTo(1);
+    }
+
+    @Test
+    void dropsWritesWhenQueueIsFull() {
+        CacheConfig cacheConfig = new CacheConfig();
+        cacheConfig.getWriteBehind().setQueueCapacity(1);
+        queue = new CacheWriteBehindQueue(jedisPooled, cacheConfig, invalidationService);
+
+        enqueue("q1", write(new float[]{1, 0}, "a1"));
+        enqueue("q2", write(new float[]{0, 1}, "a2"));
+
+        assertThat(queue.getStats().getDropped()).isEqualTo(1);
+        assertThat(queue.getStats().getQueueDepth()).isEqualTo(1);
+    }
+
+    @Test
+    void preparesEntriesOnWorkerThreadOnly() throws InterruptedException {
+        AtomicReference<Thread> preparedOn = new AtomicReference<>();
+        ReflectionTestUtils.setField(queue, "running", true);
+        queue.submit("q1", () -> {
+            preparedOn.set(Thread.currentThread());
+            return write(new float[]{1, 0}, "a1");
+        });
+
+        // 提交时不执行准备工作
+        assertThat(preparedOn.get()).isNull();
+        verify(jedisPooled, never()).pipelined();
+
+        Thread worker = new Thread(this::drain, "cache-write-behind-test");
+        worker.start();
+        worker.join(5000);
+
+        assertThat(worker.isAlive()).isFalse();
+        assertThat(preparedOn.get()).isSameAs(worker);
+        assertThat(writtenKeys(1)).hasSize(1);
+    }
+
+    @Test
+    void failedOrSkippedPreparationDoesNotBlockBatch() {
+        ReflectionTestUtils.setField(queue, "running", true);
+        queue.submit("q1", () -> {
+            throw new IllegalStateException("模型不可用");
+        });
+        queue.submit("q2", () -> null);
+        queue.submit("q3", () -> write(new float[]{1, 0}, "a3"));
+
+        drain();
+
+        assertThat(writtenDocuments(1).get(0)).containsEntry(ANSWER, bytes("a3"));
+        assertThat(queue.getStats().getFailed()).isEqualTo(1);
+        assertThat(queue.getStats().getWritten()).isEqualTo(1);
+    }
+
+    @Test
+    void runsTasksWithoutTouchingSemanticIndex() {
+        AtomicInteger runs = new AtomicInteger();
+        ReflectionTestUtils.setField(queue, "running", true);
+        queue.submitTask("exact:q", runs::incrementAndGet);
+        queue.submitTask("exact:q", runs::incrementAndGet);
+
+        assertThat(runs).hasValue(0);
+        drain();
+
+        assertThat(runs).hasValue(1);
+        assertThat(queue.getStats().getCoalesced()).isEqualTo(1);
+        assertThat(queue.getStats().getWritten()).isEqualTo(1);
+        verify(jedisPooled, never()).pipelined();
+    }
+
+    /**
+     * 模拟工作线程运行中提交，写入只进入队列
+     */
+    private void enqueue(String coalesceKey, SemanticCacheWrite write) {
+        ReflectionTestUtils.setField(queue, "running", true);
+        queue.submit(coalesceKey, write);
+    }
+
+    /**
+     * 在当前线程执行工作线程的排空逻辑
+     */
+    private void drain() {
+        ReflectionTestUtils.setField(queue, "running", false);
+        ReflectionTestUtils.invokeMethod(queue, "drainLoop");
+    }
+
+    private List<String> writtenKeys(int count) {
+        ArgumentCaptor<String> keys = ArgumentCaptor.forClass(String.class);
+        verify(pipeline, times(count)).expire(keys.capture(), anyLong());
+        return keys.getAllValues();
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Map<byte[], byte[]>> writtenDocuments(int count) {
+        ArgumentCaptor<Map<byte[], byte[]>> documents = ArgumentCaptor.forClass(Map.class);
+        verify(pipeline, times(count)).hset(any(byte[].class), documents.capture());
+        return documents.getAllValues();
+    }
+
+    private static SemanticCacheWrite write(float[] vector, String answer) {
+        Map<byte[], byte[]> fields = new HashMap<>();
+        fields.put(ANSWER, bytes(answer));
+        Map<byte[], byte[]> newEntryFields = new HashMap<>();
+        newEntryFields.put(QUERY, bytes("question"));
+        return SemanticCacheWrite.builder()
+                .indexName("rag_answer_semantic_idx")
+                .keyPrefix("rag:answer:semantic:")
+                .similarityThreshold(0.95)
+                .vector(vector)
+                .fields(fields)
+                .newEntryFields(newEntryFields)
+                .ttlSeconds(60)
+                .chunkIds(List.of(1L))
+                .build();
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,84 @@
+package io.github.yuri_hack.rag_knowledge_qa.context;
+
+import io.github.yuri_hack.rag_knowledge_qa.embed.EmbeddingService;
+import io.github.yuri_hack.rag_knowledge_qa.exception.VectorException;
+import io.github.yuri_hack.rag_knowledge_qa.service.NormalizeService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class QueryContextTest {
+
+    private EmbeddingService embeddingService;
+    private NormalizeService normalizeService;
+
+    @BeforeEach
+    void setUp() {
+        embeddingService = mock(EmbeddingService.class);
+        normalizeService = mock(NormalizeService.class);
+    }
+
+    @Test
+    void sameTextIsEmbeddedOnceAndShared() {
+        float[] vector = {1f, 2f};
+        when(normalizeService.normalizeQuestion("问题")).thenReturn("问题");
+        when(embeddingService.getEmbedding("问题")).thenReturn(vector);
+        QueryContext context = new QueryContext("问题", embeddingService, normalizeService);
+
+        assertThat(context.getQueryEmbedding()).isSameAs(vector);
+        assertThat(context.getNormalizedEmbedding()).isSameAs(vector);
+        verify(embeddingService, times(1)).getEmbedding("问题");
+    }
+
+    @Test
+    void concurrentCallersWaitForSingleRemoteCall() throws Exception {
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        float[] vector = {0.5f};
+        when(embeddingService.getEmbedding("问题")).thenAnswer(invocation -> {
+            entered.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return vector;
+        });
+        QueryContext context = new QueryContext("问题", embeddingService, normalizeService);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            Future<float[]> leader = executor.submit(context::getQueryEmbedding);
+            assertThat(entered.await(5, TimeUnit.SECONDS)).isTrue();
+            Future<float[]> follower = executor.submit(context::getQueryEmbedding);
+
+            release.countDown();
+
+            assertThat(leader.get(5, TimeUnit.SECONDS)).isSameAs(vector);
+            assertThat(follower.get(5, TimeUnit.SECONDS)).isSameAs(vector);
+            verify(embeddingService, times(1)).getEmbedding("问题");
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void failedEmbeddingIsNotMemoized() {
+        float[] vector = {1f};
+        when(embeddingService.getEmbedding("问题"))
+                .thenThrow(new VectorException("向量化失败"))
+                .thenReturn(vector);
+        QueryContext context = new QueryContext("问题", embeddingService, normalizeService);
+
+        assertThatThrownBy(context::getQueryEmbedding).isInstanceOf(VectorException.class);
+        assertThat(context.getQueryEmbedding()).isSameAs(vector);
+        verify(embeddingService, times(2)).getEmbedding("问题");
+    }
+}
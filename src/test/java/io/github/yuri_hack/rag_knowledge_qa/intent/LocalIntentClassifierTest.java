@@ -0,0 +1,118 @@
+package io.github.yuri_hack.rag_knowledge_qa.intent;
+
+import io.github.yuri_hack.rag_knowledge_qa.config.IntentClassifierConfig;
+import io.github.yuri_hack.rag_knowledge_qa.embed.EmbeddingService;
+import io.github.yuri_hack.rag_knowledge_qa.exception.VectorException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class LocalIntentClassifierTest {
+
+    private EmbeddingService embeddingService;
+    private IntentClassifierConfig config;
+
+    @BeforeEach
+    void setUp() {
+        embeddingService = mock(EmbeddingService.class);
+        config = new IntentClassifierConfig();
+        // 知识库示例 A、B、C，闲聊示例 D、E
+        config.setKnowledgeExemplars(List.of("A", "B", "C"));
+        config.setChatExemplars(List.of("D", "E"));
+        when(embeddingService.getEmbeddings(anyList())).thenReturn(List.of(
+                new float[]{1f, 0f},
+                new float[]{0.8f, 0.6f},
+                new float[]{-1f, 0f},
+                new float[]{0.6f, 0.8f},
+                new float[]{0f, 1f}));
+    }
+
+    private LocalIntentClassifier classifier() {
+        LocalIntentClassifier classifier = new LocalIntentClassifier(embeddingService, config);
+        classifier.init();
+        return classifier;
+    }
+
+    /**
+     * 查询 (1,0) 的相似度依次为 A=1, B=0.8, D=0.6, E=0, C=-1；温度足够大时各近邻等权投票
+     */
+    @ParameterizedTest
+    @CsvSource({
+            "1, 1.0",
+            "2, 1.0",
+            "3, 0.6667",
+            "4, 0.5",
+            "5, 0.6",
+            "10, 0.6"
+    })
+    void votesAmongTopK(int k, double expected) {
+        config.setK(k);
+        config.setTemperature(1e6);
+
+        assertThat(classifier().score(new float[]{1f, 0f})).isCloseTo(expected, within(1e-3));
+    }
+
+    @Test
+    void lowTemperatureFavorsNearestExemplar() {
+        config.setK(3);
+        config.setTemperature(0.05);
+
+        // 权重 1, e^-4, e^-8，仅 D 为闲聊示例
+        double expected = (1 + Math.exp(-4)) / (1 + Math.exp(-4) + Math.exp(-8));
+        assertThat(classifier().score(new float[]{1f, 0f})).isCloseTo(expected, within(1e-6));
+    }
+
+    @Test
+    void nearestChatExemplarWinsWithSingleNeighbour() {
+        config.setK(1);
+
+        assertThat(classifier().score(new float[]{0.5f, 0.9f})).isZero();
+    }
+
+    @Test
+    void queryIsNormalizedBeforeComparison() {
+        LocalIntentClassifier classifier = classifier();
+
+        assertThat(classifier.score(new float[]{5f, 0f})).isEqualTo(classifier.score(new float[]{1f, 0f}));
+    }
+
+    @Test
+    void returnsNullWhenNearestSimilarityTooLow() {
+        config.setMinSimilarity(0.3);
+
+        assertThat(classifier().score(new float[]{0f, -1f})).isNull();
+    }
+
+    @Test
+    void returnsNullOnDimensionMismatch() {
+        assertThat(classifier().score(new float[]{1f, 0f, 0f})).isNull();
+    }
+
+    @Test
+    void notReadyWithoutExemplarsOrWhenEmbeddingFails() {
+        config.setChatExemplars(List.of());
+        assertThat(classifier().isReady()).isFalse();
+
+        config.setChatExemplars(List.of("D", "E"));
+        when(embeddingService.getEmbeddings(anyList())).thenThrow(new VectorException("向量化失败"));
+        LocalIntentClassifier failed = classifier();
+        assertThat(failed.isReady()).isFalse();
+        assertThat(failed.score(new float[]{1f, 0f})).isNull();
+    }
+
+    @Test
+    void notReadyWhenDisabled() {
+        config.setEnabled(false);
+
+        assertThat(classifier().isReady()).isFalse();
+    }
+}
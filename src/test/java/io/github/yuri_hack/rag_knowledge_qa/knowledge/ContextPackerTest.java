@@ -0,0 +1,105 @@
+package io.github.yuri_hack.rag_knowledge_qa.knowledge;
+
+import io.github.yuri_hack.rag_knowledge_qa.config.TongYiModelConfig;
+import io.github.yuri_hack.rag_knowledge_qa.dto.internal.KnowledgeSearchResult;
+import io.github.yuri_hack.rag_knowledge_qa.dto.internal.PackedContext;
+import io.github.yuri_hack.rag_knowledge_qa.splitter.impl.CharacterLengthFunction;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ContextPackerTest {
+
+    private final ContextPacker packer = new ContextPacker(new CharacterLengthFunction());
+
+    @Test
+    void adjacentChunksAreMergedWithoutOverlap() {
+        PackedContext packed = packer.pack(List.of(
+                result(2L, "doc", 1, "第二块的开头部分内容，接着是第三块", 0.8),
+                result(1L, "doc", 0, "第一块的正文。第二块的开头部分内容", 0.9)
+        ), budget(null));
+
+        assertThat(packed.getContent()).isEqualTo("第一块的正文。第二块的开头部分内容，接着是第三块");
+        assertThat(packed.getChunkIds()).containsExactly(1L, 2L);
+    }
+
+    @Test
+    void nonAdjacentChunksStaySeparateAndOrderedByScore() {
+        PackedContext packed = packer.pack(List.of(
+                result(1L, "doc", 0, "低分段落", 0.2),
+                result(5L, "doc", 4, "高分段落", 0.9)
+        ), budget(null));
+
+        assertThat(packed.getContent()).isEqualTo("高分段落\n\n低分段落");
+        assertThat(packed.getChunkIds()).containsExactly(5L, 1L);
+    }
+
+    @Test
+    void containedSpanIsDroppedAsDuplicate() {
+        PackedContext packed = packer.pack(List.of(
+                result(1L, "a", 0, "完整的段落包含了重复的句子", 0.9),
+                result(2L, "b", 0, "重复的句子", 0.5)
+        ), budget(null));
+
+        assertThat(packed.getChunkIds()).containsExactly(1L);
+    }
+
+    @Test
+    void spansBeyondBudgetAreSkipped() {
+        PackedContext packed = packer.pack(List.of(
+                result(1L, "a", 0, "0123456789", 0.9),
+                result(2L, "b", 0, "abcdefghij", 0.5),
+                result(3L, "c", 0, "xyz", 0.1)
+        ), budget(15));
+
+        // 10 + 分隔符2 + 3 = 15，第二段装不下被跳过
+        assertThat(packed.getContent()).isEqualTo("0123456789\n\nxyz");
+        assertThat(packed.getTokens()).isEqualTo(15);
+    }
+
+    @Test
+    void topSpanOverBudgetIsTruncated() {
+        PackedContext packed = packer.pack(List.of(result(1L, "a", 0, "0123456789", 0.9)), budget(4));
+
+        assertThat(packed.getContent()).isEqualTo("0123");
+        assertThat(packed.getTokens()).isEqualTo(4);
+    }
+
+    @Test
+    void overlapLengthFindsLongestSuffixPrefix() {
+        assertThat(ContextPacker.overlapLength("xxabababababab", "ababababab yy")).isEqualTo(10);
+        assertThat(ContextPacker.overlapLength("前文内容重叠部分甲乙丙丁", "重叠部分甲乙丙丁后文")).isEqualTo(8);
+    }
+
+    @Test
+    void overlapShorterThanMinimumIsIgnored() {
+        assertThat(ContextPacker.overlapLength("abcdefg", "efghijk")).isZero();
+        assertThat(ContextPacker.overlapLength("short", "other")).isZero();
+    }
+
+    @Test
+    void overlapLengthIsLinearOnRepetitiveInput() {
+        String a = "a".repeat(200_000);
+        String b = "a".repeat(199_999) + "b";
+
+        assertThat(ContextPacker.overlapLength(a, b)).isEqualTo(199_999);
+    }
+
+    private static TongYiModelConfig budget(Integer budget) {
+        TongYiModelConfig config = new TongYiModelConfig();
+        config.setContextTokenBudget(budget);
+        return config;
+    }
+
+    private static KnowledgeSearchResult result(Long chunkId, String documentId, int chunkIndex, String content, double score) {
+        KnowledgeSearchResult result = new KnowledgeSearchResult();
+        result.setChunkId(chunkId);
+        result.setDocumentId(documentId);
+        result.setChunkIndex(chunkIndex);
+        result.setContent(content);
+        result.setRerankScore(score);
+        return result;
+    }
+}
@@ -0,0 +1,86 @@
+package io.github.yuri_hack.rag_knowledge_qa.rerank;
+
+import io.github.yuri_hack.rag_knowledge_qa.config.RerankConfig;
+import io.github.yuri_hack.rag_knowledge_qa.dto.internal.KnowledgeSearchResult;
+import io.github.yuri_hack.rag_knowledge_qa.dto.internal.RerankResult;
+import io.github.yuri_hack.rag_knowledge_qa.util.SimpleNormalizer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CascadeRankerTest {
+
+    private RerankerService rerankerService;
+    private RerankConfig rerankConfig;
+    private SimpleMeterRegistry meterRegistry;
+    private CascadeRanker ranker;
+
+    @BeforeEach
+    void setUp() {
+        rerankerService = mock(RerankerService.class);
+        rerankConfig = new RerankConfig();
+        rerankConfig.getCascade().setFirstStageTopN(2);
+        rerankConfig.getCascade().setScoreGap(0.15);
+        meterRegistry = new SimpleMeterRegistry();
+        ranker = new CascadeRanker(rerankerService, rerankConfig, new SimpleNormalizer(), meterRegistry);
+    }
+
+    @Test
+    void decisiveVectorScoresSkipRerankAndLeaveRerankScoreEmpty() {
+        List<KnowledgeSearchResult> candidates = List.of(
+                result(1L, "无关内容", 0.5),
+                result(2L, "退货流程说明", 0.9),
+                result(3L, "其他内容", 0.4));
+
+        List<KnowledgeSearchResult> ranked = ranker.rank("退货流程", candidates);
+
+        verify(rerankerService, never()).rerankKnowledgeResults(anyString(), anyList());
+        assertThat(ranked).extracting(KnowledgeSearchResult::getChunkId).containsExactly(2L, 1L);
+        assertThat(ranked).extracting(KnowledgeSearchResult::getRerankScore).containsOnlyNulls();
+        assertThat(stageCount("first")).isEqualTo(1);
+        assertThat(stageCount("rerank")).isZero();
+        assertThat(meterRegistry.get("rag.rerank.cascade.skipped").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void rerankedPathWritesOnlyRerankerScores() {
+        KnowledgeSearchResult first = result(1L, "退货流程说明", 0.80);
+        KnowledgeSearchResult second = result(2L, "退货注意事项", 0.78);
+        KnowledgeSearchResult third = result(3L, "无关内容", 0.10);
+        when(rerankerService.rerankKnowledgeResults(anyString(), anyList())).thenReturn(List.of(
+                RerankResult.from(first, 0.3),
+                RerankResult.from(second, 0.95)));
+
+        List<KnowledgeSearchResult> ranked = ranker.rank("退货流程", List.of(first, second, third));
+
+        assertThat(ranked).extracting(KnowledgeSearchResult::getChunkId).containsExactly(2L, 1L);
+        assertThat(ranked).extracting(KnowledgeSearchResult::getRerankScore).containsExactly(0.95, 0.3);
+        // 未进入第二阶段的候选不残留初筛分数
+        assertThat(third.getRerankScore()).isNull();
+        assertThat(stageCount("first")).isEqualTo(1);
+        assertThat(stageCount("rerank")).isEqualTo(1);
+        assertThat(meterRegistry.get("rag.rerank.cascade.skipped").counter().count()).isZero();
+    }
+
+    private long stageCount(String stage) {
+        return meterRegistry.get("rag.rerank.cascade").tag("stage", stage).timer().count();
+    }
+
+    private static KnowledgeSearchResult result(Long chunkId, String content, double similarity) {
+        KnowledgeSearchResult result = new KnowledgeSearchResult();
+        result.setChunkId(chunkId);
+        result.setContent(content);
+        result.setSimilarity(similarity);
+        return result;
+    }
+}
@@ -0,0 +1,93 @@
+package io.github.yuri_hack.rag_knowledge_qa.rerank.impl;
+
+import io.github.yuri_hack.rag_knowledge_qa.config.RerankConfig;
+import io.github.yuri_hack.rag_knowledge_qa.dto.internal.KnowledgeSearchResult;
+import io.github.yuri_hack.rag_knowledge_qa.dto.internal.RerankResult;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 推理线程被占满时的回退行为，不加载 ONNX 模型：排队的批次一旦被执行就会因会话为空而失败
+ */
+class LocalCrossEncoderRerankerServiceImplTest {
+
+    @TempDir
+    Path tempDir;
+
+    private RerankConfig rerankConfig;
+    private LocalCrossEncoderRerankerServiceImpl reranker;
+    private ThreadPoolExecutor executor;
+    private CountDownLatch release;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        Path vocab = tempDir.resolve("vocab.txt");
+        Files.write(vocab, List.of("[PAD]", "[UNK]", "[CLS]", "[SEP]", "退", "货"));
+
+        rerankConfig = new RerankConfig();
+        rerankConfig.getLocal().setBatchSize(1);
+        reranker = new LocalCrossEncoderRerankerServiceImpl(rerankConfig);
+        ReflectionTestUtils.setField(reranker, "tokenizer", new WordPieceTokenizer(vocab, true));
+
+        // 唯一的推理线程被阻塞，提交的批次只能排队
+        executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(1), new ThreadPoolExecutor.AbortPolicy());
+        release = new CountDownLatch(1);
+        executor.execute(() -> {
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        ReflectionTestUtils.setField(reranker, "executor", executor);
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        executor.shutdownNow();
+    }
+
+    @Test
+    void fullQueueFallsBackToSimilarityWithoutRunningOnCaller() {
+        List<KnowledgeSearchResult> candidates = List.of(result(1L, 0.9), result(2L, 0.7), result(3L, 0.5));
+
+        List<RerankResult> results = reranker.rerankKnowledgeResults("退货", candidates);
+
+        assertThat(results).extracting(RerankResult::getRerankScore).containsExactly(0.9, 0.7, 0.5);
+        // 已入队的批次被取消并移出队列
+        assertThat(executor.getQueue()).isEmpty();
+    }
+
+    @Test
+    void timeoutCancelsQueuedBatches() {
+        rerankConfig.getLocal().setTimeoutMs(50);
+
+        List<RerankResult> results = reranker.rerankKnowledgeResults("退货", List.of(result(1L, 0.8)));
+
+        assertThat(results).extracting(RerankResult::getRerankScore).containsExactly(0.8);
+        assertThat(executor.getQueue()).isEmpty();
+    }
+
+    private static KnowledgeSearchResult result(Long chunkId, double similarity) {
+        KnowledgeSearchResult result = new KnowledgeSearchResult();
+        result.setChunkId(chunkId);
+        result.setContent("退货");
+        result.setSimilarity(similarity);
+        return result;
+    }
+}
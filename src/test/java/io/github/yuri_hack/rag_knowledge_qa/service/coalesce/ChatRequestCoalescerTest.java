@@ -0,0 +1,212 @@
+package io.github.yuri_hack.rag_knowledge_qa.service.coalesce;
+
+import io.github.yuri_hack.rag_knowledge_qa.config.CoalescingConfig;
+import io.github.yuri_hack.rag_knowledge_qa.dto.response.StreamChatResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+import redis.clients.jedis.JedisPooled;
+import redis.clients.jedis.params.SetParams;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ChatRequestCoalescerTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+    private CoalescingConfig config;
+    private JedisPooled jedisPooled;
+    private ChatRequestCoalescer coalescer;
+
+    private final AtomicInteger invocations = new AtomicInteger();
+    private final AtomicBoolean upstreamCancelled = new AtomicBoolean();
+    private Sinks.Many<StreamChatResponse> upstream;
+
+    @BeforeEach
+    void setUp() {
+        config = new CoalescingConfig();
+        config.setPollIntervalMs(10);
+        jedisPooled = mock(JedisPooled.class);
+        coalescer = new ChatRequestCoalescer(config, jedisPooled);
+        upstream = Sinks.many().unicast().onBackpressureBuffer();
+    }
+
+    private Supplier<Flux<StreamChatResponse>> pipeline() {
+        return () -> {
+            invocations.incrementAndGet();
+            return upstream.asFlux().doOnCancel(() -> upstreamCancelled.set(true));
+        };
+    }
+
+    private static StreamChatResponse chunk(String content) {
+        return StreamChatResponse.builder().content(content).build();
+    }
+
+    private static String join(List<StreamChatResponse> responses) {
+        return responses.stream().map(StreamChatResponse::getContent).collect(Collectors.joining());
+    }
+
+    @Test
+    void disabledRunsPipelinePerRequest() {
+        config.setEnabled(false);
+        Supplier<Flux<StreamChatResponse>> pipeline = () -> {
+            invocations.incrementAndGet();
+            return Flux.just(chunk("答案"));
+        };
+
+        coalescer.coalesce("问题", pipeline).blockLast(TIMEOUT);
+        coalescer.coalesce("问题", pipeline).blockLast(TIMEOUT);
+
+        assertThat(invocations).hasValue(2);
+    }
+
+    @Test
+    void followerSharesLeaderStreamAndReceivesReplay() {
+        List<StreamChatResponse> leaderReceived = new CopyOnWriteArrayList<>();
+        coalescer.coalesce("问题", pipeline()).subscribe(leaderReceived::add);
+        upstream.tryEmitNext(chunk("第一段"));
+
+        List<StreamChatResponse> followerReceived = new CopyOnWriteArrayList<>();
+        coalescer.coalesce("问题", pipeline()).subscribe(followerReceived::add);
+        upstream.tryEmitNext(chunk("第二段"));
+        upstream.tryEmitComplete();
+
+        assertThat(invocations).hasValue(1);
+        assertThat(join(leaderReceived)).isEqualTo("第一段第二段");
+        assertThat(join(followerReceived)).isEqualTo("第一段第二段");
+    }
+
+    @Test
+    void completedStreamIsRemovedSoNextRequestRunsAgain() {
+        coalescer.coalesce("问题", () -> {
+            invocations.incrementAndGet();
+            return Flux.just(chunk("答案"));
+        }).blockLast(TIMEOUT);
+        coalescer.coalesce("问题", () -> {
+            invocations.incrementAndGet();
+            return Flux.just(chunk("新答案"));
+        }).blockLast(TIMEOUT);
+
+        assertThat(invocations).hasValue(2);
+    }
+
+    @Test
+    void duplicateArrivingAtCompletionStartsTrackedRun() {
+        List<Sinks.Many<StreamChatResponse>> runs = new CopyOnWriteArrayList<>();
+        Supplier<Flux<StreamChatResponse>> pipeline = () -> {
+            invocations.incrementAndGet();
+            Sinks.Many<StreamChatResponse> run = Sinks.many().unicast().onBackpressureBuffer();
+            runs.add(run);
+            return run.asFlux();
+        };
+        List<StreamChatResponse> lateReceived = new CopyOnWriteArrayList<>();
+        List<StreamChatResponse> joinerReceived = new CopyOnWriteArrayList<>();
+
+        // 首个请求结束信号送达时到达的重复请求
+        coalescer.coalesce("问题", pipeline).subscribe(response -> { },
+                error -> { },
+                () -> coalescer.coalesce("问题", pipeline).subscribe(lateReceived::add));
+        runs.get(0).tryEmitNext(chunk("旧答案"));
+        runs.get(0).tryEmitComplete();
+        assertThat(invocations).hasValue(2);
+
+        // 其执行期间的重复请求应合并进去，而不是再执行一次
+        coalescer.coalesce("问题", pipeline).subscribe(joinerReceived::add);
+        runs.get(1).tryEmitNext(chunk("新答案"));
+        runs.get(1).tryEmitComplete();
+
+        assertThat(invocations).hasValue(2);
+        assertThat(join(lateReceived)).isEqualTo("新答案");
+        assertThat(join(joinerReceived)).isEqualTo("新答案");
+    }
+
+    @Test
+    void followerCancelDoesNotCancelLeader() {
+        List<StreamChatResponse> leaderReceived = new CopyOnWriteArrayList<>();
+        coalescer.coalesce("问题", pipeline()).subscribe(leaderReceived::add);
+        Disposable follower = coalescer.coalesce("问题", pipeline()).subscribe();
+
+        follower.dispose();
+        upstream.tryEmitNext(chunk("答案"));
+        upstream.tryEmitComplete();
+
+        assertThat(upstreamCancelled).isFalse();
+        assertThat(join(leaderReceived)).isEqualTo("答案");
+    }
+
+    @Test
+    void allSubscribersCancellingCancelsUpstreamAndReleasesKey() {
+        Disposable leader = coalescer.coalesce("问题", pipeline()).subscribe();
+        Disposable follower = coalescer.coalesce("问题", pipeline()).subscribe();
+
+        leader.dispose();
+        follower.dispose();
+
+        assertThat(upstreamCancelled).isTrue();
+        List<StreamChatResponse> retried = coalescer.coalesce("问题", () -> {
+            invocations.incrementAndGet();
+            return Flux.just(chunk("重新生成"));
+        }).collectList().block(TIMEOUT);
+        assertThat(invocations).hasValue(2);
+        assertThat(join(retried)).isEqualTo("重新生成");
+    }
+
+    @Test
+    void clusterLeaderPublishesAnswerAndReleasesLease() {
+        config.setClusterEnabled(true);
+        when(jedisPooled.set(startsWith("rag:singleflight:lease:"), anyString(), any(SetParams.class))).thenReturn("OK");
+
+        coalescer.coalesce("问题", () -> Flux.just(chunk("答"), chunk("案"))).blockLast(TIMEOUT);
+
+        verify(jedisPooled).set(startsWith("rag:singleflight:result:"), eq("答案"), any(SetParams.class));
+        verify(jedisPooled).eval(anyString(), anyList(), anyList());
+    }
+
+    @Test
+    void clusterFollowerStreamsPublishedAnswer() {
+        config.setClusterEnabled(true);
+        when(jedisPooled.set(startsWith("rag:singleflight:lease:"), anyString(), any(SetParams.class))).thenReturn(null);
+        when(jedisPooled.get(startsWith("rag:singleflight:result:"))).thenReturn(null, "其它节点的答案");
+        when(jedisPooled.exists(startsWith("rag:singleflight:lease:"))).thenReturn(true);
+
+        List<StreamChatResponse> received = coalescer.coalesce("问题", pipeline()).collectList().block(TIMEOUT);
+
+        assertThat(invocations).hasValue(0);
+        assertThat(join(received)).isEqualTo("其它节点的答案");
+    }
+
+    @Test
+    void clusterFollowerRunsLocallyWhenLeaseReleasedWithoutAnswer() {
+        config.setClusterEnabled(true);
+        when(jedisPooled.set(startsWith("rag:singleflight:lease:"), anyString(), any(SetParams.class))).thenReturn(null);
+        when(jedisPooled.get(startsWith("rag:singleflight:result:"))).thenReturn(null);
+        when(jedisPooled.exists(startsWith("rag:singleflight:lease:"))).thenReturn(false);
+
+        List<StreamChatResponse> received = coalescer.coalesce("问题",
+                () -> {
+                    invocations.incrementAndGet();
+                    return Flux.just(chunk("本节点答案"));
+                }).collectList().block(TIMEOUT);
+
+        assertThat(invocations).hasValue(1);
+        assertThat(join(received)).isEqualTo("本节点答案");
+    }
+}
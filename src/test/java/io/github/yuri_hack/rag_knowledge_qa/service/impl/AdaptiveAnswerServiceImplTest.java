@@ -0,0 +1,117 @@
+package io.github.yuri_hack.rag_knowledge_qa.service.impl;
+
+import com.alibaba.dashscope.aigc.generation.GenerationResult;
+import io.github.yuri_hack.rag_knowledge_qa.cache.CacheService;
+import io.github.yuri_hack.rag_knowledge_qa.cache.SemanticAnswerCacheService;
+import io.github.yuri_hack.rag_knowledge_qa.config.PromptConfig;
+import io.github.yuri_hack.rag_knowledge_qa.config.TongYiBaseConfig;
+import io.github.yuri_hack.rag_knowledge_qa.config.TongYiModelConfig;
+import io.github.yuri_hack.rag_knowledge_qa.context.QueryContext;
+import io.github.yuri_hack.rag_knowledge_qa.dto.internal.KnowledgeSearchResult;
+import io.github.yuri_hack.rag_knowledge_qa.dto.response.StreamChatResponse;
+import io.github.yuri_hack.rag_knowledge_qa.exception.ModelBulkheadFullException;
+import io.github.yuri_hack.rag_knowledge_qa.knowledge.ContextPacker;
+import io.github.yuri_hack.rag_knowledge_qa.knowledge.KnowledgeBaseService;
+import io.github.yuri_hack.rag_knowledge_qa.service.base.TongYiModelClient;
+import io.github.yuri_hack.rag_knowledge_qa.splitter.impl.CharacterLengthFunction;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class AdaptiveAnswerServiceImplTest {
+
+    private TongYiModelClient modelClient;
+    private CacheService cacheService;
+    private SemanticAnswerCacheService semanticAnswerCacheService;
+    private QueryContext context;
+    private AdaptiveAnswerServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        TongYiBaseConfig baseConfig = new TongYiBaseConfig();
+        TongYiModelConfig modelConfig = new TongYiModelConfig();
+        modelConfig.setModel("qwen-plus");
+        baseConfig.setAdaptiveModelConfig(modelConfig);
+        PromptConfig promptConfig = new PromptConfig();
+        promptConfig.setAdaptiveAnswerPrompt("参考资料: {retrieved_docs}");
+
+        KnowledgeSearchResult chunk = new KnowledgeSearchResult();
+        chunk.setChunkId(1L);
+        chunk.setContent("退货需在七天内申请");
+        chunk.setSimilarity(0.6);
+        KnowledgeBaseService knowledgeBaseService = mock(KnowledgeBaseService.class);
+        when(knowledgeBaseService.searchKnowledge(any(), any())).thenReturn(List.of(chunk));
+
+        modelClient = mock(TongYiModelClient.class);
+        cacheService = mock(CacheService.class);
+        semanticAnswerCacheService = mock(SemanticAnswerCacheService.class);
+        context = mock(QueryContext.class);
+        when(context.getQuestion()).thenReturn("怎么退货");
+
+        service = new AdaptiveAnswerServiceImpl(baseConfig, promptConfig, modelClient, knowledgeBaseService,
+                semanticAnswerCacheService, cacheService, new ContextPacker(new CharacterLengthFunction()));
+    }
+
+    @Test
+    void completedAnswerIsCached() {
+        Flux<GenerationResult> stream = Flux.just(result("七天内", null), result("可退货", "stop"));
+        when(modelClient.streamCall(any(), any())).thenReturn(stream);
+
+        List<StreamChatResponse> responses = service.handleAmbiguousQuery(context).collectList().block(Duration.ofSeconds(5));
+
+        assertThat(responses).hasSize(2);
+        verify(cacheService).cacheExactAnswer("怎么退货", "七天内可退货", List.of(1L));
+        verify(semanticAnswerCacheService).cacheSemanticAnswer(eq(context), eq("七天内可退货"), eq(List.of(1L)));
+    }
+
+    @Test
+    void bulkheadRejectionWritesNothingToCache() {
+        when(modelClient.streamCall(any(), any())).thenReturn(Flux.error(new ModelBulkheadFullException("模型调用繁忙")));
+
+        List<StreamChatResponse> responses = service.handleAmbiguousQuery(context).collectList().block(Duration.ofSeconds(5));
+
+        assertThat(responses).singleElement().satisfies(response -> assertThat(response.getErrorMessage()).isNotEmpty());
+        verifyNoInteractions(cacheService, semanticAnswerCacheService);
+    }
+
+    @Test
+    void partialAnswerFollowedByErrorWritesNothingToCache() {
+        Flux<GenerationResult> stream = Flux.concat(
+                Flux.just(result("七天内", null)),
+                Flux.error(new IllegalStateException("连接中断")));
+        when(modelClient.streamCall(any(), any())).thenReturn(stream);
+
+        service.handleAmbiguousQuery(context).collectList().block(Duration.ofSeconds(5));
+
+        verifyNoInteractions(cacheService, semanticAnswerCacheService);
+    }
+
+    @Test
+    void blankAnswerWritesNothingToCache() {
+        Flux<GenerationResult> stream = Flux.just(result(" ", "stop"));
+        when(modelClient.streamCall(any(), any())).thenReturn(stream);
+
+        service.handleAmbiguousQuery(context).collectList().block(Duration.ofSeconds(5));
+
+        verifyNoInteractions(cacheService, semanticAnswerCacheService);
+    }
+
+    private static GenerationResult result(String content, String finishReason) {
+        GenerationResult result = mock(GenerationResult.class, RETURNS_DEEP_STUBS);
+        when(result.getOutput().getChoices().get(0).getMessage().getContent()).thenReturn(content);
+        when(result.getOutput().getChoices().get(0).getFinishReason()).thenReturn(finishReason);
+        return result;
+    }
+}
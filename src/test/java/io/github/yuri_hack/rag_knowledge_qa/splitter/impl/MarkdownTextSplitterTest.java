@@ -0,0 +1,123 @@
+package io.github.yuri_hack.rag_knowledge_qa.splitter.impl;
+
+import io.github.yuri_hack.rag_knowledge_qa.splitter.model.TextChunk;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MarkdownTextSplitterTest {
+
+    private static List<TextChunk> split(String markdown, int chunkSize) {
+        MarkdownTextSplitter splitter = new MarkdownTextSplitter(new CharacterLengthFunction());
+        ReflectionTestUtils.setField(splitter, "chunkSize", chunkSize);
+        List<TextChunk> chunks = new ArrayList<>();
+        Iterator<TextChunk> iterator = splitter.iterateChunks(new StringReader(markdown), "test.md", "doc");
+        iterator.forEachRemaining(chunks::add);
+        return chunks;
+    }
+
+    @Test
+    void chunksDoNotCrossHeadingsAndRecordPath() {
+        List<TextChunk> chunks = split("""
+                # 安装
+                安装说明。
+
+                ## 环境要求
+                需要 JDK 17。
+
+                # 使用
+                使用说明。
+                """, 1000);
+
+        assertThat(chunks).extracting(TextChunk::getHeadingPath)
+                .containsExactly("安装", "安装 > 环境要求", "使用");
+        assertThat(chunks.get(1).getContent()).isEqualTo("## 环境要求\n\n需要 JDK 17。");
+        assertThat(chunks).extracting(TextChunk::getChunkIndex).containsExactly(0, 1, 2);
+    }
+
+    @Test
+    void headingsInsideCodeFenceAreCode() {
+        List<TextChunk> chunks = split("""
+                # 脚本
+                ```bash
+                # 这是注释不是标题
+                ## 也不是标题
+                echo ok
+                ```
+                ~~~
+                # 波浪线围栏内同样不是标题
+                ~~~
+                """, 1000);
+
+        assertThat(chunks).hasSize(1);
+        assertThat(chunks.get(0).getHeadingPath()).isEqualTo("脚本");
+        assertThat(chunks.get(0).getContent())
+                .contains("# 这是注释不是标题\n## 也不是标题")
+                .contains("# 波浪线围栏内同样不是标题");
+    }
+
+    @Test
+    void oversizedCodeFenceIsSplitWithFences() {
+        StringBuilder markdown = new StringBuilder("```java\n");
+        for (int i = 0; i < 20; i++) {
+            markdown.append("int value").append(i).append(" = ").append(i).append(";\n");
+        }
+        markdown.append("```\n");
+
+        List<TextChunk> chunks = split(markdown.toString(), 100);
+
+        assertThat(chunks).hasSizeGreaterThan(1);
+        for (TextChunk chunk : chunks) {
+            assertThat(chunk.getContent()).startsWith("```java\n").endsWith("\n```");
+            assertThat(chunk.getContent().length()).isLessThanOrEqualTo(100);
+        }
+    }
+
+    @Test
+    void oversizedTableRepeatsHeader() {
+        StringBuilder markdown = new StringBuilder("| 名称 | 值 |\n| --- | --- |\n");
+        for (int i = 0; i < 20; i++) {
+            markdown.append("| key").append(i).append(" | value").append(i).append(" |\n");
+        }
+
+        List<TextChunk> chunks = split(markdown.toString(), 80);
+
+        assertThat(chunks).hasSizeGreaterThan(1);
+        assertThat(chunks).allSatisfy(chunk ->
+                assertThat(chunk.getContent()).startsWith("| 名称 | 值 |\n| --- | --- |\n"));
+    }
+
+    @Test
+    void deepHeadingPathFitsColumnAndKeepsNearestHeading() {
+        StringBuilder markdown = new StringBuilder();
+        for (int level = 1; level <= 6; level++) {
+            markdown.append("#".repeat(level)).append(' ')
+                    .append(("第" + level + "级标题").repeat(20)).append("\n\n");
+        }
+        markdown.append("正文内容。\n");
+
+        List<TextChunk> chunks = split(markdown.toString(), 10000);
+        String headingPath = chunks.get(chunks.size() - 1).getHeadingPath();
+
+        assertThat(headingPath.length()).isLessThanOrEqualTo(MarkdownTextSplitter.MAX_HEADING_PATH_LENGTH);
+        assertThat(headingPath).startsWith("… > ").endsWith("第6级标题".repeat(20));
+    }
+
+    @Test
+    void singleOverlongHeadingIsTruncated() {
+        String title = "很长的标题".repeat(200);
+
+        List<TextChunk> chunks = split("# " + title + "\n\n正文。\n", 10000);
+
+        assertThat(chunks.get(0).getHeadingPath())
+                .hasSize(MarkdownTextSplitter.MAX_HEADING_PATH_LENGTH)
+                .startsWith("很长的标题")
+                .endsWith("…");
+    }
+}
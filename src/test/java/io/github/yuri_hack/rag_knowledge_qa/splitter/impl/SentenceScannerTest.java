@@ -0,0 +1,73 @@
+package io.github.yuri_hack.rag_knowledge_qa.splitter.impl;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SentenceScannerTest {
+
+    private static List<String> scan(String text, int min, int max) throws IOException {
+        SentenceScanner scanner = new SentenceScanner(new StringReader(text), min, max);
+        List<String> sentences = new ArrayList<>();
+        String sentence;
+        while ((sentence = scanner.next()) != null) {
+            sentences.add(sentence);
+        }
+        return sentences;
+    }
+
+    @Test
+    void splitsChineseAndEnglishSentences() throws IOException {
+        assertThat(scan("第一句话在这里。第二句话也在这里！Is this English? Yes it is.", 1, 1000))
+                .containsExactly("第一句话在这里。", "第二句话也在这里！", "Is this English?", "Yes it is.");
+    }
+
+    @Test
+    void mergesShortSentenceIntoNextInsteadOfDropping() throws IOException {
+        assertThat(scan("禁止吸烟。进入车间必须佩戴安全帽。", 6, 1000))
+                .containsExactly("禁止吸烟。进入车间必须佩戴安全帽。");
+        assertThat(scan("Stop. Look both ways before crossing.", 6, 1000))
+                .containsExactly("Stop. Look both ways before crossing.");
+    }
+
+    @Test
+    void keepsShortSentenceAtEndOfText() throws IOException {
+        assertThat(scan("进入车间必须佩戴安全帽。禁止吸烟。", 6, 1000))
+                .containsExactly("进入车间必须佩戴安全帽。", "禁止吸烟。");
+    }
+
+    @Test
+    void emitsShortSentenceAloneWhenMergeWouldExceedMaxLength() throws IOException {
+        assertThat(scan("禁烟。进入车间须戴安全帽。", 4, 10))
+                .containsExactly("禁烟。", "进入车间须戴安全帽。");
+    }
+
+    @Test
+    void keepsAbbreviationsAndDecimalsIntact() throws IOException {
+        assertThat(scan("Use a tool, e.g. a hammer. Pi is 3.14 roughly. Ask Dr. Smith and J. Doe today.", 1, 1000))
+                .containsExactly("Use a tool, e.g. a hammer.", "Pi is 3.14 roughly.", "Ask Dr. Smith and J. Doe today.");
+    }
+
+    @Test
+    void splitsOnParagraphBreakAndJoinsCjkLineBreaks() throws IOException {
+        assertThat(scan("标题行\n\n第一段内容\n跨行继续。\nNext line\nwraps here.", 1, 1000))
+                .containsExactly("标题行", "第一段内容跨行继续。", "Next line wraps here.");
+    }
+
+    @Test
+    void absorbsClosingQuotes() throws IOException {
+        assertThat(scan("他说：“好的。”然后离开了。", 1, 1000))
+                .containsExactly("他说：“好的。”", "然后离开了。");
+    }
+
+    @Test
+    void forceCutsTextWithoutPunctuation() throws IOException {
+        assertThat(scan("一二三四五六七八九十一二三", 1, 5))
+                .containsExactly("一二三四五", "六七八九十", "一二三");
+    }
+}
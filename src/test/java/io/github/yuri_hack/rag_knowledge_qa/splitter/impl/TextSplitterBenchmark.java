@@ -0,0 +1,172 @@
+package io.github.yuri_hack.rag_knowledge_qa.splitter.impl;
+
+import io.github.yuri_hack.rag_knowledge_qa.splitter.model.TextChunk;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 文本分割吞吐量与分配量基准
+ * 对比单遍扫描的 SlidingWindowTextSplitter 与原先基于正则的句子提取，输入为约 1MB 的中英文混合文本，
+ * 每次调用即分割 1MB，吞吐量 (ops/s) 即 MB/s，配合 GC profiler 的 gc.alloc.rate.norm 即每 MB 分配字节数。
+ * <p>
+ * 运行: mvn test-compile 后执行 main 方法，或
+ * java -cp target/test-classes:target/classes:&lt;test classpath&gt; org.openjdk.jmh.Main TextSplitterBenchmark -prof gc
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TextSplitterBenchmark {
+
+    private static final int TEXT_SIZE = 1 << 20;
+
+    private String text;
+    private SlidingWindowTextSplitter splitter;
+
+    @Setup
+    public void setup() {
+        text = sampleText(TEXT_SIZE);
+        splitter = new SlidingWindowTextSplitter(new CharacterLengthFunction());
+        ReflectionTestUtils.setField(splitter, "chunkSize", 1000);
+        ReflectionTestUtils.setField(splitter, "chunkOverlap", 200);
+    }
+
+    @Benchmark
+    public void scanner(Blackhole blackhole) {
+        Iterator<TextChunk> chunks = splitter.iterateChunks(new StringReader(text), "bench.txt", "bench");
+        while (chunks.hasNext()) {
+            blackhole.consume(chunks.next());
+        }
+    }
+
+    @Benchmark
+    public void legacyRegex(Blackhole blackhole) {
+        blackhole.consume(LegacyRegexSplitter.split(text, 1000, 200));
+    }
+
+    static String sampleText(int size) {
+        String[] sentences = {
+                "员工入职后须在三个工作日内完成信息登记。",
+                "报销单据应在费用发生后30天内提交，逾期不予受理！",
+                "如遇系统故障，请联系IT服务台？",
+                "禁止吸烟。",
+                "The VPN client must be updated to version 3.14 before use.",
+                "Contact Dr. Smith, e.g. via the internal portal, for approvals.",
+                "Is remote work allowed on Fridays? It depends on the team.",
+        };
+        Random random = new Random(42);
+        StringBuilder builder = new StringBuilder(size + 256);
+        int sentenceInParagraph = 0;
+        while (builder.length() < size) {
+            builder.append(sentences[random.nextInt(sentences.length)]);
+            if (++sentenceInParagraph % 8 == 0) {
+                builder.append("\n\n");
+            } else {
+                builder.append(random.nextInt(4) == 0 ? '\n' : ' ');
+            }
+        }
+        builder.setLength(size);
+        return builder.toString();
+    }
+
+    /**
+     * 分割器重写前基于正则的句子提取与滑动窗口，仅作为对比基准
+     */
+    static final class LegacyRegexSplitter {
+
+        private static final Pattern SENTENCE_PATTERN = Pattern.compile(
+                "[^.!?\\s][^.!?]*(?:[.!?](?!['\"]?\\s|$)[^.!?]*)*[.!?]?['\"]?(?=\\s|$)",
+                Pattern.MULTILINE
+        );
+
+        private static final Pattern PARAGRAPH_PATTERN = Pattern.compile("\\n\\s*\\n");
+
+        static List<String> split(String content, int chunkSize, int chunkOverlap) {
+            String processed = content.replaceAll("\\s+", " ");
+            processed = processed.replaceAll("\\r\\n|\\r", "\n").trim();
+            List<String> sentences = extractSentences(processed);
+
+            List<String> chunks = new ArrayList<>();
+            int startIndex = 0;
+            while (startIndex < sentences.size()) {
+                StringBuilder chunk = new StringBuilder();
+                int count = 0;
+                for (int i = startIndex; i < sentences.size(); i++) {
+                    String sentence = sentences.get(i).trim();
+                    if (chunk.length() + sentence.length() > chunkSize && chunk.length() > 0) {
+                        break;
+                    }
+                    if (!chunk.isEmpty()) {
+                        chunk.append(' ');
+                    }
+                    chunk.append(sentence);
+                    count++;
+                    if (chunk.length() >= chunkSize) {
+                        break;
+                    }
+                }
+                chunks.add(chunk.toString());
+                if (count <= 0) {
+                    break;
+                }
+
+                int overlapChars = 0;
+                int overlapSentences = 0;
+                for (int i = startIndex; i >= 0 && overlapChars < chunkOverlap; i--) {
+                    overlapChars += sentences.get(i).length() + 1;
+                    overlapSentences++;
+                }
+                startIndex += Math.max(1, count - Math.max(1, overlapSentences));
+            }
+            return chunks;
+        }
+
+        private static List<String> extractSentences(String content) {
+            List<String> sentences = new ArrayList<>();
+            for (String paragraph : PARAGRAPH_PATTERN.split(content)) {
+                if (paragraph.trim().isEmpty()) {
+                    continue;
+                }
+                Matcher matcher = SENTENCE_PATTERN.matcher(paragraph);
+                while (matcher.find()) {
+                    String sentence = matcher.group().trim();
+                    if (sentence.length() > 5) {
+                        sentences.add(sentence);
+                    }
+                }
+            }
+            return sentences;
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(TextSplitterBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build()).run();
+    }
+}
@@ -0,0 +1,55 @@
+package io.github.yuri_hack.rag_knowledge_qa.splitter.impl;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TokenEstimateLengthFunctionTest {
+
+    private final TokenEstimateLengthFunction lengthFunction = new TokenEstimateLengthFunction();
+
+    @ParameterizedTest
+    @CsvSource(delimiter = '|', value = {
+            "''|0",
+            "'   '|0",
+            // 中文约1.5字/token，向上取整
+            "中|1",
+            "中文|2",
+            "中文分词|3",
+            "中文分词估算|4",
+            // 不超过6个字母的单词为1个token，更长的按4字母/token
+            "hello|1",
+            "token|1",
+            "estimate|2",
+            "internationalization|5",
+            // 数字逐位、标点各1个token，空白不计
+            "2024|4",
+            "a, b.|4",
+            // 全角标点不属于中日韩统一表意文字，各1个token
+            "你好，世界。|6",
+            // 中英混排分别计数
+            "使用Spring框架|5"
+    })
+    void estimatesTokens(String text, int expected) {
+        assertThat(lengthFunction.length(text)).isEqualTo(expected);
+    }
+
+    /**
+     * 无标点长文本按 chunkSize 个字符强制切分，依赖估算值不超过字符数
+     */
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "中",
+            "a",
+            "internationalization",
+            "0123456789",
+            "!!!...???",
+            "使用Spring框架构建RAG应用，支持token估算。",
+            "没有标点的很长一段中文文本没有标点的很长一段中文文本"
+    })
+    void neverExceedsCharacterCount(String text) {
+        assertThat(lengthFunction.length(text)).isLessThanOrEqualTo(text.length());
+    }
+}
@@ -0,0 +1,79 @@
+package io.github.yuri_hack.rag_knowledge_qa.util;
+
+import io.github.yuri_hack.rag_knowledge_qa.config.NormalizeConfig;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.springframework.core.io.DefaultResourceLoader;
+
+import java.io.IOException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RuleNormalizerTest {
+
+    private static RuleNormalizer normalizer;
+
+    @BeforeAll
+    static void setUp() throws IOException {
+        normalizer = new RuleNormalizer(new SimpleNormalizer(), new NormalizeConfig(), new DefaultResourceLoader());
+        normalizer.init();
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+            "酒吧, 酒吧",
+            "网吧, 网吧",
+            "毛呢, 毛呢",
+            "附近有酒吧吗？, 附近有酒吧",
+            "哪里有网吧, 哪里有网吧",
+            "这件大衣是毛呢的, 这件大衣是毛呢的",
+    })
+    void keepsWordsEndingWithParticleCharacters(String question, String expected) {
+        assertThat(normalizer.normalize(question)).isEqualTo(expected);
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+            "年假怎么申请呢？, 年假如何申请",
+            "报销流程是什么啊, 报销流程是什么",
+            "可以加班吗, 可以加班",
+            "加班费有多少呀？, 加班费有多少",
+    })
+    void stripsOneTrailingParticleAfterQuestion(String question, String expected) {
+        assertThat(normalizer.normalize(question)).isEqualTo(expected);
+    }
+
+    @Test
+    void keepsParticleWhenSentenceIsNotAQuestion() {
+        assertThat(normalizer.normalize("明天再提交报销吧")).isEqualTo("明天再提交报销吧");
+    }
+
+    @Test
+    void stripsParticleOnlyAtEndOfWholeQuestion() {
+        assertThat(normalizer.normalize("可以吗？什么时候报销呢")).isEqualTo("可以吗 什么时候报销");
+    }
+
+    @Test
+    void replacesSynonymsAndRemovesStopPhrases() {
+        assertThat(normalizer.normalize("请问一下，咱们公司的年休假怎么申请？")).isEqualTo("公司的年假如何申请");
+    }
+
+    @Test
+    void doesNotReplaceVariantInsideProtectedWord() {
+        assertThat(normalizer.normalize("如何加入司机群")).isEqualTo("如何加入司机群");
+        assertThat(normalizer.normalize("新员工入司流程")).isEqualTo("新员工入职流程");
+    }
+
+    @Test
+    void foldsWidthAndConvertsTraditional() {
+        assertThat(normalizer.normalize("請問年休假怎麼申請？")).isEqualTo("年假如何申请");
+        assertThat(normalizer.normalize("ＶＰＮ怎么连接")).isEqualTo("vpn如何连接");
+    }
+
+    @Test
+    void keepsSimpleFormWhenOnlyStopPhrases() {
+        assertThat(normalizer.normalize("谢谢！")).isEqualTo("谢谢");
+    }
+}
@@ -0,0 +1,158 @@
+package io.github.yuri_hack.rag_knowledge_qa.vector.impl;
+
+import io.milvus.grpc.CollectionSchema;
+import io.milvus.grpc.DataType;
+import io.milvus.grpc.DescribeCollectionResponse;
+import io.milvus.grpc.FieldSchema;
+import io.milvus.grpc.KeyValuePair;
+import io.milvus.param.MetricType;
+import io.milvus.param.ParamUtils;
+import io.milvus.param.dml.InsertParam;
+import io.milvus.param.dml.SearchParam;
+import io.milvus.response.DescCollResponseWrapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static io.github.yuri_hack.rag_knowledge_qa.util.VectorUtils.asFloatList;
+
+/**
+ * 向量转换为 Milvus 请求的分配量基准
+ * 经由 SDK 2.3.4 的实际转换路径 (InsertBuilderWrapper、convertSearchParam) 构建请求，
+ * 对比逐元素装箱复制的 ArrayList&lt;Float&gt; 与 VectorUtils.asFloatList 视图，
+ * 使用 GC profiler 的 gc.alloc.rate.norm 查看每次请求的分配字节数。
+ * <p>
+ * 运行: mvn test-compile 后执行 main 方法
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class VectorConversionBenchmark {
+
+    private static final int DIMENSION = 1024;
+
+    @Param({"100"})
+    private int vectorCount;
+
+    private List<float[]> embeddings;
+    private DescCollResponseWrapper schema;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        embeddings = new ArrayList<>(vectorCount);
+        for (int i = 0; i < vectorCount; i++) {
+            float[] embedding = new float[DIMENSION];
+            for (int j = 0; j < DIMENSION; j++) {
+                embedding[j] = random.nextFloat();
+            }
+            embeddings.add(embedding);
+        }
+        schema = new DescCollResponseWrapper(DescribeCollectionResponse.newBuilder()
+                .setCollectionName("bench")
+                .setSchema(CollectionSchema.newBuilder()
+                        .setName("bench")
+                        .addFields(FieldSchema.newBuilder().setName("id").setDataType(DataType.Int64)
+                                .setIsPrimaryKey(true).setAutoID(true))
+                        .addFields(FieldSchema.newBuilder().setName("vector").setDataType(DataType.FloatVector)
+                                .addTypeParams(KeyValuePair.newBuilder().setKey("dim").setValue(String.valueOf(DIMENSION))))
+                        .addFields(FieldSchema.newBuilder().setName("document_id").setDataType(DataType.VarChar)
+                                .addTypeParams(KeyValuePair.newBuilder().setKey("max_length").setValue("64")))
+                        .addFields(FieldSchema.newBuilder().setName("chunk_index").setDataType(DataType.Int32))
+                        .addFields(FieldSchema.newBuilder().setName("chunk_id").setDataType(DataType.Int64)))
+                .build());
+    }
+
+    @Benchmark
+    public Object insertBoxedList() {
+        return buildInsertRequest(VectorConversionBenchmark::boxedCopy);
+    }
+
+    @Benchmark
+    public Object insertView() {
+        return buildInsertRequest(embedding -> asFloatList(embedding));
+    }
+
+    @Benchmark
+    public Object searchBoxedList() {
+        return buildSearchRequest(VectorConversionBenchmark::boxedCopy);
+    }
+
+    @Benchmark
+    public Object searchView() {
+        return buildSearchRequest(embedding -> asFloatList(embedding));
+    }
+
+    private Object buildInsertRequest(Function<float[], List<Float>> converter) {
+        List<List<Float>> vectors = new ArrayList<>(vectorCount);
+        List<String> documentIds = new ArrayList<>(vectorCount);
+        List<Integer> chunkIndexes = new ArrayList<>(vectorCount);
+        List<Long> chunkIds = new ArrayList<>(vectorCount);
+        for (int i = 0; i < vectorCount; i++) {
+            vectors.add(converter.apply(embeddings.get(i)));
+            documentIds.add("DOC_bench");
+            chunkIndexes.add(i);
+            chunkIds.add((long) i);
+        }
+        InsertParam insertParam = InsertParam.newBuilder()
+                .withCollectionName("bench")
+                .withFields(List.of(
+                        new InsertParam.Field("vector", vectors),
+                        new InsertParam.Field("document_id", documentIds),
+                        new InsertParam.Field("chunk_index", chunkIndexes),
+                        new InsertParam.Field("chunk_id", chunkIds)))
+                .build();
+        return new ParamUtils.InsertBuilderWrapper(insertParam, schema).buildInsertRequest();
+    }
+
+    private Object buildSearchRequest(Function<float[], List<Float>> converter) {
+        SearchParam searchParam = SearchParam.newBuilder()
+                .withCollectionName("bench")
+                .withMetricType(MetricType.COSINE)
+                .withTopK(10)
+                .withVectors(Collections.singletonList(converter.apply(embeddings.get(0))))
+                .withVectorFieldName("vector")
+                .withParams("{\"ef\":64}")
+                .build();
+        return ParamUtils.convertSearchParam(searchParam);
+    }
+
+    /**
+     * 改用视图前的转换方式
+     */
+    private static List<Float> boxedCopy(float[] embedding) {
+        List<Float> vector = new ArrayList<>(embedding.length);
+        for (float value : embedding) {
+            vector.add(value);
+        }
+        return vector;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(VectorConversionBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build()).run();
+    }
+}